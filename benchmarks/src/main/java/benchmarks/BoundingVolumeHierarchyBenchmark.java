@@ -0,0 +1,103 @@
+package benchmarks;
+
+import helpers.BoundingVolumeHierarchy;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.Ray;
+import components.bounds.GdxBoundingBox;
+
+/**
+ * Compares casting picking rays via {@link BoundingVolumeHierarchy} with testing every shape, on boxes
+ * laid out in a grid of 100 columns at slightly different depths, as 3D components of a large scene would be.
+ * Also measures building the tree and moving shapes within it.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BoundingVolumeHierarchyBenchmark {
+  private static final int RAYS = 1024;
+
+  @Param({"1000", "10000"})
+  public int shapes;
+
+  private GdxBoundingBox[] boxes;
+  private int[] proxies;
+  private BoundingVolumeHierarchy hierarchy;
+  private Ray[] rays;
+  private final Vector3 intersection = new Vector3();
+  private int rayIndex = 0, updateIndex = 0;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    boxes = new GdxBoundingBox[shapes];
+    proxies = new int[shapes];
+    hierarchy = new BoundingVolumeHierarchy();
+    for (int i = 0; i < shapes; i++) {
+      float x = (i % 100) * 10, y = (i / 100) * 10, z = random.nextFloat() * 5;
+      boxes[i] = new GdxBoundingBox(null, new Vector3(x, y, z), new Vector3(x + 8, y + 8, z + 3));
+      proxies[i] = hierarchy.insert(boxes[i]);
+    }
+    float height = (shapes + 99) / 100 * 10;
+    rays = new Ray[RAYS];
+    for (int i = 0; i < RAYS; i++) {
+      Vector3 direction = new Vector3(random.nextFloat() * 0.4f - 0.2f, random.nextFloat() * 0.4f - 0.2f, -1).nor();
+      rays[i] = new Ray(new Vector3(random.nextFloat() * 1000, random.nextFloat() * height, 100), direction);
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public BoundingVolumeHierarchy build() {
+    BoundingVolumeHierarchy built = new BoundingVolumeHierarchy();
+    for (int i = 0; i < shapes; i++) {
+      built.insert(boxes[i]);
+    }
+    return built;
+  }
+
+  @Benchmark
+  public int cast() {
+    hierarchy.cast(nextRay());
+    return hierarchy.getTestedShapes();
+  }
+
+  @Benchmark
+  public int castBruteForce() {
+    Ray ray = nextRay();
+    int hits = 0;
+    for (int i = 0; i < shapes; i++) {
+      //Same as the hierarchy does for each tested shape
+      intersection.set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+      if (boxes[i].intersectRay(ray, intersection)) hits++;
+    }
+    return hits;
+  }
+
+  @Benchmark
+  public boolean update() {
+    int index = updateIndex++ % shapes;
+    //Every shape moves back and forth, so the scene stays the same over time
+    float offset = (updateIndex / shapes) % 2 == 0 ? 1.5f : -1.5f;
+    boxes[index].translate(offset, offset, 0);
+    return hierarchy.update(proxies[index], boxes[index]);
+  }
+
+  private Ray nextRay() {
+    rayIndex = (rayIndex + 1) % RAYS;
+    return rays[rayIndex];
+  }
+}
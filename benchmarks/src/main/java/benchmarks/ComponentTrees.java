@@ -0,0 +1,149 @@
+package benchmarks;
+
+import io.GdxPainter;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.g3d.Material;
+import components.GdxBox3D;
+import components.GdxButton;
+import components.GdxImage;
+import components.GdxPlainContainer;
+import components.GdxSlider;
+import components.GdxSwitch;
+import components.abstracts.GdxAbstractSlider;
+import components.abstracts.GdxAbstractSwitch;
+import components.interfaces.GdxComponent;
+import components.layouts.GdxGridLayout;
+
+/**
+ * Component structures shared by benchmarks and tests.
+ *
+ */
+public class ComponentTrees {
+
+  /**
+   * Creates a single container holding the given number of components in a grid covering it. Components
+   * cycle through images, buttons, switches and sliders.
+   * @param width Width of the container
+   * @param height Height of the container
+   * @param count Number of components
+   * @return Created container
+   */
+  public static GdxPlainContainer createWide(float width, float height, int count) {
+    GdxPlainContainer container = new GdxPlainContainer(0, 0, width, height);
+    int columns = (int)Math.ceil(Math.sqrt(count));
+    int rows = (count + columns - 1) / columns;
+    //Rounded down, so rounding errors never push a component to the next row
+    float componentWidth = (float)Math.floor(width / columns), componentHeight = (float)Math.floor(height / rows);
+    for (int i = 0; i < count; i++) {
+      container.addComponent(createLeaf(i, 0, 0, componentWidth, componentHeight));
+    }
+    container.setLayout(new GdxGridLayout());
+    return container;
+  }
+
+  /**
+   * Creates a chain of containers nested within each other, each one smaller than its container,
+   * with a button at the bottom.
+   * @param width Width of the outermost container
+   * @param height Height of the outermost container
+   * @param depth Number of containers
+   * @return Outermost container
+   */
+  public static GdxPlainContainer createDeep(float width, float height, int depth) {
+    float inset = Math.min(width, height) / (4f * depth);
+    GdxPlainContainer root = new GdxPlainContainer(0, 0, width, height);
+    GdxPlainContainer container = root;
+    for (int i = 1; i < depth; i++) {
+      GdxPlainContainer child = new GdxPlainContainer(inset, inset,
+          container.getWidth() - 2 * inset, container.getHeight() - 2 * inset);
+      container.addComponent(child);
+      container = child;
+    }
+    container.addComponent(new GdxButton(HeadlessEnvironment.getRegion(), 0, 0,
+        container.getWidth(), container.getHeight()));
+    return root;
+  }
+
+  /**
+   * Fills a container with the given number of 3D boxes in a grid covering it. The container should be
+   * in a frame already, so the boxes are indexed in the frame's bounding volume hierarchy as they're added,
+   * since they're never painted.
+   * @param container Container to be filled
+   * @param count Number of boxes
+   */
+  public static void addBoxes(GdxPlainContainer container, int count) {
+    int columns = (int)Math.ceil(Math.sqrt(count));
+    int rows = (count + columns - 1) / columns;
+    float boxWidth = (float)Math.floor(container.getWidth() / columns);
+    float boxHeight = (float)Math.floor(container.getHeight() / rows);
+    Material material = new Material();
+    for (int i = 0; i < count; i++) {
+      container.addComponent(new Box(material, (i % columns) * boxWidth, (i / columns) * boxHeight,
+          boxWidth, boxHeight));
+    }
+  }
+
+  /**
+   * @return Box closest to the middle of a container filled by {@link #addBoxes(GdxPlainContainer, int)}
+   */
+  public static GdxComponent getMiddleBox(GdxPlainContainer container) {
+    return container.getComponent(container.getComponentCount() / 2);
+  }
+
+  /**
+   * @return Button closest to the middle of a structure created by {@link #createWide(float, float, int)}
+   */
+  public static GdxComponent getWideButton(GdxPlainContainer container) {
+    int middle = container.getComponentCount() / 2;
+    //Leaves cycle through four types, buttons being the second one
+    return container.getComponent(middle - middle % 4 + 1);
+  }
+
+  /**
+   * @return The innermost component of a structure created by {@link #createDeep(float, float, int)}
+   */
+  public static GdxComponent getDeepLeaf(GdxPlainContainer root) {
+    GdxComponent component = root;
+    while (component instanceof GdxPlainContainer) {
+      component = ((GdxPlainContainer)component).getComponent(0);
+    }
+    return component;
+  }
+
+  /**
+   * Box which consumes touches like a button would. It isn't drawn, since {@link io.GdxRecordingPainter
+   * GdxRecordingPainter} doesn't draw models.
+   */
+  private static class Box extends GdxBox3D {
+    private static final float DEPTH = 10;
+
+    public Box(Material material, float x, float y, float width, float height) {
+      super(material, x, y, 0, width, height, DEPTH);
+    }
+
+    @Override
+    public void paint(float x, float y, GdxPainter painter) {}
+
+    @Override
+    public boolean onTouchDown(float x, float y, int pointer) {
+      super.onTouchDown(x, y, pointer);
+      return true;
+    }
+  }
+
+  private static GdxComponent createLeaf(int index, float x, float y, float width, float height) {
+    TextureRegion region = HeadlessEnvironment.getRegion();
+    switch (index % 4) {
+      case 0:
+        return new GdxImage(region, x, y, width, height);
+      case 1:
+        return new GdxButton(region, x, y, width, height);
+      case 2:
+        return new GdxSwitch(region, x, y, width, height, GdxAbstractSwitch.Orientation.HORIZONTAL);
+      default:
+        //Grip is as large as the slider is high, so the slider needs to be wider than that
+        return new GdxSlider(region, x, y, width, height / 4, GdxAbstractSlider.Orientation.HORIZONTAL);
+    }
+  }
+}
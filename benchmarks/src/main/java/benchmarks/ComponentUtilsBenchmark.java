@@ -0,0 +1,112 @@
+package benchmarks;
+
+import helpers.ComponentUtils;
+import io.GdxPainter;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import components.GdxMainFrame;
+import components.GdxPlainContainer;
+import components.abstracts.GdxAbstractDragDropComponent;
+import components.interfaces.GdxComponent;
+import components.interfaces.GdxDragTarget;
+
+/**
+ * Walks component structures via {@link ComponentUtils}: marks everything dirty, and looks for
+ * a drop target among many components of which only some are targets.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ComponentUtilsBenchmark {
+  private static final int SIZE = 1000;
+
+  @Param({"100", "1000", "10000"})
+  public int components;
+
+  private GdxMainFrame frame;
+  private GdxPlainContainer content;
+  private Draggable draggable;
+  private float targetX, targetY; //Frame coordinates
+
+  @Setup
+  public void setUp() {
+    frame = HeadlessEnvironment.createFrame(SIZE, SIZE);
+    content = ComponentTrees.createWide(SIZE, SIZE, components);
+    //Every tenth component is a drop target, the dragged component itself lies outside the content
+    for (int i = 0; i < components; i += 10) {
+      GdxComponent component = content.getComponent(i);
+      GdxPlainContainer target = new Target(component.getX(), component.getY(), component.getWidth(), component.getHeight());
+      content.removeComponent(i);
+      content.insertComponent(i, target);
+    }
+    frame.setContent(content);
+    draggable = new Draggable(0, 0, 1, 1);
+    frame.addComponent(draggable);
+    frame.render();
+    //Candidates are tested from the last one, so the first target is found last
+    GdxComponent target = content.getComponent(0);
+    targetX = target.getFrameX() + target.getWidth() / 2;
+    targetY = target.getFrameY() + target.getHeight() / 2;
+  }
+
+  @TearDown
+  public void tearDown() {
+    frame.dispose();
+  }
+
+  @Benchmark
+  public GdxComponent makeAllDirty() {
+    ComponentUtils.makeAllDirty(content);
+    return content;
+  }
+
+  @Benchmark
+  public GdxComponent findDragTarget() {
+    return ComponentUtils.findDragTarget(draggable, targetX, targetY);
+  }
+
+  private static class Target extends GdxPlainContainer implements GdxDragTarget {
+    public Target(float x, float y, float width, float height) {
+      super(x, y, width, height);
+    }
+
+    @Override
+    public boolean accept(GdxComponent component) {
+      return true;
+    }
+
+    @Override
+    public void onDragOver(GdxComponent component) {
+    }
+
+    @Override
+    public void onDragOut(GdxComponent component) {
+    }
+
+    @Override
+    public void onDragDrop(GdxComponent component, float dropX, float dropY) {
+    }
+  }
+
+  private static class Draggable extends GdxAbstractDragDropComponent {
+    public Draggable(float x, float y, float width, float height) {
+      super(x, y, width, height);
+    }
+
+    @Override
+    public void paint(float x, float y, GdxPainter painter) {
+    }
+  }
+}
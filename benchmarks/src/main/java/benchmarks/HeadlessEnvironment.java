@@ -0,0 +1,153 @@
+package benchmarks;
+
+import io.GdxRecordingPainter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.backends.headless.mock.graphics.MockGraphics;
+import com.badlogic.gdx.backends.headless.mock.input.MockInput;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import components.GdxMainFrame;
+
+/**
+ * Sets up libGDX without a window or GPU, so frames can be created, laid out, fed input and painted
+ * by {@link GdxRecordingPainter} from benchmarks and tests.
+ * <p>
+ * The headless backend never calls the application listener on its own, since rendering is disabled.
+ * OpenGL calls made outside the painter, e.g. when creating textures, go to a GL20 which does nothing
+ * and returns zero. Input processors are kept, so {@link io.GdxInputManager GdxInputManager} can register,
+ * and the screen has the size of the last created frame, so touches are unprojected correctly. Frames are
+ * rendered as if {@link #FRAME_INTERVAL} has passed since the previous one.
+ *
+ */
+public class HeadlessEnvironment {
+  public static final float FRAME_INTERVAL = 1 / 60f; //Seconds
+
+  private static HeadlessApplication application;
+  private static ScreenGraphics graphics;
+  private static TextureRegion region;
+
+  /**
+   * Starts the headless application unless it's running already.
+   */
+  public static synchronized void init() {
+    if (application != null) return;
+    HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+    configuration.renderInterval = -1;
+    application = new HeadlessApplication(new ApplicationAdapter() {}, configuration);
+    application.setLogLevel(Application.LOG_ERROR);
+    GL20 gl = createNullGL();
+    Gdx.gl = gl;
+    Gdx.gl20 = gl;
+    graphics = new ScreenGraphics();
+    Gdx.graphics = graphics;
+    //Mock input ignores input processors, while frames need to register theirs
+    Gdx.input = new MockInput() {
+      private InputProcessor inputProcessor;
+
+      @Override
+      public void setInputProcessor(InputProcessor processor) {
+        inputProcessor = processor;
+      }
+
+      @Override
+      public InputProcessor getInputProcessor() {
+        return inputProcessor;
+      }
+    };
+  }
+
+  /**
+   * Creates a frame painted by {@link GdxRecordingPainter}, sized to the given screen.
+   * @param width Width of both the canvas and the screen
+   * @param height Height of both the canvas and the screen
+   * @return Created frame
+   */
+  public static GdxMainFrame createFrame(int width, int height) {
+    init();
+    graphics.width = width;
+    graphics.height = height;
+    GdxMainFrame frame = new GdxMainFrame(width, height, GdxRecordingPainter.class);
+    frame.create();
+    frame.resize(width, height);
+    return frame;
+  }
+
+  /**
+   * @return Region of a small texture shared by all components
+   */
+  public static synchronized TextureRegion getRegion() {
+    init();
+    if (region == null) {
+      Pixmap pixmap = new Pixmap(16, 16, Format.RGBA8888);
+      region = new TextureRegion(new Texture(pixmap));
+      pixmap.dispose();
+    }
+    return region;
+  }
+
+  /**
+   * Mock graphics reporting the size of the screen, since cameras unproject screen coordinates using it,
+   * and a fixed time between frames.
+   */
+  private static class ScreenGraphics extends MockGraphics {
+    public int width, height;
+
+    @Override
+    public float getDeltaTime() {
+      return FRAME_INTERVAL;
+    }
+
+    @Override
+    public float getRawDeltaTime() {
+      return FRAME_INTERVAL;
+    }
+
+    @Override
+    public int getWidth() {
+      return width;
+    }
+
+    @Override
+    public int getHeight() {
+      return height;
+    }
+
+    @Override
+    public int getBackBufferWidth() {
+      return width;
+    }
+
+    @Override
+    public int getBackBufferHeight() {
+      return height;
+    }
+  }
+
+  private static GL20 createNullGL() {
+    return (GL20)Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] {GL20.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            Class<?> type = method.getReturnType();
+            if (type == boolean.class) return false;
+            if (type == int.class) return 0;
+            if (type == float.class) return 0f;
+            if (type == String.class) return "";
+            return null;
+          }
+        });
+  }
+}
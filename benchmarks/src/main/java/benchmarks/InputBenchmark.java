@@ -0,0 +1,114 @@
+package benchmarks;
+
+import io.GdxInputManager;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.badlogic.gdx.Input.Buttons;
+import components.GdxMainFrame;
+import components.GdxPlainContainer;
+import components.interfaces.GdxComponent;
+
+/**
+ * Dispatches input events at a button, either within a single container with many components,
+ * or at the bottom of a chain of nested containers, or at a 3D box among many others ("boxes"),
+ * which are picked through the frame's bounding volume hierarchy.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InputBenchmark {
+  private static final int SIZE = 1000;
+
+  @Param({"wide", "deep", "boxes"})
+  public String shape;
+
+  @Param({"10", "100", "1000"})
+  public int components;
+
+  private GdxMainFrame frame;
+  private GdxInputManager inputManager;
+  private int x, y; //Screen coordinates of a button, the innermost one for deep structures
+  private int dragOffset = 1;
+
+  @Setup
+  public void setUp() {
+    frame = HeadlessEnvironment.createFrame(SIZE, SIZE);
+    GdxPlainContainer content;
+    GdxComponent button;
+    if ("wide".equals(shape)) {
+      content = ComponentTrees.createWide(SIZE, SIZE, components);
+      button = ComponentTrees.getWideButton(content);
+      frame.setContent(content);
+    } else if ("deep".equals(shape)) {
+      content = ComponentTrees.createDeep(SIZE, SIZE, components);
+      button = ComponentTrees.getDeepLeaf(content);
+      frame.setContent(content);
+    } else {
+      content = new GdxPlainContainer(0, 0, SIZE, SIZE);
+      frame.setContent(content);
+      ComponentTrees.addBoxes(content, components);
+      button = ComponentTrees.getMiddleBox(content);
+    }
+    frame.render();
+    inputManager = frame.getInputManager();
+    //Canvas and screen are the same size
+    x = (int)(button.getFrameX() + button.getWidth() / 2);
+    y = (int)(button.getFrameY() + button.getHeight() / 2);
+  }
+
+  @TearDown
+  public void tearDown() {
+    frame.dispose();
+  }
+
+  @Benchmark
+  public boolean tap() {
+    boolean consumed = inputManager.touchDown(x, y, 0, Buttons.LEFT);
+    return inputManager.touchUp(x, y, 0, Buttons.LEFT) | consumed;
+  }
+
+  @Benchmark
+  public boolean drag(Pressed pressed) {
+    dragOffset = -dragOffset;
+    return inputManager.touchDragged(x + dragOffset, y, 0);
+  }
+
+  @Benchmark
+  public boolean mouseMoved() {
+    dragOffset = -dragOffset;
+    return inputManager.mouseMoved(x + dragOffset, y);
+  }
+
+  /**
+   * Keeps a pointer down on the button, so {@link InputBenchmark#drag(Pressed)} has something
+   * to move. Only used by that benchmark, since other touches are ignored while a pointer is down.
+   */
+  @State(Scope.Benchmark)
+  public static class Pressed {
+    private InputBenchmark benchmark;
+
+    @Setup
+    public void setUp(InputBenchmark benchmark) {
+      this.benchmark = benchmark;
+      if (!benchmark.inputManager.touchDown(benchmark.x, benchmark.y, 0, Buttons.LEFT))
+        throw new IllegalStateException("Button was not pressed");
+    }
+
+    @TearDown
+    public void tearDown() {
+      benchmark.inputManager.touchUp(benchmark.x, benchmark.y, 0, Buttons.LEFT);
+    }
+  }
+}
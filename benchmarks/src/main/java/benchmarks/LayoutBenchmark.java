@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import components.GdxPlainContainer;
+import components.layouts.GdxBorderLayout;
+import components.layouts.GdxGridLayout;
+import components.layouts.GdxLayout;
+import components.layouts.GdxLinearLayout;
+
+/**
+ * Aligns a single container full of components by each of the layouts.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LayoutBenchmark {
+  @Param({"10", "100", "1000", "10000"})
+  public int children;
+
+  @Param({"linear", "grid", "border"})
+  public String layoutType;
+
+  private GdxPlainContainer container;
+  private GdxLayout layout;
+
+  @Setup
+  public void setUp() {
+    HeadlessEnvironment.createFrame(1000, 1000);
+    container = ComponentTrees.createWide(1000, 1000, children);
+    if ("linear".equals(layoutType)) {
+      layout = new GdxLinearLayout();
+    } else if ("grid".equals(layoutType)) {
+      layout = new GdxGridLayout();
+    } else {
+      GdxBorderLayout borderLayout = new GdxBorderLayout();
+      for (int i = 0; i < children; i++) {
+        setAlignment(borderLayout, container, i);
+      }
+      layout = borderLayout;
+    }
+    container.setLayout(layout);
+  }
+
+  private static void setAlignment(GdxBorderLayout layout, GdxPlainContainer container, int index) {
+    switch (index % 5) {
+      case 0: layout.setAlignedComponent(container.getComponent(index), GdxBorderLayout.ALIGN_CENTER); break;
+      case 1: layout.setAlignedComponent(container.getComponent(index), GdxBorderLayout.ALIGN_NORTH); break;
+      case 2: layout.setAlignedComponent(container.getComponent(index), GdxBorderLayout.ALIGN_EAST); break;
+      case 3: layout.setAlignedComponent(container.getComponent(index), GdxBorderLayout.ALIGN_SOUTH); break;
+      default: layout.setAlignedComponent(container.getComponent(index), GdxBorderLayout.ALIGN_WEST); break;
+    }
+  }
+
+  @Benchmark
+  public GdxPlainContainer align() {
+    layout.alignComponents(container);
+    return container;
+  }
+}
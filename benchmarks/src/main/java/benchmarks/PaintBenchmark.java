@@ -0,0 +1,63 @@
+package benchmarks;
+
+import helpers.ComponentUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import components.GdxMainFrame;
+
+/**
+ * Renders whole frames with {@link io.GdxRecordingPainter}, so the update and paint traversal is measured
+ * without any OpenGL work. Either nothing has changed since the previous frame, or everything has.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaintBenchmark {
+  private static final int SIZE = 1000;
+
+  @Param({"wide", "deep"})
+  public String shape;
+
+  @Param({"10", "100", "1000"})
+  public int components;
+
+  private GdxMainFrame frame;
+
+  @Setup
+  public void setUp() {
+    frame = HeadlessEnvironment.createFrame(SIZE, SIZE);
+    frame.setContent("wide".equals(shape) ? ComponentTrees.createWide(SIZE, SIZE, components)
+        : ComponentTrees.createDeep(SIZE, SIZE, components));
+    frame.render();
+  }
+
+  @TearDown
+  public void tearDown() {
+    frame.dispose();
+  }
+
+  @Benchmark
+  public GdxMainFrame renderIdle() {
+    frame.render();
+    return frame;
+  }
+
+  @Benchmark
+  public GdxMainFrame renderAllDirty() {
+    ComponentUtils.makeAllDirty(frame);
+    frame.render();
+    return frame;
+  }
+}
@@ -0,0 +1,126 @@
+package benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import helpers.AllocationMonitor;
+import helpers.ComponentUtils;
+import io.GdxInputManager;
+import io.GdxPainter;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.Input.Buttons;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import components.GdxMainFrame;
+import components.abstracts.GdxAbstractComponent;
+
+/**
+ * Drives frames of real components through {@link components.GdxMainFrame GdxMainFrame} and checks
+ * that neither frames nor input events allocate more than their budget. Each scenario runs once
+ * unmonitored first, so pools and caches have grown before anything is counted.
+ *
+ */
+public class FrameAllocationTest {
+  private static final int SIZE = 1000;
+  private static final int COMPONENTS = 200;
+  private static final int FRAMES = 200;
+  private static final long FRAME_BUDGET = 256; //Bytes
+  private static final long EVENT_BUDGET = 1024; //Bytes
+
+  private GdxMainFrame frame;
+  private AllocationMonitor monitor;
+
+  @Before
+  public void setUp() {
+    Assume.assumeTrue(AllocationMonitor.isSupported());
+    frame = HeadlessEnvironment.createFrame(SIZE, SIZE);
+    frame.setContent(ComponentTrees.createWide(SIZE, SIZE, COMPONENTS));
+    monitor = frame.getAllocationMonitor();
+    monitor.setFrameBudget(FRAME_BUDGET);
+    monitor.setEventBudget(EVENT_BUDGET);
+    monitor.setFailOnExceeded(true);
+    monitor.setWarmUpFrames(0);
+  }
+
+  @After
+  public void tearDown() {
+    if (frame != null) frame.dispose();
+  }
+
+  @Test
+  public void idleFramesStayWithinBudget() {
+    renderIdle();
+    monitor.setEnabled(true);
+    renderIdle();
+    assertEquals(0, monitor.getExceededFrames());
+    assertTrue(monitor.getMaxFrameBytes() <= FRAME_BUDGET);
+  }
+
+  @Test
+  public void dirtyFramesStayWithinBudget() {
+    renderDirty();
+    monitor.setEnabled(true);
+    renderDirty();
+    assertEquals(0, monitor.getExceededFrames());
+    assertTrue(monitor.getMaxFrameBytes() <= FRAME_BUDGET);
+  }
+
+  @Test
+  public void inputEventsStayWithinBudget() {
+    dispatchInput();
+    monitor.setEnabled(true);
+    //Events are only counted once a monitored frame has started
+    frame.render();
+    dispatchInput();
+    assertEquals(4 * FRAMES, monitor.getEventCount());
+    assertEquals(0, monitor.getExceededFrames());
+    assertEquals(0, monitor.getExceededEvents());
+    assertTrue(monitor.getMaxEventBytes() <= EVENT_BUDGET);
+  }
+
+  @Test(expected = GdxRuntimeException.class)
+  public void allocatingComponentExceedsBudget() {
+    frame.addComponent(new GdxAbstractComponent(0, 0, 10, 10) {
+      private byte[] buffer;
+
+      @Override
+      public void paint(float x, float y, GdxPainter painter) {
+        buffer = new byte[(int)FRAME_BUDGET * 4];
+      }
+    });
+    renderDirty();
+    monitor.setEnabled(true);
+    renderDirty();
+  }
+
+  private void renderIdle() {
+    for (int i = 0; i < FRAMES; i++) {
+      frame.render();
+    }
+  }
+
+  private void renderDirty() {
+    for (int i = 0; i < FRAMES; i++) {
+      ComponentUtils.makeAllDirty(frame);
+      frame.render();
+    }
+  }
+
+  /**
+   * Moves over, presses, drags and releases components all over the frame, one frame for each.
+   */
+  private void dispatchInput() {
+    GdxInputManager inputManager = frame.getInputManager();
+    for (int i = 0; i < FRAMES; i++) {
+      int x = (i * 37) % SIZE, y = (i * 53) % SIZE;
+      inputManager.mouseMoved(x, y);
+      inputManager.touchDown(x, y, 0, Buttons.LEFT);
+      inputManager.touchDragged(x + 1, y, 0);
+      inputManager.touchUp(x + 1, y, 0, Buttons.LEFT);
+      frame.render();
+    }
+  }
+}
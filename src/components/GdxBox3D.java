@@ -20,11 +20,10 @@ public class GdxBox3D extends GdxAbstractComponent3D {
   public GdxBox3D(Material topMaterial, Material northMaterial, Material eastMaterial, 
       Material southMaterial, Material westMaterial, Material bottomMaterial, 
       float x, float y, float z, float width, float height, float depth) {
-    super(new GdxModelInstance(
-        ModelUtils.createBox(getModelBuilder(), topMaterial, northMaterial, eastMaterial, 
-            southMaterial, westMaterial, bottomMaterial), 
-        width / 2, height / 2, depth / 2, 
-        width, height, depth),
+    super(ModelUtils.createBoxInstance(getModelBuilder(), topMaterial, northMaterial, eastMaterial, 
+            southMaterial, westMaterial, bottomMaterial, 
+            width / 2, height / 2, depth / 2, 
+            width, height, depth),
         x, y, z);
     modelInstance = getModels().iterator().next();
   }
@@ -42,7 +41,7 @@ public class GdxBox3D extends GdxAbstractComponent3D {
 
   @Override
   public void dispose() {
-    modelInstance.getModel().dispose();
+    ModelUtils.releaseBox(modelInstance);
     super.dispose();
   }
 }
@@ -1,23 +1,44 @@
 package components;
 
+import java.nio.IntBuffer;
 import java.util.Collection;
 import java.util.Iterator;
 
 import helpers.collections.DummyIterator;
 import io.GdxPainter;
 
+import com.badlogic.gdx.Application.ApplicationType;
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
 import components.aggregated.GdxContent;
 import components.interfaces.GdxComponent;
 import components.interfaces.GdxContainer;
 
+/**
+ * Box displaying a 2D component on its top face. The component is rendered into a texture,
+ * which is only refreshed when the component or anything within it has changed, i.e. has been
+ * {@link GdxComponent#makeDirty() made dirty} or animated. Components change their look through
+ * setters which make them dirty; changes made any other way should be followed by
+ * {@link GdxComponent#makeDirty() makeDirty}.
+ *
+ */
 public class GdxComponentBox3D extends GdxBox3D implements GdxContainer {
+  private static final IntBuffer boundTexture = BufferUtils.newIntBuffer(16); //Some backends require room for 16 values
   private final GdxContent content = new GdxContent(this);
   private TextureRegion currentTexture;
+  private float textureWidth, textureHeight, texturePpcu;
+  private int textureResumeCount; //Texture is rendered again after the application has been resumed
+  private boolean mipmapsEnabled = false;
+  private int textureRenders = 0;
   
   public GdxComponentBox3D(GdxComponent component, Material material, 
       float x, float y, float z, float depth) {
@@ -30,16 +51,88 @@ public class GdxComponentBox3D extends GdxBox3D implements GdxContainer {
     content.get().paint(0, 0, painter);
   }
 
+  /**
+   * Makes the texture of the component use mipmaps, so the box doesn't alias when seen
+   * at an oblique angle or from a distance. Mipmaps are regenerated on every refresh.
+   * <p>
+   * Size of the texture is generally not a power of two, so mipmaps require
+   * OpenGL ES 3.0 or desktop OpenGL.
+   * @param mipmapsEnabled Whether to generate mipmaps
+   * @throws GdxRuntimeException If mipmaps are enabled while they are not supported
+   * @see #isMipmapsSupported()
+   */
+  public void setMipmapsEnabled(boolean mipmapsEnabled) {
+    if (this.mipmapsEnabled == mipmapsEnabled) return;
+    if (mipmapsEnabled && !isMipmapsSupported()) {
+      throw new GdxRuntimeException("Mipmaps of textures which are not a power of two require OpenGL ES 3.0 or desktop OpenGL");
+    }
+    this.mipmapsEnabled = mipmapsEnabled;
+    if (!mipmapsEnabled && currentTexture != null) {
+      currentTexture.getTexture().setFilter(TextureFilter.Linear, TextureFilter.Linear);
+    }
+    currentTexture = null;
+  }
+
+  public boolean isMipmapsEnabled() {
+    return mipmapsEnabled;
+  }
+
+  /**
+   * @return Number of times the texture of the component has been rendered
+   */
+  public int getTextureRenders() {
+    return textureRenders;
+  }
+
   @Override
   public void paint(float x, float y, GdxPainter painter) {
-    TextureRegion componentTexture = painter.requestTextureRender(this, 0, getWidth(), getHeight(), Color.BLACK);
-    if (currentTexture != componentTexture) {
-      modelInstance.setMaterial(0, 0, TextureAttribute.createDiffuse(componentTexture));
+    if (!isTextureValid(painter)) {
+      //Cleared to an opaque color, so the texture is kept in its own framebuffer between renders
+      TextureRegion componentTexture = painter.requestTextureRender(this, 0, getWidth(), getHeight(), Color.BLACK);
+      textureRenders++;
+      if (mipmapsEnabled) generateMipmaps(componentTexture.getTexture());
+      if (currentTexture != componentTexture 
+          || textureWidth != getWidth() || textureHeight != getHeight() || texturePpcu != painter.getPpcu()) {
+        modelInstance.setMaterial(0, 0, TextureAttribute.createDiffuse(componentTexture));
+      }
       currentTexture = componentTexture;
+      textureWidth = getWidth();
+      textureHeight = getHeight();
+      texturePpcu = painter.getPpcu();
+      GdxMainFrame frame = getFrame();
+      if (frame != null) textureResumeCount = frame.getResumeCount();
     }
     super.paint(x, y, painter);
   }
 
+  private boolean isTextureValid(GdxPainter painter) {
+    if (currentTexture == null || texturePpcu != painter.getPpcu()
+        || textureWidth != getWidth() || textureHeight != getHeight()) return false;
+    GdxMainFrame frame = getFrame();
+    return frame != null && frame.getResumeCount() == textureResumeCount && !frame.isDirtyWithin(content.get());
+  }
+
+  /**
+   * @return Whether mipmaps can be generated for textures which are not a power of two
+   */
+  public static boolean isMipmapsSupported() {
+    return Gdx.graphics.isGL30Available() || Gdx.app.getType() == ApplicationType.Desktop;
+  }
+
+  /**
+   * Called while painting, which never happens within an active model batch, so its texture binder
+   * has nothing cached yet. Binding of the active texture unit is restored afterwards,
+   * so anything bound before by the painter stays bound.
+   */
+  private void generateMipmaps(Texture texture) {
+    boundTexture.clear();
+    Gdx.gl.glGetIntegerv(GL20.GL_TEXTURE_BINDING_2D, boundTexture);
+    texture.bind();
+    Gdx.gl.glGenerateMipmap(GL20.GL_TEXTURE_2D);
+    texture.setFilter(TextureFilter.MipMapLinearLinear, TextureFilter.Linear);
+    Gdx.gl.glBindTexture(GL20.GL_TEXTURE_2D, boundTexture.get(0));
+  }
+
   @Override
   public Collection<GdxComponent> getComponents() {
     return content.collection();
@@ -2,6 +2,7 @@ package components;
 
 import helpers.collections.DummyIterator;
 import helpers.collections.SingleElementIterator;
+import io.GdxPainter;
 
 import java.util.AbstractCollection;
 import java.util.Collection;
@@ -120,6 +121,16 @@ public class GdxGridContainer extends GdxAbstractContainer {
     updateComponentLocations();
   }
 
+  @Override
+  public void paint(float x, float y, GdxPainter painter) {
+    for (int i = 0; i < components.length; i++) {
+      GdxComponent component = components[i];
+      if (component != null) {
+        painter.paintComponent(x + component.getX(), y + component.getY(), component);
+      }
+    }
+  }
+
   @Override
   public void reportResize(GdxComponent component) {
     for (int i = 0; i < components.length; i++) {
@@ -19,6 +19,7 @@ public class GdxImage extends GdxAbstractComponent {
 
   public void setImage(TextureRegion image) {
     this.image = image;
+    makeDirty();
   }
 
   @Override
@@ -25,6 +25,8 @@ public class GdxLabel extends GdxAbstractComponent {
   private CharSequence text;
   private BitmapFont font;
   private String fontName;
+  private final GlyphLayout glyphLayout = new GlyphLayout();
+  private final Color savedFontColor = new Color();
   
   public GdxLabel(float x, float y, float width, float height, float padding, CharSequence text, TextAlignment alignment, BitmapFont font) {
     super(x, y, width, height);
@@ -64,6 +66,7 @@ public class GdxLabel extends GdxAbstractComponent {
 
   public void setPadding(float padding) {
     this.padding = padding;
+    makeDirty();
   }
 
   public TextAlignment getAlignment() {
@@ -72,6 +75,7 @@ public class GdxLabel extends GdxAbstractComponent {
 
   public void setAlignment(TextAlignment alignment) {
     this.alignment = alignment;
+    makeDirty();
   }
 
   public VerticalAlignment getVerticalAlignment() {
@@ -80,15 +84,18 @@ public class GdxLabel extends GdxAbstractComponent {
 
   public void setVerticalAlignment(VerticalAlignment verticalAlignment) {
     this.verticalAlignment = verticalAlignment;
+    makeDirty();
   }
 
   public void setText(CharSequence text) {
     this.text = text;
+    makeDirty();
   }
 
   public void setFont(BitmapFont font) {
     this.font = font;
     this.fontName = null;
+    makeDirty();
   }
 
   public void setFont(String fontName) {
@@ -102,6 +109,7 @@ public class GdxLabel extends GdxAbstractComponent {
       }
     }
     this.fontName = fontName;
+    makeDirty();
   }
 
   public Color getColor() {
@@ -110,10 +118,12 @@ public class GdxLabel extends GdxAbstractComponent {
 
   public void setColor(Color color) {
     this.color = color;
+    makeDirty();
   }
   
   public void setColor(float red, float green, float blue, float alpha) {
     color = new Color(red, green, blue, alpha);
+    makeDirty();
   }
 
   public float getScale() {
@@ -122,6 +132,7 @@ public class GdxLabel extends GdxAbstractComponent {
 
   public void setScale(float scale) {
     this.scale = scale;
+    makeDirty();
   }
 
   @Override
@@ -134,7 +145,7 @@ public class GdxLabel extends GdxAbstractComponent {
         font = getFrame().getAssets().getFont(fontName);
       }
     }
-    Color fontColor = font.getColor();
+    savedFontColor.set(font.getColor());
     if (color != null) font.setColor(color);
     float scaleX = font.getScaleX();
     float scaleY = font.getScaleY();
@@ -143,20 +154,20 @@ public class GdxLabel extends GdxAbstractComponent {
       painter.drawText(font, text, x + padding, y + padding);
     }
     else {
-      GlyphLayout bounds = new GlyphLayout(font, text);
+      glyphLayout.setText(font, text);
       switch (alignment) {
-      case CENTER: x += (getWidth() - bounds.width) * 0.5f; break;
-      case RIGHT: x += getWidth() - bounds.width - padding; break;
+      case CENTER: x += (getWidth() - glyphLayout.width) * 0.5f; break;
+      case RIGHT: x += getWidth() - glyphLayout.width - padding; break;
       default: x += padding;
       }
       switch (verticalAlignment) {
-      case MIDDLE: y += (getHeight() - bounds.height) * 0.5f; break;
-      case BOTTOM: y += getHeight() - bounds.height - padding; break;
+      case MIDDLE: y += (getHeight() - glyphLayout.height) * 0.5f; break;
+      case BOTTOM: y += getHeight() - glyphLayout.height - padding; break;
       default: y += padding;
       }
       painter.drawText(font, text, x, y);
     }
     font.getData().setScale(scaleX, scaleY);
-    font.setColor(fontColor);
+    font.setColor(savedFontColor);
   }
 }
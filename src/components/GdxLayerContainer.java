@@ -1,39 +1,116 @@
 package components;
 
+import helpers.Animator;
+import helpers.Animator.Easing;
+import helpers.FrameTracer;
+import helpers.FrameTracer.Phase;
 import helpers.collections.DummyIterator;
 import helpers.collections.SingleElementIterator;
 import io.GdxPainter;
+import io.GdxPainter2D;
+import io.GdxPainter2D.AlphaBlending;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.Map.Entry;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
 
-import com.badlogic.gdx.math.Rectangle;
 import components.abstracts.GdxAbstractContainer;
 import components.aggregated.GdxListeners;
+import components.interfaces.GdxAnimatable;
 import components.interfaces.GdxComponent;
+import components.interfaces.GdxContainer;
+import components.interfaces.GdxCostAwareLayer;
+import components.interfaces.GdxIncrementalLayer;
 import components.interfaces.GdxLayer;
 import components.listeners.GdxActiveLayerChangeListener;
+import components.listeners.GdxIdleListener;
 
 /**
  * This class is designed to help break complex menus, consisting of multiple screens,
  * into individual layers and to manage switching between them. It also supports on-demand
  * layer construction and disposal of recently unused ones in order to save resources.
+ * <p>
+ * Layers can be {@link #prefetchLayer(int) prefetched}, so switching to them doesn't block
+ * a frame by their construction. Layers implementing {@link GdxIncrementalLayer} are prepared
+ * on a worker thread and constructed in parts across frames, others while the frame is idle.
+ * <p>
+ * Constructed layers are kept within a limit of count and {@link #setMemoryBudget(long) memory},
+ * as estimated by layers implementing {@link GdxCostAwareLayer}.
+ * When a limit is exceeded, layers are disposed by a GreedyDual-Size policy: each layer is worth
+ * its rebuild cost per byte held, aged by the worth of the last disposed layer, so cheap to hold
+ * and expensive to build layers are kept, while rarely used ones eventually go.
+ * <p>
+ * Layers visible beneath the active one are rendered into a single {@link #setSnapshotsEnabled(boolean)
+ * snapshot} once they stop being active, which is then painted instead of them until any of them
+ * becomes dirty. Snapshots also drive {@link Transition transitions} between layers, so only
+ * the incoming layers are painted while a transition runs.
  *
  */
-public class GdxLayerContainer extends GdxAbstractContainer {
+public class GdxLayerContainer extends GdxAbstractContainer implements GdxAnimatable {
+  /**
+   * Ways of replacing the outgoing layers by the incoming ones. Slides are named
+   * by the direction both of them move in.
+   */
+  public enum Transition { NONE, FADE, SLIDE_LEFT, SLIDE_RIGHT, SLIDE_UP, SLIDE_DOWN }
+  
+  private static final long DEFAULT_PREFETCH_BUDGET = 4000000; //Nanoseconds
+  private static final int SNAPSHOT_BACKGROUND = 0;
+  private static final int SNAPSHOT_OUTGOING = 1;
+  private static final int CHANNEL_TRANSITION = 0;
+  
   private HashMap<Integer, GdxLayer> layers = new HashMap<Integer, GdxLayer>();
   private Collection<GdxComponent> unmodifiableComponents = 
       Collections.<GdxComponent>unmodifiableCollection(layers.values());
   private GdxListeners<GdxActiveLayerChangeListener> activeLayerChangeListeners = 
       new GdxListeners<GdxActiveLayerChangeListener>();
+  private HashMap<GdxLayer, Integer> layerIds = new HashMap<GdxLayer, Integer>();
   private LinkedList<GdxLayer> constructedLayers = new LinkedList<GdxLayer>();
-  private LinkedList<GdxLayer> visibleLayers = new LinkedList<GdxLayer>();
+  private HashMap<GdxLayer, CachedLayer> cachedLayers = new HashMap<GdxLayer, CachedLayer>();
+  private HashSet<GdxLayer> disposedLayers = new HashSet<GdxLayer>();
+  private ArrayList<GdxLayer> visibleLayers = new ArrayList<GdxLayer>(); //Active layer first, indexed while painting
   private int constructedLayerLimit;
+  private long memoryBudget = Long.MAX_VALUE; //Bytes
+  private long heldBytes = 0;
+  private double inflation = 0;
+  private int hits = 0, constructions = 0, rebuilds = 0, evictions = 0;
+  private LinkedList<LayerPrefetch> prefetches = new LinkedList<LayerPrefetch>();
+  private LinkedList<GdxLayer> idlePrefetches = new LinkedList<GdxLayer>();
+  private long prefetchBudget = DEFAULT_PREFETCH_BUDGET; //Nanoseconds
+  private AsyncExecutor prefetchExecutor;
+  private GdxLayer pendingLayer; //Layer activated while its preparation was running
+  private Transition pendingTransition;
+  private float pendingDuration;
+  private boolean snapshotsEnabled = true;
+  private TextureRegion backgroundSnapshot, outgoingSnapshot;
+  private float snapshotWidth, snapshotHeight, snapshotPpcu;
+  private int snapshotResumeCount; //Snapshots are rendered again after the application has been resumed
+  private int snapshotRenders = 0;
+  private ArrayList<GdxLayer> outgoingLayers = new ArrayList<GdxLayer>();
+  private Transition transition = Transition.NONE;
+  private float transitionProgress;
+  private int transitionAnimation = Animator.NONE;
+  private GdxMainFrame idleListenerFrame; //Frame the idle listener is registered with
+  private final GdxIdleListener idleListener = new GdxIdleListener() {
+    @Override
+    public void onIdle(GdxMainFrame sender) {
+      prefetchIdle(sender);
+    }
+  };
   
   public GdxLayerContainer(float x, float y, float width, float height, int constructedLayerLimit) {
     super(x, y, width, height);
@@ -50,6 +127,7 @@ public class GdxLayerContainer extends GdxAbstractContainer {
     }
     removeLayer(id);
     layers.put(id, layer);
+    layerIds.put(layer, id);
     layer.setContainer(this);
   }
 
@@ -60,35 +138,53 @@ public class GdxLayerContainer extends GdxAbstractContainer {
   
   @Override
   public boolean hasComponent(GdxComponent component) {
-    return layers.values().contains(component);
+    return layerIds.containsKey(component);
   }
 
   public GdxLayer getLayer(int id) {
     return layers.get(id);
   }
   
+  private void reportActiveLayer(GdxLayer layer) {
+    GdxMainFrame frame = getFrame();
+    if (frame != null) frame.getFrameStatistics().setScreen(layer);
+  }
+  
   private void layerRemoved(GdxLayer layer) {
+    backgroundSnapshot = null;
     if (layer == getActiveLayer()) {
-      visibleLayers.removeFirst();
+      visibleLayers.remove(0);
       layer.deactivated();
-      if (!visibleLayers.isEmpty())
-        visibleLayers.getFirst().activated();
+      if (!visibleLayers.isEmpty()) {
+        visibleLayers.get(0).activated();
+        reportActiveLayer(visibleLayers.get(0));
+      }
     }
     else if (visibleLayers.remove(layer)) {
       layer.hidden();
     }
-    constructedLayers.remove(layer);
+    layerIds.remove(layer);
+    if (constructedLayers.remove(layer)) uncacheLayer(layer);
+    disposedLayers.remove(layer);
+    idlePrefetches.remove(layer);
+    if (layer == pendingLayer) pendingLayer = null;
+    LayerPrefetch prefetch = removePrefetch(layer);
+    if (prefetch != null) {
+      //Preparation which hasn't started never will, a running one is ignored
+      prefetch.abandon();
+      //Partially constructed layer would be left behind otherwise
+      if (prefetch.constructing) layer.dispose();
+    }
     layer.setContainer(null);
+    if (outgoingLayers.contains(layer)) finishTransition();
   }
   
   public boolean removeLayer(GdxLayer layer) {
-    for (Iterator<Entry<Integer, GdxLayer>> it = layers.entrySet().iterator(); it.hasNext(); ) {
-      if (it.next().getValue() == layer) {
-        it.remove();
-        layerRemoved(layer);
-      }
-    }
-    return false;
+    Integer id = layerIds.get(layer);
+    if (id == null) return false;
+    layers.remove(id);
+    layerRemoved(layer);
+    return true;
   }
   
   @Override
@@ -108,13 +204,30 @@ public class GdxLayerContainer extends GdxAbstractContainer {
   }
   
   public void clearLayers(boolean dispose) {
+    Animator animator = getAnimator();
+    if (animator != null) transitionAnimation = animator.cancel(transitionAnimation);
+    transition = Transition.NONE;
+    outgoingLayers.clear();
+    outgoingSnapshot = backgroundSnapshot = null;
     if (!visibleLayers.isEmpty()) {
-      visibleLayers.getFirst().deactivated();
+      visibleLayers.get(0).deactivated();
       while (!visibleLayers.isEmpty()) {
-        visibleLayers.removeFirst().hidden();
+        visibleLayers.remove(0).hidden();
       }
     }
     constructedLayers.clear();
+    cachedLayers.clear();
+    disposedLayers.clear();
+    layerIds.clear();
+    heldBytes = 0;
+    inflation = 0;
+    idlePrefetches.clear();
+    pendingLayer = null;
+    for (LayerPrefetch prefetch : prefetches) {
+      prefetch.abandon();
+      if (dispose && prefetch.constructing) prefetch.layer.dispose();
+    }
+    prefetches.clear();
     for (Iterator<GdxLayer> it = layers.values().iterator(); it.hasNext(); ) {
       GdxLayer layer = it.next();
       it.remove();
@@ -124,22 +237,85 @@ public class GdxLayerContainer extends GdxAbstractContainer {
   }
 
   private int getLayerId(GdxLayer layer) {
-    for (Entry<Integer, GdxLayer> entry : layers.entrySet()) {
-      if (entry.getValue() == layer) return entry.getKey();
-    }
-    throw new NoSuchElementException(String.format("Layer not found"));
+    Integer id = layerIds.get(layer);
+    if (id == null) throw new NoSuchElementException(String.format("Layer not found"));
+    return id;
   }
   
   public GdxLayer getActiveLayer() {
     if (visibleLayers.isEmpty()) return null;
-    return visibleLayers.getFirst();
+    return visibleLayers.get(0);
   }
   
+  /**
+   * Activates a layer, hiding the layers it obscures. A layer which isn't constructed is constructed
+   * right away, unless a worker thread is {@link #prefetchLayer(int) preparing} it at the moment.
+   * Such a layer is activated once the preparation finishes, so the rendering thread never waits for it,
+   * and the previously active layer stays active until then. Activating another layer in the meantime
+   * replaces the pending activation.
+   * @param layer Layer to be activated
+   */
   public void setActiveLayer(GdxLayer layer) {
+    if (!takeOverPrefetch(layer)) {
+      deferActivation(layer, Transition.NONE, 0);
+      return;
+    }
+    pendingLayer = null;
+    finishTransition();
+    switchLayer(layer);
+  }
+  
+  /**
+   * Activates a layer, replacing the currently visible layers by a transition. The outgoing layers
+   * are rendered into a snapshot during the next paint, so they are painted once more after having
+   * been deactivated, and can't be disposed until the transition finishes. The incoming layer
+   * is active and receives input right away.
+   * <p>
+   * Activating another layer during the transition finishes it immediately. Without a transition
+   * or a frame to animate it, the layer is activated as by {@link #setActiveLayer(GdxLayer)}.
+   * A layer being prepared on a worker thread is activated, along with the transition, once the
+   * preparation finishes.
+   * @param layer Layer to be activated
+   * @param transition Way of replacing the visible layers
+   * @param duration Duration of the transition in seconds
+   */
+  public void setActiveLayer(GdxLayer layer, Transition transition, float duration) {
+    if (transition == null) throw new NullPointerException("Transition cannot be null");
+    if (duration < 0) throw new IllegalArgumentException("Duration cannot be negative");
+    if (!takeOverPrefetch(layer)) {
+      deferActivation(layer, transition, duration);
+      return;
+    }
+    Animator animator = getAnimator();
+    if (layer == getActiveLayer() || visibleLayers.isEmpty() || transition == Transition.NONE
+        || duration == 0 || animator == null) {
+      setActiveLayer(layer);
+      return;
+    }
+    pendingLayer = null;
+    finishTransition();
+    outgoingLayers.addAll(visibleLayers);
+    switchLayer(layer);
+    this.transition = transition;
+    transitionProgress = 0;
+    transitionAnimation = animator.tween(this, CHANNEL_TRANSITION, 0, 1, duration, Easing.QUAD_IN_OUT);
+  }
+  
+  public void setActiveLayer(int id, Transition transition, float duration) {
+    setActiveLayer(getExistingLayer(id), transition, duration);
+  }
+  
+  private void switchLayer(GdxLayer layer) {
     GdxLayer activeLayer = getActiveLayer();
     if (layer != activeLayer) {
+      backgroundSnapshot = null;
       if (activeLayer != null) activeLayer.deactivated();
-      if (!constructedLayers.remove(layer)) layer.construct();
+      if (constructedLayers.remove(layer)) {
+        hits++;
+        touchLayer(layer);
+      } else {
+        cacheLayer(layer, constructLayer(layer));
+      }
       constructedLayers.addFirst(layer);
       layer.activated();
       visibleLayers.remove(layer);
@@ -152,10 +328,13 @@ public class GdxLayerContainer extends GdxAbstractContainer {
           obscured = isLayerObscuring(it.next());
         }
       }
-      visibleLayers.addFirst(layer);
+      visibleLayers.add(0, layer);
+      reportActiveLayer(layer);
       disposeUnusedLayers(false);
       if (activeLayer != null) {
-        for (GdxActiveLayerChangeListener listener : activeLayerChangeListeners) {
+        List<GdxActiveLayerChangeListener> listeners = activeLayerChangeListeners.snapshot();
+        for (int i = 0; i < listeners.size(); i++) {
+          GdxActiveLayerChangeListener listener = listeners.get(i);
           listener.onActiveLayerChange(this, getLayerId(layer), getLayerId(activeLayer));
         }
       }
@@ -171,22 +350,405 @@ public class GdxLayerContainer extends GdxAbstractContainer {
     }
   }
   
+  /**
+   * Takes the construction of a layer over from prefetching, unless a worker thread prepares it
+   * at the moment. Preparation which hasn't started yet is abandoned, so the layer is constructed
+   * at once instead.
+   * @return Whether the layer can be constructed on the rendering thread without waiting
+   */
+  private boolean takeOverPrefetch(GdxLayer layer) {
+    LayerPrefetch prefetch = findPrefetch(layer);
+    return prefetch == null || prefetch.abandon() || prefetch.preparation.isDone();
+  }
+  
+  private void deferActivation(GdxLayer layer, Transition transition, float duration) {
+    pendingLayer = layer;
+    pendingTransition = transition;
+    pendingDuration = duration;
+  }
+  
+  /**
+   * @return Time taken by construction in nanoseconds
+   */
+  private long constructLayer(GdxLayer layer) {
+    idlePrefetches.remove(layer);
+    LayerPrefetch prefetch = removePrefetch(layer);
+    FrameTracer tracer = getFrame() == null ? null : getFrame().getTracer();
+    if (tracer != null) tracer.begin(Phase.LAYER_CONSTRUCTION);
+    long startTime = TimeUtils.nanoTime();
+    long time;
+    if (prefetch != null && !prefetch.isAbandoned()) {
+      //Finish what has been prefetched so far, preparation has finished already
+      prefetch.preparation.get();
+      prefetch.constructing = true;
+      while (!prefetch.layer.constructStep()) { }
+      time = prefetch.constructionTime + TimeUtils.timeSinceNanos(startTime);
+    } else {
+      layer.construct();
+      time = TimeUtils.timeSinceNanos(startTime);
+    }
+    if (tracer != null) tracer.end(Phase.LAYER_CONSTRUCTION);
+    return time;
+  }
+  
+  /**
+   * @return Maximum total memory footprint of constructed layers in bytes
+   */
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+  
+  /**
+   * Sets maximum total {@link GdxCostAwareLayer#memoryFootprint() memory footprint} of constructed layers.
+   * Visible layers and layers which should never be disposed are kept even if they exceed it.
+   * The limit of constructed layers given to the constructor still applies as well.
+   * @param memoryBudget Budget in bytes
+   */
+  public void setMemoryBudget(long memoryBudget) {
+    if (memoryBudget < 0) throw new IllegalArgumentException("Memory budget cannot be negative");
+    this.memoryBudget = memoryBudget;
+    disposeUnusedLayers(false);
+  }
+  
+  /**
+   * @return Total memory footprint of constructed layers in bytes
+   */
+  public long getHeldBytes() {
+    return heldBytes;
+  }
+  
+  /**
+   * @return Number of times an already constructed layer was activated
+   */
+  public int getCacheHits() {
+    return hits;
+  }
+  
+  /**
+   * @return Number of layer constructions, including prefetched ones
+   */
+  public int getConstructions() {
+    return constructions;
+  }
+  
+  /**
+   * @return Number of constructions of layers which had been disposed before
+   */
+  public int getRebuilds() {
+    return rebuilds;
+  }
+  
+  /**
+   * @return Number of layers disposed to stay within limits
+   */
+  public int getEvictions() {
+    return evictions;
+  }
+  
+  /**
+   * @return Number of snapshots rendered, both of layers beneath the active one and of outgoing layers
+   */
+  public int getSnapshotRenders() {
+    return snapshotRenders;
+  }
+  
+  public void resetCacheStatistics() {
+    hits = constructions = rebuilds = evictions = snapshotRenders = 0;
+  }
+  
+  public boolean isSnapshotsEnabled() {
+    return snapshotsEnabled;
+  }
+  
+  /**
+   * Sets whether layers visible beneath the active one are painted from a snapshot. A snapshot is only
+   * used when it looks exactly like the layers themselves, i.e. when the bottom layer obscures the
+   * container or the painter is in premultiplied alpha mode. Transitions use snapshots regardless.
+   * @param snapshotsEnabled Whether to use snapshots
+   */
+  public void setSnapshotsEnabled(boolean snapshotsEnabled) {
+    this.snapshotsEnabled = snapshotsEnabled;
+    if (!snapshotsEnabled) backgroundSnapshot = null;
+  }
+  
+  /**
+   * @return Current transition, or {@link Transition#NONE} if no transition runs
+   */
+  public Transition getTransition() {
+    return transition;
+  }
+  
+  private void cacheLayer(GdxLayer layer, long constructionTime) {
+    constructions++;
+    if (disposedLayers.remove(layer)) rebuilds++;
+    CachedLayer cachedLayer = new CachedLayer();
+    long rebuildCost = layer instanceof GdxCostAwareLayer ? ((GdxCostAwareLayer)layer).rebuildCost() : 0;
+    cachedLayer.cost = rebuildCost > 0 ? rebuildCost : constructionTime;
+    cachedLayers.put(layer, cachedLayer);
+    touchLayer(layer);
+  }
+  
+  private void touchLayer(GdxLayer layer) {
+    CachedLayer cachedLayer = cachedLayers.get(layer);
+    long bytes = layer instanceof GdxCostAwareLayer ? Math.max(0, ((GdxCostAwareLayer)layer).memoryFootprint()) : 0;
+    heldBytes += bytes - cachedLayer.bytes;
+    cachedLayer.bytes = bytes;
+    cachedLayer.priority = inflation + (double)cachedLayer.cost / Math.max(1, bytes);
+  }
+  
+  private void uncacheLayer(GdxLayer layer) {
+    CachedLayer cachedLayer = cachedLayers.remove(layer);
+    if (cachedLayer != null) heldBytes -= cachedLayer.bytes;
+  }
+  
+  /**
+   * Starts constructing a layer ahead of time, so activating it later doesn't block a frame.
+   * Layers implementing {@link GdxIncrementalLayer} are prepared on a worker thread and then
+   * constructed in parts during frames, each frame spending at most the
+   * {@link #setPrefetchBudget(long) prefetch budget}. Other layers can't be split, so they are
+   * constructed once the frame becomes idle, like by {@link #prefetchLayerWhenIdle(int)}.
+   * <p>
+   * Activating a layer which is still being prefetched finishes its construction immediately,
+   * except during preparation, which the activation waits for without blocking frames.
+   * Prefetching only progresses while the container is in a frame.
+   * @param id Id of the layer
+   */
+  public void prefetchLayer(int id) {
+    GdxLayer layer = getExistingLayer(id);
+    if (isConstructedOrPrefetched(layer)) return;
+    if (layer instanceof GdxIncrementalLayer) {
+      idlePrefetches.remove(layer);
+      updateIdleListener();
+      startPrefetch((GdxIncrementalLayer)layer);
+    } else {
+      prefetchWhenIdle(layer);
+    }
+  }
+  
+  /**
+   * Constructs a layer ahead of time once nothing else happens in the frame, e.g. a layer
+   * the user is likely to switch to next. Layers are constructed one per idle period,
+   * so an interaction in the meantime isn't delayed by all of them.
+   * @param id Id of the layer
+   */
+  public void prefetchLayerWhenIdle(int id) {
+    GdxLayer layer = getExistingLayer(id);
+    if (isConstructedOrPrefetched(layer)) return;
+    prefetchWhenIdle(layer);
+  }
+  
+  /**
+   * Stops prefetching of a layer. Parts of the layer already constructed are disposed.
+   * @param id Id of the layer
+   */
+  public void cancelPrefetch(int id) {
+    GdxLayer layer = getExistingLayer(id);
+    idlePrefetches.remove(layer);
+    LayerPrefetch prefetch = removePrefetch(layer);
+    if (prefetch != null) {
+      //Running preparation can't be interrupted, it's ignored
+      prefetch.abandon();
+      if (prefetch.constructing) layer.dispose();
+    }
+  }
+  
+  public boolean isLayerConstructed(int id) {
+    return constructedLayers.contains(getExistingLayer(id));
+  }
+  
+  public boolean isLayerPrefetching(int id) {
+    GdxLayer layer = getExistingLayer(id);
+    return idlePrefetches.contains(layer) || findPrefetch(layer) != null;
+  }
+  
+  /**
+   * @return Maximum time spent by constructing prefetched layers per frame in nanoseconds
+   */
+  public long getPrefetchBudget() {
+    return prefetchBudget;
+  }
+  
+  /**
+   * Sets maximum time spent by constructing prefetched layers per frame. At least
+   * one construction step of a layer is performed per frame regardless of the budget.
+   * @param prefetchBudget Time in nanoseconds
+   */
+  public void setPrefetchBudget(long prefetchBudget) {
+    if (prefetchBudget <= 0) throw new IllegalArgumentException("Prefetch budget must be positive");
+    this.prefetchBudget = prefetchBudget;
+  }
+  
+  private GdxLayer getExistingLayer(int id) {
+    GdxLayer layer = getLayer(id);
+    if (layer == null) throw new NoSuchElementException(String.format("Layer not found (id = %d)", id));
+    return layer;
+  }
+  
+  private boolean isConstructedOrPrefetched(GdxLayer layer) {
+    return constructedLayers.contains(layer) || findPrefetch(layer) != null;
+  }
+  
+  private LayerPrefetch findPrefetch(GdxLayer layer) {
+    for (LayerPrefetch prefetch : prefetches) {
+      if (prefetch.layer == layer) return prefetch;
+    }
+    return null;
+  }
+  
+  private LayerPrefetch removePrefetch(GdxLayer layer) {
+    LayerPrefetch prefetch = findPrefetch(layer);
+    if (prefetch != null) prefetches.remove(prefetch);
+    return prefetch;
+  }
+  
+  private void startPrefetch(final GdxIncrementalLayer layer) {
+    if (prefetchExecutor == null) prefetchExecutor = new AsyncExecutor(1);
+    final LayerPrefetch prefetch = new LayerPrefetch(layer);
+    prefetch.preparation = prefetchExecutor.submit(new AsyncTask<Void>() {
+      @Override
+      public Void call() throws Exception {
+        //Construction has been taken over or cancelled before the preparation could start
+        if (!prefetch.start()) return null;
+        long startTime = TimeUtils.nanoTime();
+        try {
+          layer.prepare();
+        } finally {
+          prefetch.constructionTime = TimeUtils.timeSinceNanos(startTime);
+          //Resume construction on the rendering thread
+          Gdx.app.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+              makeDirty();
+            }
+          });
+        }
+        return null;
+      }
+    });
+    prefetches.add(prefetch);
+  }
+  
+  private void prefetchWhenIdle(GdxLayer layer) {
+    if (!idlePrefetches.contains(layer)) idlePrefetches.add(layer);
+    updateIdleListener();
+    //Make sure the frame becomes idle again even if it already is
+    makeDirty();
+  }
+  
+  /**
+   * Keeps the idle listener registered with the current frame while any layer waits
+   * to be prefetched when idle. The container may be added into a frame only after
+   * prefetching has been requested, whether directly or along with its container.
+   */
+  private void updateIdleListener() {
+    GdxMainFrame frame = idlePrefetches.isEmpty() ? null : getFrame();
+    if (frame == idleListenerFrame) return;
+    if (idleListenerFrame != null) idleListenerFrame.removeIdleListener(idleListener);
+    idleListenerFrame = frame;
+    if (frame != null) frame.addIdleListener(idleListener, idleListener);
+  }
+  
+  private void prefetchIdle(GdxMainFrame frame) {
+    GdxLayer layer = null;
+    while (layer == null && !idlePrefetches.isEmpty() && frame == getFrame()) {
+      layer = idlePrefetches.removeFirst();
+      //Layer may have been constructed or prefetched some other way since it was queued
+      if (isConstructedOrPrefetched(layer)) layer = null;
+    }
+    if (layer != null) {
+      if (layer instanceof GdxIncrementalLayer) {
+        startPrefetch((GdxIncrementalLayer)layer);
+      } else {
+        FrameTracer tracer = frame.getTracer();
+        tracer.begin(Phase.LAYER_CONSTRUCTION);
+        long startTime = TimeUtils.nanoTime();
+        layer.construct();
+        long time = TimeUtils.timeSinceNanos(startTime);
+        tracer.end(Phase.LAYER_CONSTRUCTION);
+        prefetched(layer, time);
+      }
+    }
+    updateIdleListener();
+    if (!idlePrefetches.isEmpty()) makeDirty();
+  }
+  
+  /**
+   * Treats a prefetched layer as used right after the active one,
+   * so it's not the first to be disposed.
+   */
+  private void prefetched(GdxLayer layer, long constructionTime) {
+    constructedLayers.add(Math.min(1, constructedLayers.size()), layer);
+    cacheLayer(layer, constructionTime);
+    disposeUnusedLayers(false);
+  }
+  
+  @Override
+  public void step(float delay) {
+    super.step(delay);
+    if (pendingLayer != null && takeOverPrefetch(pendingLayer)) {
+      setActiveLayer(pendingLayer, pendingTransition, pendingDuration);
+    }
+    if (prefetches.isEmpty()) return;
+    long startTime = TimeUtils.nanoTime();
+    boolean constructible = false, constructed = false;
+    FrameTracer tracer = getFrame().getTracer();
+    for (Iterator<LayerPrefetch> it = prefetches.iterator(); it.hasNext(); ) {
+      LayerPrefetch prefetch = it.next();
+      //Layers still being prepared make the container dirty once they're done
+      if (!prefetch.preparation.isDone()) continue;
+      if (constructed && TimeUtils.timeSinceNanos(startTime) >= prefetchBudget) {
+        constructible = true;
+        break;
+      }
+      //Rethrows an exception thrown by preparation
+      prefetch.preparation.get();
+      prefetch.constructing = constructed = true;
+      tracer.begin(Phase.LAYER_CONSTRUCTION);
+      long stepsStartTime = TimeUtils.nanoTime();
+      boolean finished;
+      do {
+        finished = prefetch.layer.constructStep();
+      } while (!finished && TimeUtils.timeSinceNanos(startTime) < prefetchBudget);
+      prefetch.constructionTime += TimeUtils.timeSinceNanos(stepsStartTime);
+      tracer.end(Phase.LAYER_CONSTRUCTION);
+      if (finished) {
+        it.remove();
+        prefetched(prefetch.layer, prefetch.constructionTime);
+      } else {
+        constructible = true;
+      }
+    }
+    if (constructible) makeDirty();
+  }
+  
   private boolean isLayerObscuring(GdxLayer layer) {
-    Rectangle area = layer.getArea();
-    return !(layer.transparent()
-        || area.x > 0 || area.y > 0 || area.x + area.width < getWidth() || area.y + area.height < getHeight());
+    return !(layer.transparent() || layer.getX() > 0 || layer.getY() > 0
+        || layer.getX() + layer.getWidth() < getWidth() || layer.getY() + layer.getHeight() < getHeight());
   }
   
   private void disposeUnusedLayers(boolean forceDisposal) {
-    if (constructedLayers.size() <= constructedLayerLimit) return;
-    if (constructedLayers.size() <= visibleLayers.size()) return;
-    for (Iterator<GdxLayer> it = constructedLayers.descendingIterator(); it.hasNext(); ) {
-      GdxLayer layer = it.next();
-      if (!forceDisposal && layer.neverDispose()) continue;
-      if (visibleLayers.contains(layer)) continue;
-      it.remove();
-      layer.dispose();
-      if (constructedLayers.size() <= constructedLayerLimit) break;
+    while (constructedLayers.size() > constructedLayerLimit || heldBytes > memoryBudget) {
+      /* Dispose the least worthy layer, the least recently used one among equal ones */
+      GdxLayer leastWorthy = null;
+      double minPriority = Double.POSITIVE_INFINITY;
+      for (Iterator<GdxLayer> it = constructedLayers.descendingIterator(); it.hasNext(); ) {
+        GdxLayer layer = it.next();
+        if (!forceDisposal && layer.neverDispose()) continue;
+        if (visibleLayers.contains(layer) || outgoingLayers.contains(layer)) continue;
+        double priority = cachedLayers.get(layer).priority;
+        if (priority < minPriority) {
+          minPriority = priority;
+          leastWorthy = layer;
+        }
+      }
+      if (leastWorthy == null) return;
+      //Layers kept from now on are aged relative to the disposed one
+      inflation = minPriority;
+      constructedLayers.remove(leastWorthy);
+      uncacheLayer(leastWorthy);
+      disposedLayers.add(leastWorthy);
+      evictions++;
+      leastWorthy.dispose();
     }
   }
 
@@ -215,18 +777,210 @@ public class GdxLayerContainer extends GdxAbstractContainer {
   @Override
   public void reportResize(GdxComponent component) { }
   
+  @Override
+  public void onAnimate(int channel, float value, float velocity) {
+    transitionProgress = value;
+  }
+  
+  @Override
+  public void onAnimationFinished(int channel, float value) {
+    transitionAnimation = Animator.NONE;
+    finishTransition();
+  }
+  
+  private void finishTransition() {
+    if (transition == Transition.NONE) return;
+    Animator animator = getAnimator();
+    if (animator != null) transitionAnimation = animator.cancel(transitionAnimation);
+    transition = Transition.NONE;
+    outgoingLayers.clear();
+    outgoingSnapshot = null;
+    //Outgoing layers may have been kept beyond limits
+    disposeUnusedLayers(false);
+    makeDirty();
+  }
+  
+  @Override
+  public void setContainer(GdxContainer container) {
+    super.setContainer(container);
+    updateIdleListener();
+  }
+  
   @Override
   public void paint(float x, float y, GdxPainter painter) {
-    for (Iterator<GdxLayer> it = visibleLayers.descendingIterator(); it.hasNext(); ) {
-      GdxLayer layer = it.next();
+    //Catches the container being added into a frame along with its container
+    if (!idlePrefetches.isEmpty()) updateIdleListener();
+    GdxMainFrame frame = getFrame();
+    if (frame != null && frame.getResumeCount() != snapshotResumeCount) {
+      backgroundSnapshot = outgoingSnapshot = null;
+      snapshotResumeCount = frame.getResumeCount();
+    }
+    if (transition == Transition.NONE) {
+      paintVisibleLayers(x, y, painter);
+      return;
+    }
+    if (outgoingSnapshot == null) {
+      outgoingSnapshot = renderSnapshot(SNAPSHOT_OUTGOING, outgoingLayers, painter);
+    }
+    float width = getWidth(), height = getHeight();
+    if (transition == Transition.FADE) {
+      paintVisibleLayers(x, y, painter);
+      Color tint = painter.getColor();
+      float color = tint.toFloatBits();
+      painter.setColor(tint.r, tint.g, tint.b, tint.a * (1 - transitionProgress));
+      painter.draw(outgoingSnapshot, x, y, width, height);
+      painter.setColor(color);
+      return;
+    }
+    float directionX = 0, directionY = 0;
+    switch (transition) {
+      case SLIDE_LEFT:
+        directionX = -1;
+        break;
+      case SLIDE_RIGHT:
+        directionX = 1;
+        break;
+      case SLIDE_UP:
+        directionY = -1;
+        break;
+      default:
+        directionY = 1;
+        break;
+    }
+    if (painter.pushClippingArea(x, y, width, height)) {
+      painter.draw(outgoingSnapshot, x + directionX * width * transitionProgress,
+          y + directionY * height * transitionProgress, width, height);
+      paintVisibleLayers(x - directionX * width * (1 - transitionProgress),
+          y - directionY * height * (1 - transitionProgress), painter);
+      painter.popClippingArea();
+    }
+  }
+  
+  private void paintVisibleLayers(float x, float y, GdxPainter painter) {
+    if (visibleLayers.isEmpty()) return;
+    if (visibleLayers.size() > 1) {
+      if (snapshotsEnabled && isSnapshotExact(visibleLayers, painter)) {
+        if (!isBackgroundSnapshotValid(painter)) {
+          backgroundSnapshot = renderSnapshot(SNAPSHOT_BACKGROUND, visibleLayers, painter);
+          snapshotWidth = getWidth();
+          snapshotHeight = getHeight();
+          snapshotPpcu = painter.getPpcu();
+        }
+        painter.draw(backgroundSnapshot, x, y, getWidth(), getHeight());
+      } else {
+        backgroundSnapshot = null;
+        paintLayers(visibleLayers, 1, x, y, painter);
+      }
+    }
+    GdxLayer activeLayer = visibleLayers.get(0);
+    if (activeLayer.isVisible()) {
+      activeLayer.paint(x + activeLayer.getX(), y + activeLayer.getY(), painter);
+    }
+  }
+  
+  /**
+   * Paints layers from the bottom up to the given index.
+   */
+  private void paintLayers(List<GdxLayer> layers, int top, float x, float y, GdxPainter painter) {
+    for (int i = layers.size() - 1; i >= top; i--) {
+      GdxLayer layer = layers.get(i);
       if (layer.isVisible()) {
         layer.paint(x + layer.getX(), y + layer.getY(), painter);
       }
     }
   }
   
+  @Override
+  public void renderTexture(int id, float width, float height, GdxPainter painter) {
+    if (id == SNAPSHOT_BACKGROUND) {
+      paintLayers(visibleLayers, 1, 0, 0, painter);
+    } else {
+      paintLayers(outgoingLayers, 0, 0, 0, painter);
+    }
+  }
+  
+  private boolean isSnapshotExact(List<GdxLayer> layers, GdxPainter painter) {
+    GdxLayer bottomLayer = layers.get(layers.size() - 1);
+    return bottomLayer.isVisible() && isLayerObscuring(bottomLayer)
+        || painter instanceof GdxPainter2D && ((GdxPainter2D)painter).isPremultipliedAlpha();
+  }
+  
+  private boolean isBackgroundSnapshotValid(GdxPainter painter) {
+    if (backgroundSnapshot == null || snapshotPpcu != painter.getPpcu()
+        || snapshotWidth != getWidth() || snapshotHeight != getHeight()) return false;
+    GdxMainFrame frame = getFrame();
+    if (frame == null) return false;
+    for (int i = 1; i < visibleLayers.size(); i++) {
+      if (frame.isDirtyWithin(visibleLayers.get(i))) return false;
+    }
+    return true;
+  }
+  
+  /**
+   * Renders layers into a texture of the size of the container. An opaque bottom layer is
+   * rendered on an opaque background and the quicker alpha blending is used otherwise,
+   * so the texture is kept in its own framebuffer until it's requested again.
+   */
+  private TextureRegion renderSnapshot(int id, List<GdxLayer> layers, GdxPainter painter) {
+    snapshotRenders++;
+    GdxLayer bottomLayer = layers.get(layers.size() - 1);
+    if (bottomLayer.isVisible() && isLayerObscuring(bottomLayer)) {
+      return painter.requestTextureRender(this, id, getWidth(), getHeight(), Color.BLACK);
+    }
+    if (painter instanceof GdxPainter2D) {
+      return ((GdxPainter2D)painter).requestTextureRender(this, id, getWidth(), getHeight(), AlphaBlending.ADDITIVE);
+    }
+    return painter.requestTextureRender(this, id, getWidth(), getHeight());
+  }
+  
   @Override
   public void dispose() {
     clearLayers(true);
+    if (prefetchExecutor != null) {
+      prefetchExecutor.dispose();
+      prefetchExecutor = null;
+    }
+    if (idleListenerFrame != null) {
+      idleListenerFrame.removeIdleListener(idleListener);
+      idleListenerFrame = null;
+    }
+  }
+  
+  private static class CachedLayer {
+    private long bytes = 0;
+    private long cost; //Nanoseconds
+    private double priority;
+  }
+  
+  private static class LayerPrefetch {
+    private final GdxIncrementalLayer layer;
+    private AsyncResult<Void> preparation;
+    private boolean constructing = false;
+    private long constructionTime = 0; //Nanoseconds
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    private static final int WAITING = 0, PREPARING = 1, ABANDONED = 2;
+    
+    private LayerPrefetch(GdxIncrementalLayer layer) {
+      this.layer = layer;
+    }
+    
+    /**
+     * Called by the worker thread before preparing the layer.
+     * @return Whether the preparation should proceed
+     */
+    private boolean start() {
+      return state.compareAndSet(WAITING, PREPARING);
+    }
+    
+    /**
+     * @return Whether the preparation has been prevented from starting
+     */
+    private boolean abandon() {
+      return state.compareAndSet(WAITING, ABANDONED);
+    }
+    
+    private boolean isAbandoned() {
+      return state.get() == ABANDONED;
+    }
   }
 }
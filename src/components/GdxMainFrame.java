@@ -1,31 +1,52 @@
 package components;
 
+import helpers.AllocationMonitor;
+import helpers.Animator;
+import helpers.BoundingVolumeHierarchy;
 import helpers.ComponentUtils;
+import helpers.DropTargetRegistry;
+import helpers.FrameProfiler;
+import helpers.FrameStatistics;
+import helpers.FrameTracer;
+import helpers.FrameTracer.Phase;
+import helpers.ShaderFactory;
 import io.GdxAssets;
 import io.GdxInputManager;
 import io.GdxPainter;
 import io.GdxPainter2D;
+import io.GdxShader;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 
 import com.badlogic.gdx.ApplicationListener;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.TimeUtils;
 import components.aggregated.GdxListeners;
 import components.interfaces.GdxComponent;
 import components.interfaces.GdxDragDropComponent;
 import components.interfaces.GdxUpdatable;
 import components.layouts.GdxLayout;
+import components.listeners.GdxIdleListener;
 import components.listeners.GdxLifecycleListener;
 
+import effects.GdxGaussianBlurShaderEffect;
+import effects.GdxGrayscaleShaderEffect;
+import effects.GdxNegativeShaderEffect;
+import effects.GdxRippleShaderEffect;
+import effects.GdxVignetteShaderEffect;
+import effects.GdxVisualEffect;
+
 public class GdxMainFrame extends GdxPlainContainer implements ApplicationListener {
   public static final String TAG = GdxMainFrame.class.getSimpleName();
   
   private static final float MAX_DELTA_TIME = 0.125f;
+  private static final int DEFAULT_MAX_CATCH_UP_STEPS = 5;
   private final Class<? extends GdxPainter> painterClass;
   private GdxPainter painter;
   private GdxInputManager inputManager;
@@ -33,8 +54,32 @@ public class GdxMainFrame extends GdxPlainContainer implements ApplicationListen
   private ArrayList<GdxUpdatable> currentDirties = new ArrayList<GdxUpdatable>();
   private ArrayList<GdxUpdatable> nextDirties = new ArrayList<GdxUpdatable>();
   private GdxListeners<GdxLifecycleListener> lifecycleListeners = new GdxListeners<GdxLifecycleListener>();
+  private GdxListeners<GdxIdleListener> idleListeners = new GdxListeners<GdxIdleListener>();
   private HashSet<GdxDragDropComponent> draggedComponents = new HashSet<GdxDragDropComponent>();
   private boolean skipDelay = false;
+  private float fixedTimestep = 0; //Seconds, 0 for variable timestep
+  private int maxCatchUpSteps = DEFAULT_MAX_CATCH_UP_STEPS;
+  private float accumulator = 0; //Seconds
+  private float interpolationAlpha = 1;
+  private int skippedSteps = 0;
+  private int resumeCount = 0;
+  private boolean becameIdle = false;
+  private GdxUpdatable slowestDirty; //Updatable whose step took the longest during the current frame
+  private long slowestStepTime; //Nanoseconds
+  private final Runnable idleNotifier = new Runnable() {
+    @Override
+    public void run() {
+      //Something may have been made dirty in the meantime
+      if (skipDelay && nextDirties.isEmpty()) launchIdleEvent();
+    }
+  };
+  private final FrameProfiler profiler = new FrameProfiler();
+  private final FrameStatistics frameStatistics = new FrameStatistics();
+  private final AllocationMonitor allocationMonitor = new AllocationMonitor();
+  private final FrameTracer tracer = new FrameTracer();
+  private final Animator animator = new Animator(this);
+  private final BoundingVolumeHierarchy boundingVolumes = new BoundingVolumeHierarchy();
+  private final DropTargetRegistry dropTargets = new DropTargetRegistry(this);
 
   public GdxMainFrame(float width, float height, Class<? extends GdxPainter> painterClass) {
     super(0, 0, width, height);
@@ -181,6 +226,26 @@ public class GdxMainFrame extends GdxPlainContainer implements ApplicationListen
     return lifecycleListeners.remove(tag);
   }
 
+  public void addIdleListener(Object tag, GdxIdleListener listener) {
+    idleListeners.add(tag, listener);
+  }
+
+  public boolean removeIdleListener(GdxIdleListener listener) {
+    return idleListeners.remove(listener);
+  }
+
+  public GdxIdleListener removeIdleListener(Object tag) {
+    return idleListeners.remove(tag);
+  }
+
+  private void launchIdleEvent() {
+    List<GdxIdleListener> listeners = idleListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxIdleListener listener = listeners.get(i);
+      listener.onIdle(this);
+    }
+  }
+
   @Override
   public GdxMainFrame getFrame() {
     return this;
@@ -201,11 +266,21 @@ public class GdxMainFrame extends GdxPlainContainer implements ApplicationListen
     return getLocation();
   }
 
+  @Override
+  public Vector2 getFrameLocation(Vector2 out) {
+    return out.set(getX(), getY());
+  }
+
   @Override
   public Rectangle getFrameArea() {
     return getArea();
   }
 
+  @Override
+  public Rectangle getFrameArea(Rectangle out) {
+    return out.set(getX(), getY(), getWidth(), getHeight());
+  }
+
   public void setBackgroundColor(Color backgroundColor) {
     painter.setClearColor(backgroundColor);
   }
@@ -226,6 +301,141 @@ public class GdxMainFrame extends GdxPlainContainer implements ApplicationListen
     return assets;
   }
 
+  /**
+   * Switches both painter and assets to premultiplied alpha, which saves an extra pass for every
+   * transparent texture rendered via requestTextureRender. Textures and fonts are premultiplied
+   * when added to assets, so this should be called right after creation, before any assets are added.
+   * Has no effect on the painter unless it's a {@link GdxPainter2D}.
+   * @param premultipliedAlpha Whether to use premultiplied alpha
+   */
+  public void setPremultipliedAlpha(boolean premultipliedAlpha) {
+    if (painter instanceof GdxPainter2D) {
+      ((GdxPainter2D)painter).setPremultipliedAlpha(premultipliedAlpha);
+    }
+    assets.setPremultiplyAlpha(premultipliedAlpha);
+  }
+
+  /**
+   * Provides access to frame profiling. Profiling is disabled by default and
+   * has to be enabled via {@link FrameProfiler#setEnabled(boolean)}.
+   * @return Profiler of this frame
+   */
+  public FrameProfiler getProfiler() {
+    return profiler;
+  }
+
+  /**
+   * Provides access to aggregated frame timing. Recording is disabled by default and
+   * has to be enabled via {@link FrameStatistics#setEnabled(boolean)}.
+   * @return Frame statistics of this frame
+   */
+  public FrameStatistics getFrameStatistics() {
+    return frameStatistics;
+  }
+
+  /**
+   * Provides access to counting of allocated bytes per frame and input event. Monitoring is
+   * disabled by default and has to be enabled via {@link AllocationMonitor#setEnabled(boolean)}.
+   * @return Allocation monitor of this frame
+   */
+  public AllocationMonitor getAllocationMonitor() {
+    return allocationMonitor;
+  }
+
+  /**
+   * Provides access to timeline tracing. Tracing is disabled by default and
+   * has to be enabled via {@link FrameTracer#setEnabled(boolean)}.
+   * @return Tracer of this frame
+   */
+  public FrameTracer getTracer() {
+    return tracer;
+  }
+
+  /**
+   * Provides access to the animation engine shared by all components of this frame.
+   * @return Animator of this frame
+   */
+  public Animator getAnimator() {
+    return animator;
+  }
+
+  /**
+   * Provides access to the index of bounding shapes of 3D components painted in this frame,
+   * which is used to find components hit by a picking ray.
+   * @return Bounding volume hierarchy of this frame
+   */
+  public BoundingVolumeHierarchy getBoundingVolumes() {
+    return boundingVolumes;
+  }
+
+  /**
+   * Provides access to the index of drop targets. Dragged components look for registered targets
+   * first, and scan containers only if none of them is found.
+   * @return Drop target registry of this frame
+   */
+  public DropTargetRegistry getDropTargets() {
+    return dropTargets;
+  }
+
+  /**
+   * Makes updatables step at a fixed interval instead of once per frame with the time passed.
+   * Time passed is accumulated and as many steps as it covers are run before painting, so motion
+   * doesn't depend on frame rate. The remainder is exposed as {@link #getInterpolationAlpha()}.
+   * @param fixedTimestep Interval between steps in seconds, 0 to step once per frame
+   */
+  public void setFixedTimestep(float fixedTimestep) {
+    if (fixedTimestep < 0) throw new IllegalArgumentException("Fixed timestep cannot be negative");
+    this.fixedTimestep = fixedTimestep;
+    accumulator = 0;
+    interpolationAlpha = 1;
+  }
+
+  public float getFixedTimestep() {
+    return fixedTimestep;
+  }
+
+  /**
+   * Limits the number of fixed steps run during a single frame. Time which would need more
+   * steps is dropped, so slow frames don't make following frames even slower.
+   * @param maxCatchUpSteps Maximum number of steps per frame
+   */
+  public void setMaxCatchUpSteps(int maxCatchUpSteps) {
+    if (maxCatchUpSteps <= 0) throw new IllegalArgumentException("Maximum of catch-up steps must be positive");
+    this.maxCatchUpSteps = maxCatchUpSteps;
+  }
+
+  public int getMaxCatchUpSteps() {
+    return maxCatchUpSteps;
+  }
+
+  /**
+   * While stepping at a {@link #setFixedTimestep(float) fixed timestep}, painting usually happens
+   * between two steps. Components which keep their state of the previous step can interpolate
+   * it in {@link GdxComponent#paint(float, float, GdxPainter) paint} by this value. Animations of
+   * the {@link #getAnimator() animator} are interpolated automatically.
+   * @return Fraction of a step passed since the last step, 1 without fixed timestep
+   */
+  public float getInterpolationAlpha() {
+    return interpolationAlpha;
+  }
+
+  /**
+   * @return Number of fixed steps dropped since the start, because frames took too long
+   */
+  public int getSkippedSteps() {
+    return skippedSteps;
+  }
+
+  /**
+   * OpenGL context may be lost while the application is paused, taking contents of framebuffers
+   * with it. Components caching anything rendered offscreen keep the count of the time of rendering
+   * and render it again once the count changes.
+   * @return Number of times the application has been resumed
+   */
+  public int getResumeCount() {
+    return resumeCount;
+  }
+
   @Override
   protected void resized() {
     super.resized();
@@ -249,6 +459,31 @@ public class GdxMainFrame extends GdxPlainContainer implements ApplicationListen
     if (!nextDirties.contains(updatable)) nextDirties.add(updatable);
   }
 
+  /**
+   * Tells whether a component or anything within it may look different than in the previous frame,
+   * i.e. whether any of them, or any of their visual effects, has been reported dirty or animated
+   * since then. Useful for components which keep their content rendered in a texture.
+   * @param component Component to be tested
+   * @return Whether the content of the component may have changed
+   */
+  public boolean isDirtyWithin(GdxComponent component) {
+    return containsDirtyWithin(currentDirties, component) || containsDirtyWithin(nextDirties, component)
+        || animator.isAnimatingWithin(component);
+  }
+
+  private static boolean containsDirtyWithin(ArrayList<GdxUpdatable> dirties, GdxComponent component) {
+    for (int i = 0; i < dirties.size(); i++) {
+      GdxUpdatable updatable = dirties.get(i);
+      if (updatable instanceof GdxVisualEffect) {
+        updatable = ((GdxVisualEffect)updatable).getComponent();
+      }
+      if (updatable instanceof GdxComponent && ComponentUtils.isWithin((GdxComponent)updatable, component)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Is called whenever a draggable component began to be dragged.
    * Unless a container is a root container, it should report this 
@@ -267,6 +502,7 @@ public class GdxMainFrame extends GdxPlainContainer implements ApplicationListen
    */
   public void dragStop(GdxDragDropComponent component) {
     draggedComponents.remove(component);
+    dropTargets.endDrag(component);
   }
   
   @Override
@@ -277,21 +513,78 @@ public class GdxMainFrame extends GdxPlainContainer implements ApplicationListen
   @Override
   public void paint(float x, float y, GdxPainter painter) {
     super.paint(x, y, painter);
+    if (draggedComponents.isEmpty()) return;
     for (GdxDragDropComponent component : draggedComponents) {
       component.dragPaint(x + component.getDragX(), y + component.getDragY(), painter);
     }
   }
 
+  /**
+   * Registers shaders to be compiled ahead of time during {@link #create()}.
+   * Override this to register shaders of custom effects as well.
+   */
+  protected void registerShaders() {
+    ShaderFactory.registerShader(GdxShader.VERTEX_PASSTHROUGH, GdxShader.FRAGMENT_PASSTHROUGH);
+    ShaderFactory.registerShader(GdxShader.VERTEX_PASSTHROUGH, GdxGaussianBlurShaderEffect.FRAGMENT_GAUSSIAN);
+    ShaderFactory.registerShader(GdxShader.VERTEX_PASSTHROUGH, GdxGrayscaleShaderEffect.FRAGMENT_GRAYSCALE);
+    ShaderFactory.registerShader(GdxShader.VERTEX_PASSTHROUGH, GdxNegativeShaderEffect.FRAGMENT_NEGATIVE);
+    ShaderFactory.registerShader(GdxShader.VERTEX_PASSTHROUGH, GdxRippleShaderEffect.FRAGMENT_RIPPLE);
+    ShaderFactory.registerShader(GdxShader.VERTEX_PASSTHROUGH, GdxVignetteShaderEffect.FRAGMENT_VIGNETTE);
+  }
+
   private void updateDirties(float delay) {
     ArrayList<GdxUpdatable> undirtied = currentDirties;
     undirtied.clear();
     currentDirties = nextDirties;
     nextDirties = undirtied;
-    for (GdxUpdatable updatable : currentDirties) {
-      if (updatable.getFrame() == this) updatable.step(delay);
+    int dirtyCount = currentDirties.size();
+    boolean profiling = profiler.isProfiling();
+    if (profiling || frameStatistics.isEnabled()) {
+      for (int i = 0; i < dirtyCount; i++) {
+        GdxUpdatable updatable = currentDirties.get(i);
+        if (updatable.getFrame() == this) {
+          if (profiling) profiler.stepStarted();
+          long startTime = TimeUtils.nanoTime();
+          updatable.step(delay);
+          long time = TimeUtils.timeSinceNanos(startTime);
+          if (profiling) profiler.stepFinished(updatable);
+          if (time >= slowestStepTime) {
+            slowestStepTime = time;
+            slowestDirty = updatable;
+          }
+        }
+      }
+    } else {
+      for (int i = 0; i < dirtyCount; i++) {
+        GdxUpdatable updatable = currentDirties.get(i);
+        if (updatable.getFrame() == this) updatable.step(delay);
+      }
     }
   }
 
+  private void updateFixed(float delay) {
+    if (delay == 0) {
+      //Let dirties react to changes made while idle, without advancing time
+      accumulator = 0;
+      updateDirties(0);
+    } else {
+      accumulator += delay;
+      int steps = 0;
+      while (accumulator >= fixedTimestep && steps < maxCatchUpSteps) {
+        updateDirties(fixedTimestep);
+        accumulator -= fixedTimestep;
+        steps++;
+      }
+      if (accumulator >= fixedTimestep) {
+        int dropped = (int)(accumulator / fixedTimestep);
+        skippedSteps += dropped;
+        accumulator -= dropped * fixedTimestep;
+      }
+    }
+    interpolationAlpha = accumulator / fixedTimestep;
+    animator.interpolate(interpolationAlpha);
+  }
+
   @Override
   public void create() {
     Gdx.graphics.setContinuousRendering(false);
@@ -303,65 +596,130 @@ public class GdxMainFrame extends GdxPlainContainer implements ApplicationListen
     }
     inputManager = new GdxInputManager(this);
     assets = new GdxAssets(this);
+    if (painter instanceof GdxPainter2D) {
+      ((GdxPainter2D)painter).setProfiler(profiler);
+      ((GdxPainter2D)painter).setTracer(tracer);
+      //Painters which never prepare shaders (e.g. GdxRecordingPainter) can run without OpenGL
+      registerShaders();
+      ShaderFactory.warmUp();
+    }
     makeDirty();
-    for (GdxLifecycleListener listener : lifecycleListeners) {
+    List<GdxLifecycleListener> listeners = lifecycleListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxLifecycleListener listener = listeners.get(i);
       listener.onCreate(this);
     }
   }
 
   @Override
   public void dispose() {
-    for (GdxLifecycleListener listener : lifecycleListeners) {
+    List<GdxLifecycleListener> listeners = lifecycleListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxLifecycleListener listener = listeners.get(i);
       listener.onDispose(this);
     }
     super.dispose();
     inputManager.dispose();
     painter.dispose();
     assets.dispose();
+    ShaderFactory.releaseWarmedUp();
   }
 
   @Override
   public void pause() {
     inputManager.clearInputs();
-    for (GdxLifecycleListener listener : lifecycleListeners) {
+    frameStatistics.paused();
+    List<GdxLifecycleListener> listeners = lifecycleListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxLifecycleListener listener = listeners.get(i);
       listener.onPause(this);
     }
   }
 
   @Override
   public void render() {
+    render(Gdx.graphics.getRawDeltaTime());
+  }
+
+  /**
+   * Updates and paints the frame as if the given time had passed since the last render.
+   * Lets the frame be driven by a clock other than the one of the backend, such as when replaying input.
+   * @param deltaTime Time since the last render in seconds
+   */
+  public void render(float deltaTime) {
+    allocationMonitor.frameStarted();
+    tracer.begin(Phase.FRAME);
+    profiler.frameStarted();
+    frameStatistics.frameStarted(skipDelay);
+    slowestDirty = null;
+    slowestStepTime = 0;
+    tracer.begin(Phase.UPDATE);
+    float delay;
     if (skipDelay) {
       //Pretend that no time has passed since last render. This is to prevent sudden skips
       //in case no rendering happened for some time.
-      updateDirties(0);
-    } else if (Gdx.graphics.getRawDeltaTime() > MAX_DELTA_TIME) {
-      updateDirties(MAX_DELTA_TIME);
+      delay = 0;
+    } else if (deltaTime > MAX_DELTA_TIME) {
+      delay = MAX_DELTA_TIME;
+    } else {
+      delay = deltaTime;
+    }
+    if (fixedTimestep > 0) {
+      updateFixed(delay);
     } else {
-      updateDirties(Gdx.graphics.getRawDeltaTime());
+      updateDirties(delay);
     }
     if (nextDirties.isEmpty()) {
       //If no re-rendering was requested and therefore interface is inactive, ignore the next delay
+      becameIdle = !skipDelay;
       skipDelay = true;
     } else {
       Gdx.graphics.requestRendering();
       skipDelay = false;
     }
+    tracer.end(Phase.UPDATE);
+    frameStatistics.updateFinished();
+    tracer.begin(Phase.PAINT);
     painter.begin();
     painter.paintComponent(0, 0, this);
+    if (profiler.isProfiling() && profiler.isOverlayEnabled()) {
+      profiler.paintOverlay(painter, assets.getDefaultFont());
+      //Keep rendering, so the overlay stays up to date
+      Gdx.graphics.requestRendering();
+    }
+    tracer.end(Phase.PAINT);
+    tracer.begin(Phase.PAINTER_END);
     painter.end();
+    tracer.end(Phase.PAINTER_END);
+    profiler.frameFinished(painter);
+    frameStatistics.frameFinished(slowestDirty);
+    slowestDirty = null;
+    tracer.end(Phase.FRAME);
+    allocationMonitor.frameFinished();
+    if (becameIdle) {
+      becameIdle = false;
+      //Notify after the frame has been presented
+      if (idleListeners.size() > 0) Gdx.app.postRunnable(idleNotifier);
+    }
   }
 
   @Override
   public void resize(int width, int height) {
     painter.setScreenSize(width, height);
-    for (GdxLifecycleListener listener : lifecycleListeners) {
+    List<GdxLifecycleListener> listeners = lifecycleListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxLifecycleListener listener = listeners.get(i);
       listener.onResize(this, width, height);
     }
   }
 
   @Override
   public void resume() {
-    for (GdxLifecycleListener listener : lifecycleListeners) {
+    ShaderFactory.invalidateUniforms();
+    resumeCount++;
+    List<GdxLifecycleListener> listeners = lifecycleListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxLifecycleListener listener = listeners.get(i);
       listener.onResume(this);
     }
   }
@@ -1,6 +1,9 @@
 package components;
 
+import helpers.FrameTracer;
+import helpers.FrameTracer.Phase;
 import helpers.collections.IteratorReversers;
+import io.GdxPainter;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -136,16 +139,24 @@ public class GdxPlainContainer extends GdxAbstractContainer {
   @Override
   protected void resized() {
     super.resized();
-    layout.alignComponents(this);
+    alignComponents();
+  }
+
+  @Override
+  public void paint(float x, float y, GdxPainter painter) {
+    for (int i = 0; i < components.size(); i++) {
+      GdxComponent component = components.get(i);
+      painter.paintComponent(x + component.getX(), y + component.getY(), component);
+    }
   }
 
   @Override
   public void reportResize(GdxComponent component) {
-    layout.alignComponents(this);
+    alignComponents();
   }
 
   protected void componentSetChanged() {
-    layout.alignComponents(this);
+    alignComponents();
   }
 
   protected void componentSetChanged(GdxComponent component, boolean removed) {
@@ -158,7 +169,15 @@ public class GdxPlainContainer extends GdxAbstractContainer {
   
   public void setLayout(GdxLayout layout) {
     this.layout = layout;
+    alignComponents();
+  }
+
+  private void alignComponents() {
+    GdxMainFrame frame = getFrame();
+    FrameTracer tracer = frame == null ? null : frame.getTracer();
+    if (tracer != null) tracer.begin(Phase.LAYOUT);
     layout.alignComponents(this);
+    if (tracer != null) tracer.end(Phase.LAYOUT);
   }
   
   @Override
@@ -63,32 +63,17 @@ public class GdxReturningSwitch extends GdxSwitch {
   }
 
   @Override
-  public void step(float delay) {
+  protected void startMotion() {
     if (!isDragged()) {
-      boolean reversed = isReversed();
+      float restPosition = isReversed() ? 0 : getLength();
       float position = getPosition();
-      if (reversed) {
-        if (position == getLength()) {
-          setVelocity(0);
-        }
-        if (position > 0) {
-          decreaseVelocity(delay);
-          updateCurrentPosition(delay);
-          makeDirty();
-        } else {
-          setVelocity(0);
-        }
+      if (position == getLength() - restPosition) {
+        setVelocity(0);
+      }
+      if (position != restPosition) {
+        accelerateTo(restPosition);
       } else {
-        if (position == 0) {
-          setVelocity(0);
-        }
-        if (position < getLength()) {
-          increaseVelocity(delay);
-          updateCurrentPosition(delay);
-          makeDirty();
-        } else {
-          setVelocity(0);
-        }
+        setVelocity(0);
       }
     }
   }
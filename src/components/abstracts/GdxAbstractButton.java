@@ -1,5 +1,7 @@
 package components.abstracts;
 
+import java.util.List;
+
 import components.aggregated.GdxListeners;
 import components.listeners.GdxClickListener;
 
@@ -25,7 +27,9 @@ public abstract class GdxAbstractButton extends GdxAbstractComponent {
   }
   
   private void launchClickEvent() {
-    for (GdxClickListener listener : clickListeners) {
+    List<GdxClickListener> listeners = clickListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxClickListener listener = listeners.get(i);
       listener.onClick(this);
     }
   }
@@ -1,5 +1,6 @@
 package components.abstracts;
 
+import helpers.Animator;
 import helpers.ComponentUtils;
 import helpers.collections.DummyList;
 import io.GdxInputListener;
@@ -23,6 +24,7 @@ import components.GdxMainFrame;
 import components.aggregated.GdxListeners;
 import components.interfaces.GdxComponent;
 import components.interfaces.GdxContainer;
+import components.interfaces.GdxDragTarget;
 import effects.GdxVisualEffect;
 
 public abstract class GdxAbstractComponent implements GdxComponent {
@@ -53,6 +55,7 @@ public abstract class GdxAbstractComponent implements GdxComponent {
       throw new IllegalStateException("Component is still contained in it's currently assigned container. Remove it before unassigning.");
     if (container != null && !container.hasComponent(this))
       throw new IllegalStateException("Component is not contained in the given container. Insert it into container before assigning.");
+    invalidateDropTarget();
     this.container = container;
     if (getFrame() != null) {
       moved();
@@ -235,8 +238,7 @@ public abstract class GdxAbstractComponent implements GdxComponent {
   
   @Override
   public Rectangle getFrameArea(Rectangle out) {
-    Vector2 location = getFrameLocation();
-    return out.set(location.x, location.y, area.width, area.height);
+    return out.set(getFrameX(), getFrameY(), area.width, area.height);
   }
   
   /**
@@ -244,6 +246,7 @@ public abstract class GdxAbstractComponent implements GdxComponent {
    */
   protected void resized() {
     if (container != null) container.reportResize(this);
+    invalidateDropTarget();
   }
   
   /**
@@ -251,7 +254,9 @@ public abstract class GdxAbstractComponent implements GdxComponent {
    * itself within it's container has been changed.
    * @see #reportMove(GdxContainer)
    */
-  protected void moved() { }
+  protected void moved() {
+    invalidateDropTarget();
+  }
   
   /**
    * Is called whenever a location of one of the component's 
@@ -259,7 +264,18 @@ public abstract class GdxAbstractComponent implements GdxComponent {
    * @param container A specific container which has been moved
    * @see #moved()
    */
-  public void reportMove(GdxContainer container) { }
+  public void reportMove(GdxContainer container) {
+    invalidateDropTarget();
+  }
+  
+  /**
+   * Makes the frame find this component at its current area, if it's a registered drop target.
+   */
+  private void invalidateDropTarget() {
+    if (!(this instanceof GdxDragTarget)) return;
+    GdxMainFrame frame = getFrame();
+    if (frame != null) frame.getDropTargets().invalidate(this);
+  }
   
   @Override
   public float getInteractiveAreaExtension() {
@@ -269,6 +285,7 @@ public abstract class GdxAbstractComponent implements GdxComponent {
   @Override
   public void setInteractiveAreaExtension(float size) {
     interactiveAreaExtension = size;
+    invalidateDropTarget();
   }
   
   @Override
@@ -412,6 +429,15 @@ public abstract class GdxAbstractComponent implements GdxComponent {
     if (frame != null) frame.reportDirty(this);
   }
   
+  /**
+   * @return Animator of the frame the component is in, or NULL if it's not in any frame
+   */
+  protected Animator getAnimator() {
+    GdxMainFrame frame = getFrame();
+    if (frame == null) return null;
+    return frame.getAnimator();
+  }
+  
   @Override
   public boolean insideActiveArea(float x, float y) {
     return x > - interactiveAreaExtension
@@ -2,8 +2,10 @@ package components.abstracts;
 
 import effects.GdxAbstractVisualEffect;
 import general.GdxModelInstance;
+import helpers.BoundingVolumeHierarchy;
 import helpers.ModelUtils;
 import helpers.collections.SingleElementCollection;
+import io.GdxColorPicker;
 import io.GdxPainter;
 import io.GdxPainter3D;
 
@@ -26,6 +28,7 @@ import com.badlogic.gdx.math.collision.Ray;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
 
+import components.GdxMainFrame;
 import components.bounds.GdxBoundingBox;
 import components.bounds.GdxBoundingShape;
 import components.interfaces.GdxComponent3D;
@@ -37,6 +40,7 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
   public static final Vector3 AXIS_Z = new Vector3(0, 0, 1);
   
   private static ModelBuilder modelBuilderInstance;
+  private static final Vector3 hit = new Vector3();
   
   private float z;
   private float depth;
@@ -45,6 +49,22 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
   private boolean boundsInvalid = true;
   private Vector3 lastLocation;
   private Vector3 lastSize;
+  private BoundingVolumeHierarchy boundingVolumes; //Null while the bounds are not indexed
+  private int[] proxies;
+  private GdxContainer indexedContainer;
+  private BoundingVolumeHierarchy staleIn; //Hierarchy which is to refit the bounds before its next cast
+  private final BoundingVolumeHierarchy.Owner boundsOwner = new BoundingVolumeHierarchy.Owner() {
+    @Override
+    public void refit() {
+      staleIn = null;
+      if (boundsInvalid) {
+        getValidBounds();
+      } else {
+        refitBounds();
+      }
+    }
+  };
+  private boolean pixelPicking = false;
   
   public GdxAbstractComponent3D(Collection<GdxModelInstance> models, float x, float y, float z) {
     super(x, y, ModelUtils.calculateBoundingBoxWidth(models), ModelUtils.calculateBoundingBoxHeight(models));
@@ -134,6 +154,23 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
     lastLocation.set(x, y, z);
   }
   
+  @Override
+  public void setContainer(GdxContainer container) {
+    super.setContainer(container);
+    GdxMainFrame frame = getFrame();
+    if (frame == null) {
+      unindex();
+    } else if (boundingVolumes != frame.getBoundingVolumes()) {
+      //Indexed right away, so the component can be picked before it's painted
+      unindex();
+      index(frame.getBoundingVolumes());
+    } else if (container != indexedContainer) {
+      boundingVolumes.removeIndexedComponent(indexedContainer);
+      boundingVolumes.addIndexedComponent(container);
+      indexedContainer = container;
+    }
+  }
+  
   public void reportMove(GdxContainer container) {
     super.reportMove(container);
     float x = getX();
@@ -148,6 +185,21 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
     invalidateBounds();
   }
   
+  /**
+   * Makes the component picked by the pixels of its models rather than by its bounds, which is exact
+   * for irregular models. Applies only while the component is painted by {@link GdxPainter3D}.
+   * <p>
+   * Only the closest of the components picked this way is hit by a pointer, the ones hidden behind it are not.
+   * @param pixelPicking Whether the component is picked by pixels
+   */
+  public void setPixelPicking(boolean pixelPicking) {
+    this.pixelPicking = pixelPicking;
+  }
+  
+  public boolean isPixelPicking() {
+    return pixelPicking;
+  }
+  
   protected Collection<GdxModelInstance> getModels() {
     return models;
   }
@@ -164,6 +216,7 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
     for (GdxBoundingShape shape : bounds) {
       shape.translate(x, y, z);
     }
+    markBoundsStale();
   }
 
   protected void scaleModels(float scaleX, float scaleY, float scaleZ) {
@@ -174,6 +227,7 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
     for (GdxBoundingShape shape : bounds) {
       shape.scale(scaleX, scaleY, scaleZ);
     }
+    markBoundsStale();
   }
   
   protected void rotateModels(Vector3 axis, float angle) {
@@ -191,9 +245,30 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
    * <p>
    * This method should be called whenever component bounds are to be changed, rather than calling
    * {@link #updateBounds(Collection, Collection) updateBounds} method directly, for performance reasons.
+   * Bounds of a component indexed for picking are updated by the frame's bounding volume hierarchy
+   * before it casts the next picking ray, along with all other bounds changed in the meantime.
    */
   protected void invalidateBounds() {
     boundsInvalid = true;
+    markBoundsStale();
+  }
+
+  /**
+   * Makes the hierarchy the bounds are indexed in refit them before its next cast.
+   */
+  private void markBoundsStale() {
+    if (boundingVolumes == null || staleIn == boundingVolumes) return;
+    staleIn = boundingVolumes;
+    boundingVolumes.markStale(boundsOwner);
+  }
+
+  /**
+   * @param boundingVolumes Bounding volume hierarchy
+   * @return Whether the bounds are indexed in the given hierarchy, so the component is picked
+   *         by looking up the hits of a ray cast through it
+   */
+  public boolean isIndexedIn(BoundingVolumeHierarchy boundingVolumes) {
+    return this.boundingVolumes != null && this.boundingVolumes == boundingVolumes;
   }
 
   /**
@@ -228,17 +303,102 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
     return bounds;
   }
 
-  @Override
-  public boolean intersectRay(Ray pickingRay, Vector3 intersection) {
+  private Collection<GdxBoundingShape> getValidBounds() {
     if (boundsInvalid) {
       bounds = updateBounds(models, bounds);
       boundsInvalid = false;
+      refitBounds();
     }
+    return bounds;
+  }
+
+  /**
+   * Inserts the bounding shapes into the bounding volume hierarchy of a frame.
+   */
+  private void index(BoundingVolumeHierarchy boundingVolumes) {
+    Collection<GdxBoundingShape> bounds = getValidBounds();
+    proxies = new int[bounds.size()];
+    int index = 0;
+    for (GdxBoundingShape shape : bounds) {
+      proxies[index++] = boundingVolumes.insert(shape);
+    }
+    this.boundingVolumes = boundingVolumes;
+    indexedContainer = getContainer();
+    boundingVolumes.addIndexedComponent(indexedContainer);
+  }
+
+  private void unindex() {
+    if (boundingVolumes == null) return;
+    for (int proxy : proxies) {
+      boundingVolumes.remove(proxy);
+    }
+    boundingVolumes.removeIndexedComponent(indexedContainer);
+    boundingVolumes = null;
+    proxies = null;
+    indexedContainer = null;
+  }
+
+  /**
+   * Updates the indexed bounding shapes after they have been changed.
+   */
+  private void refitBounds() {
+    if (boundingVolumes == null) return;
+    if (proxies.length != bounds.size()) {
+      BoundingVolumeHierarchy boundingVolumes = this.boundingVolumes;
+      unindex();
+      index(boundingVolumes);
+      return;
+    }
+    int index = 0;
+    for (GdxBoundingShape shape : bounds) {
+      boundingVolumes.update(proxies[index++], shape);
+    }
+  }
+
+  @Override
+  public boolean intersectRay(Ray pickingRay, Vector3 intersection) {
+    GdxColorPicker colorPicker = getColorPicker();
+    if (colorPicker != null) {
+      if (colorPicker.pick(pickingRay) != this) return false;
+      //Bounds enclose the models, so they are only missed due to rounding
+      if (!intersectBounds(pickingRay, intersection)) intersection.set(pickingRay.origin);
+      return true;
+    }
+    return intersectBounds(pickingRay, intersection);
+  }
+
+  /**
+   * @return Color picker this component has been registered to during the last frame,
+   *         or NULL if it's picked by its bounds
+   */
+  private GdxColorPicker getColorPicker() {
+    if (!pixelPicking) return null;
+    GdxMainFrame frame = getFrame();
+    if (frame == null || !(frame.getPainter() instanceof GdxPainter3D)) return null;
+    GdxColorPicker colorPicker = ((GdxPainter3D)frame.getPainter()).getColorPicker();
+    return colorPicker.isRegistered(this) ? colorPicker : null;
+  }
+
+  private boolean intersectBounds(Ray pickingRay, Vector3 intersection) {
     intersection.x = Float.POSITIVE_INFINITY;
     intersection.y = Float.POSITIVE_INFINITY;
     intersection.z = Float.POSITIVE_INFINITY;
     boolean intersects = false;
-    for (GdxBoundingShape shape : bounds) {
+    GdxMainFrame frame = getFrame();
+    if (boundingVolumes != null && frame != null && boundingVolumes == frame.getBoundingVolumes()) {
+      //The ray is cast once for all components, each of them just looks up its hits
+      boundingVolumes.cast(pickingRay);
+      float distance = Float.POSITIVE_INFINITY;
+      for (int proxy : proxies) {
+        if (boundingVolumes.getIntersection(proxy, hit) && hit.dst(pickingRay.origin) < distance) {
+          distance = hit.dst(pickingRay.origin);
+          intersection.set(hit);
+          intersects = true;
+        }
+      }
+      return intersects;
+    }
+    for (GdxBoundingShape shape : getValidBounds()) {
       intersects = shape.intersectRay(pickingRay, intersection) || intersects;
     }
     return intersects;
@@ -253,9 +413,19 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
 
   @Override
   public void paint(float x, float y, GdxPainter painter) {
-    for (GdxModelInstance model : models) {
-      ((GdxPainter3D)painter).draw(model);
+    GdxMainFrame frame = getFrame();
+    if (frame != null && boundingVolumes != frame.getBoundingVolumes()) {
+      unindex();
+      index(frame.getBoundingVolumes());
     }
+    ((GdxPainter3D)painter).draw(models, getValidBounds());
+    if (pixelPicking) ((GdxPainter3D)painter).getColorPicker().add(this, models);
+  }
+  
+  @Override
+  public void dispose() {
+    unindex();
+    super.dispose();
   }
   
   private static final Color DEFAULT_BOUND_COLOR = new Color(1, 1, 0, 0.5f);
@@ -285,6 +455,7 @@ public abstract class GdxAbstractComponent3D extends GdxAbstractComponent implem
     private void updateBoundModels() {
       bounds = updateBounds(models, bounds);
       boundsInvalid = false;
+      refitBounds();
       if (boundModels == null || boundModels.length != bounds.size()) {
         boundModels = new GdxModelInstance[bounds.size()];
         ModelBuilder modelBuilder = getModelBuilder();
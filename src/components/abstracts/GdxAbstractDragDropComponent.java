@@ -1,10 +1,12 @@
 package components.abstracts;
 
 import helpers.ComponentUtils;
+import helpers.DropTargetRegistry;
 import io.GdxPainter;
 
+import java.util.List;
+
 import com.badlogic.gdx.graphics.Color;
-import com.badlogic.gdx.math.Vector2;
 import components.GdxMainFrame;
 import components.aggregated.GdxListeners;
 import components.interfaces.GdxComponent;
@@ -21,6 +23,7 @@ public abstract class GdxAbstractDragDropComponent extends GdxAbstractComponent
       new GdxListeners<GdxDragDropListener>();
   private float dragX = Float.NaN, dragY = Float.NaN;
   private GdxComponent currentDragTarget = null;
+  private boolean dragTargetInvalid = false;
   
   public GdxAbstractDragDropComponent(float x, float y, float width, float height) {
     super(x, y, width, height);
@@ -79,19 +82,25 @@ public abstract class GdxAbstractDragDropComponent extends GdxAbstractComponent
   }
   
   private void launchDragStartEvent() {
-    for (GdxDragDropListener listener : dragDropListeners) {
+    List<GdxDragDropListener> listeners = dragDropListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxDragDropListener listener = listeners.get(i);
       listener.onStartDrag(this);
     }
   }
   
   private void launchDragAbortEvent() {
-    for (GdxDragDropListener listener : dragDropListeners) {
+    List<GdxDragDropListener> listeners = dragDropListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxDragDropListener listener = listeners.get(i);
       listener.onDragAbort(this);
     }
   }
   
   private void launchDragDropEvent(GdxComponent target, float dropX, float dropY) {
-    for (GdxDragDropListener listener : dragDropListeners) {
+    List<GdxDragDropListener> listeners = dragDropListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxDragDropListener listener = listeners.get(i);
       listener.onDragDrop(this, target, dropX, dropY);
     }
   }
@@ -115,7 +124,15 @@ public abstract class GdxAbstractDragDropComponent extends GdxAbstractComponent
   }
   
   private void updateDragTarget() {
-    GdxComponent dragTarget = ComponentUtils.findDragTarget(this, getDropX(), getDropY());
+    dragTargetInvalid = false;
+    GdxMainFrame frame = getFrame();
+    DropTargetRegistry dropTargets = frame == null ? null : frame.getDropTargets();
+    GdxComponent dragTarget = null;
+    if (dropTargets != null && dropTargets.getTargetCount() > 0) {
+      dragTarget = dropTargets.find(this, getDropX(), getDropY());
+    }
+    //Targets which are not registered are still found by searching the containers
+    if (dragTarget == null) dragTarget = ComponentUtils.findDragTarget(this, getDropX(), getDropY());
     if (dragTarget != currentDragTarget) {
       if (currentDragTarget != null) {
         ((GdxDragTarget)currentDragTarget).onDragOut(this);
@@ -132,9 +149,17 @@ public abstract class GdxAbstractDragDropComponent extends GdxAbstractComponent
     super.onDrag(x, y, differenceX, differenceY, pointer);
     dragX += differenceX;
     dragY += differenceY;
-    updateDragTarget();
+    //Target is looked for once per frame, no matter how many drag events arrive
+    dragTargetInvalid = true;
+    makeDirty();
     return true;
   }
+  
+  @Override
+  public void step(float delay) {
+    super.step(delay);
+    if (dragTargetInvalid) updateDragTarget();
+  }
 
   @Override
   protected void onStartDrag(float x, float y, int pointer) {
@@ -149,10 +174,10 @@ public abstract class GdxAbstractDragDropComponent extends GdxAbstractComponent
 
   @Override
   protected void onStopDrag(float x, float y, int pointer) {
+    if (dragTargetInvalid) updateDragTarget();
     if (currentDragTarget != null) {
-      Vector2 targetFrameLocation = currentDragTarget.getFrameLocation();
-      float dropX = getDropX() - targetFrameLocation.x;
-      float dropY = getDropY() - targetFrameLocation.y;
+      float dropX = getDropX() - currentDragTarget.getFrameX();
+      float dropY = getDropY() - currentDragTarget.getFrameY();
       launchDragDropEvent(currentDragTarget, dropX, dropY);
       ((GdxDragTarget)currentDragTarget).onDragDrop(this, dropX, dropY);
       currentDragTarget = null;
@@ -1,5 +1,7 @@
 package components.abstracts;
 
+import java.util.List;
+
 import components.GdxPlainContainer;
 import components.aggregated.GdxListeners;
 import components.interfaces.GdxComponent;
@@ -55,13 +57,17 @@ public abstract class GdxAbstractPager extends GdxAbstractScrollView {
   }
 
   private void launchPageChangeEvent(int pageIndex) {
-    for (GdxPageChangeListener listener : pageChangeListeners) {
+    List<GdxPageChangeListener> listeners = pageChangeListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxPageChangeListener listener = listeners.get(i);
       listener.onPageChange(this, pageIndex);
     }
   }
   
   private void launchPageSettleEvent(int pageIndex) {
-    for (GdxPageChangeListener listener : pageChangeListeners) {
+    List<GdxPageChangeListener> listeners = pageChangeListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxPageChangeListener listener = listeners.get(i);
       listener.onPageSettle(this, pageIndex);
     }
   }
@@ -145,7 +151,7 @@ public abstract class GdxAbstractPager extends GdxAbstractScrollView {
   @Override
   public void step(float delay) {
     super.step(delay);
-    if (!isDragged() && getVelocityX() == 0 && getVelocityY() == 0 && !itemContainer.isEmpty()) {
+    if (!isDragged() && !isScrolling() && !itemContainer.isEmpty()) {
       int nearestPosition = getNearestPosition();
       GdxComponent targetItem;
       if (nearestPosition == targetPosition) {
@@ -157,43 +163,20 @@ public abstract class GdxAbstractPager extends GdxAbstractScrollView {
       } else {
         targetItem = itemContainer.getComponent(targetPosition);
       }
+      /* Center the target item, or get as close as the scroll allows */
       if (orientation == HORIZONTAL) {
         float adjustmentSpeed = 2 * getWidth();
-        float movement = adjustmentSpeed * delay;
-        float center = getWidth() / 2;
-        float itemCenter = - getScrollX() + targetItem.getX() + targetItem.getWidth() / 2;
-        if (itemCenter > center) {
-          if (itemCenter - movement <= center) {
-            movement = itemCenter - center;
-          }
-          setScrollX(getScrollX() + movement);
-          makeDirty();
-        } else if (itemCenter < center) {
-          if (itemCenter + movement >= center) {
-            movement = center - itemCenter;
-          }
-          setScrollX(getScrollX() - movement);
-          makeDirty();
+        float scrollX = trimScrollX(targetItem.getX() + (targetItem.getWidth() - getWidth()) / 2);
+        if (scrollX != getScrollX()) {
+          animateScrollX(scrollX, Math.abs(scrollX - getScrollX()) / adjustmentSpeed);
         } else {
           launchPageSettleEvent(nearestPosition);
         }
       } else {
         float adjustmentSpeed = 2 * getHeight();
-        float movement = adjustmentSpeed * delay;
-        float center = getHeight() / 2;
-        float itemCenter = - getScrollY() + targetItem.getY() + targetItem.getHeight() / 2;
-        if (itemCenter > center) {
-          if (itemCenter - movement <= center) {
-            movement = itemCenter - center;
-          }
-          setScrollY(getScrollY() + movement);
-          makeDirty();
-        } else if (itemCenter < center) {
-          if (itemCenter + movement >= center) {
-            movement = center - itemCenter;
-          }
-          setScrollY(getScrollY() - movement);
-          makeDirty();
+        float scrollY = trimScrollY(targetItem.getY() + (targetItem.getHeight() - getHeight()) / 2);
+        if (scrollY != getScrollY()) {
+          animateScrollY(scrollY, Math.abs(scrollY - getScrollY()) / adjustmentSpeed);
         } else {
           launchPageSettleEvent(nearestPosition);
         }
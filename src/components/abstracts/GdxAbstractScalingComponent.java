@@ -1,13 +1,19 @@
 package components.abstracts;
 
+import helpers.Animator;
+import helpers.Animator.Easing;
+
 import java.util.HashMap;
+import java.util.List;
 
 import com.badlogic.gdx.math.Vector2;
 import components.aggregated.GdxListeners;
+import components.interfaces.GdxAnimatable;
 import components.listeners.GdxScaleChangeListener;
 
-public abstract class GdxAbstractScalingComponent extends GdxAbstractComponent {
+public abstract class GdxAbstractScalingComponent extends GdxAbstractComponent implements GdxAnimatable {
   private static final float DEFAULT_ZOOM_SPEED = 0.5f;
+  private static final int CHANNEL_ZOOM = 0;
   
   private final GdxListeners<GdxScaleChangeListener> scaleChangeListeners = 
       new GdxListeners<GdxScaleChangeListener>();
@@ -19,6 +25,7 @@ public abstract class GdxAbstractScalingComponent extends GdxAbstractComponent {
   private Vector2 zoomAt = new Vector2();
   private boolean doubleTapEnabled = true;
   private boolean singlePointerEnabled = false;
+  private int zoomAnimation = Animator.NONE;
   
   public GdxAbstractScalingComponent(float x, float y, float width, float height,
       float minZoom, float optimalZoom, float maxZoom) {
@@ -100,6 +107,7 @@ public abstract class GdxAbstractScalingComponent extends GdxAbstractComponent {
   }
   
   private void setCurrentZoom(float zoom, Vector2 zoomAt) {
+    cancelAnimation();
     this.zoom = targetZoom = trimZoom(zoom);
     onScaleChange(zoom, zoomAt);
     launchScaleChangeEvent(zoom, zoomAt);
@@ -110,8 +118,23 @@ public abstract class GdxAbstractScalingComponent extends GdxAbstractComponent {
     this.zoomAt = zoomAt;
     baseZoom = this.zoom;
     targetZoom = trimZoom(zoom);
+    Animator animator = getAnimator();
+    if (animator == null) {
+      setZoom(targetZoom, zoomAt);
+    } else {
+      zoomAnimation = animator.cancel(zoomAnimation);
+      if (baseZoom != targetZoom) {
+        //Zoom changes from base to target zoom during zoom speed
+        zoomAnimation = animator.tween(this, CHANNEL_ZOOM, baseZoom, targetZoom, zoomSpeed, Easing.LINEAR);
+      }
+    }
     makeDirty();
   }
+  
+  private void cancelAnimation() {
+    Animator animator = getAnimator();
+    if (animator != null) zoomAnimation = animator.cancel(zoomAnimation);
+  }
 
   protected boolean isDoubleTapEnabled() {
     return doubleTapEnabled;
@@ -140,43 +163,33 @@ public abstract class GdxAbstractScalingComponent extends GdxAbstractComponent {
   }
 
   private void launchScaleChangeEvent(float zoom, Vector2 zoomAt) {
-    for (GdxScaleChangeListener listener : scaleChangeListeners) {
+    List<GdxScaleChangeListener> listeners = scaleChangeListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxScaleChangeListener listener = listeners.get(i);
       listener.onScaleChange(this, zoom, zoomAt);
     }
   }
 
   private void launchRescaledEvent(float zoom, Vector2 zoomAt) {
-    for (GdxScaleChangeListener listener : scaleChangeListeners) {
+    List<GdxScaleChangeListener> listeners = scaleChangeListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxScaleChangeListener listener = listeners.get(i);
       listener.onRescaled(this, zoom, zoomAt);
     }
   }
 
   @Override
-  public void step(float delay) {
-    if (zoom < targetZoom) {
-      zoom += Math.abs(baseZoom - targetZoom) / zoomSpeed * delay;
-      onScaleChange(zoom, zoomAt);
-      launchScaleChangeEvent(zoom, zoomAt);
-      if (zoom > targetZoom) {
-        zoom = targetZoom;
-        launchRescaledEvent(zoom, zoomAt);
-      }
-      else {
-        makeDirty();
-      }
-    }
-    else if (zoom > targetZoom) {
-      zoom -= Math.abs(baseZoom - targetZoom) / zoomSpeed * delay;
-      onScaleChange(zoom, zoomAt);
-      launchScaleChangeEvent(zoom, zoomAt);
-      if (zoom < targetZoom) {
-        zoom = targetZoom;
-        launchRescaledEvent(zoom, zoomAt);
-      }
-      else {
-        makeDirty();
-      }
-    }
+  public void onAnimate(int channel, float value, float velocity) {
+    //Zoom bounds may change while zooming
+    zoom = trimZoom(value);
+    onScaleChange(zoom, zoomAt);
+    launchScaleChangeEvent(zoom, zoomAt);
+  }
+
+  @Override
+  public void onAnimationFinished(int channel, float value) {
+    zoomAnimation = Animator.NONE;
+    launchRescaledEvent(zoom, zoomAt);
   }
   
   private float pointersDistance() {
@@ -213,6 +226,7 @@ public abstract class GdxAbstractScalingComponent extends GdxAbstractComponent {
   public boolean onTouchDown(float x, float y, int pointer) {
     super.onTouchDown(x, y, pointer);
     pointers.put(pointer, new Vector2(x, y));
+    cancelAnimation();
     baseZoom = targetZoom = zoom;
     baseDistance = pointersDistance();
     return true;
@@ -222,6 +236,7 @@ public abstract class GdxAbstractScalingComponent extends GdxAbstractComponent {
   public boolean onTouchUp(float x, float y, int pointer) {
     super.onTouchUp(x, y, pointer);
     pointers.remove(pointer);
+    cancelAnimation();
     baseZoom = targetZoom = zoom;
     baseDistance = pointersDistance();
     if (pointers.size() == (singlePointerEnabled ? 0 : 1)) {
@@ -1,5 +1,7 @@
 package components.abstracts;
 
+import helpers.Animator;
+import helpers.Animator.Easing;
 import io.GdxPainter;
 
 import java.util.BitSet;
@@ -7,10 +9,13 @@ import java.util.Collection;
 import java.util.Iterator;
 
 import components.aggregated.GdxContent;
+import components.interfaces.GdxAnimatable;
 import components.interfaces.GdxComponent;
 
-public class GdxAbstractScrollView extends GdxAbstractContainer {
+public class GdxAbstractScrollView extends GdxAbstractContainer implements GdxAnimatable {
   private static final float DEFAULT_ACCELERATION = 2.5f;
+  private static final int CHANNEL_SCROLL_X = 0;
+  private static final int CHANNEL_SCROLL_Y = 1;
   
   private final GdxContent content = new GdxContent(this);
   private final BitSet capturedDraggingPointers = new BitSet(10);
@@ -20,6 +25,7 @@ public class GdxAbstractScrollView extends GdxAbstractContainer {
   private float scrollX, scrollY;
   private float overshootX = 0, overshootY = 0;
   private float velocityX = 0, velocityY = 0;
+  private int scrollAnimationX = Animator.NONE, scrollAnimationY = Animator.NONE;
   
   public GdxAbstractScrollView(float x, float y, float width, float height, GdxComponent content) {
     super(x, y, width, height);
@@ -37,24 +43,91 @@ public class GdxAbstractScrollView extends GdxAbstractContainer {
   
   protected void setScrollX(float scrollX) {
     this.scrollX = scrollX;
-    velocityX = 0;
-    velocityY = 0;
+    stopScrolling();
     updatePosition();
   }
   
   protected void setScrollY(float scrollY) {
     this.scrollY = scrollY;
-    velocityX = 0;
-    velocityY = 0;
+    stopScrolling();
     updatePosition();
   }
   
   protected void setScroll(float scrollX, float scrollY) {
     this.scrollX = scrollX;
     this.scrollY = scrollY;
+    stopScrolling();
+    updatePosition();
+  }
+  
+  /**
+   * Scrolls horizontally to the given position at a constant speed.
+   * Any motion of the ScrollView is stopped.
+   * @param scrollX Horizontal scroll to stop at
+   * @param duration Duration of scrolling in seconds
+   */
+  protected void animateScrollX(float scrollX, float duration) {
+    Animator animator = getAnimator();
+    if (animator == null) {
+      setScrollX(scrollX);
+      return;
+    }
+    stopScrolling();
+    scrollAnimationX = animator.tween(this, CHANNEL_SCROLL_X, this.scrollX, scrollX, duration, Easing.LINEAR);
+  }
+  
+  /**
+   * Scrolls vertically to the given position at a constant speed.
+   * Any motion of the ScrollView is stopped.
+   * @param scrollY Vertical scroll to stop at
+   * @param duration Duration of scrolling in seconds
+   */
+  protected void animateScrollY(float scrollY, float duration) {
+    Animator animator = getAnimator();
+    if (animator == null) {
+      setScrollY(scrollY);
+      return;
+    }
+    stopScrolling();
+    scrollAnimationY = animator.tween(this, CHANNEL_SCROLL_Y, this.scrollY, scrollY, duration, Easing.LINEAR);
+  }
+  
+  /**
+   * @return Whether the ScrollView is in motion after it was thrown or animated
+   */
+  protected boolean isScrolling() {
+    return scrollAnimationX != Animator.NONE || scrollAnimationY != Animator.NONE;
+  }
+  
+  private void stopScrolling() {
     velocityX = 0;
     velocityY = 0;
-    updatePosition();
+    Animator animator = getAnimator();
+    if (animator != null) {
+      scrollAnimationX = animator.cancel(scrollAnimationX);
+      scrollAnimationY = animator.cancel(scrollAnimationY);
+    } else {
+      scrollAnimationX = scrollAnimationY = Animator.NONE;
+    }
+  }
+  
+  /**
+   * Lets the ScrollView slow down from its current velocities according to set acceleration.
+   */
+  private void startScrolling() {
+    Animator animator = getAnimator();
+    if (animator == null || isDragged()) return;
+    scrollAnimationX = animator.cancel(scrollAnimationX);
+    scrollAnimationY = animator.cancel(scrollAnimationY);
+    //Content moves along with the velocity, so the scroll moves against it
+    if (velocityX != 0) {
+      scrollAnimationX = animator.decay(this, CHANNEL_SCROLL_X, scrollX, - velocityX, getAccelerationAbsoluteX(),
+          trimScrollX(Float.NEGATIVE_INFINITY), trimScrollX(Float.POSITIVE_INFINITY));
+    }
+    if (velocityY != 0) {
+      scrollAnimationY = animator.decay(this, CHANNEL_SCROLL_Y, scrollY, - velocityY, getAccelerationAbsoluteY(),
+          trimScrollY(Float.NEGATIVE_INFINITY), trimScrollY(Float.POSITIVE_INFINITY));
+    }
   }
   
   protected float trimScrollX(float scrollX) {
@@ -247,10 +320,12 @@ public class GdxAbstractScrollView extends GdxAbstractContainer {
 
   protected void setVelocityX(float velocityX) {
     this.velocityX = velocityX;
+    startScrolling();
   }
 
   protected void setVelocityY(float velocityY) {
     this.velocityY = velocityY;
+    startScrolling();
   }
 
   @Override
@@ -273,54 +348,27 @@ public class GdxAbstractScrollView extends GdxAbstractContainer {
   }
   
   @Override
-  public void step(float delay) {
-    if (!isDragged()) {
-      boolean doScroll = false;
-      if (velocityX != 0) {
-        if (velocityX > 0) {
-          velocityX -= getAccelerationAbsoluteX() * delay;
-          if (velocityX < 0) {
-            velocityX = 0;
-          } else {
-            doScroll = true;
-          }
-        } else {
-          velocityX += getAccelerationAbsoluteX() * delay;
-          if (velocityX > 0) {
-            velocityX = 0;
-          } else {
-            doScroll = true;
-          }
-        }
-      }
-      if (velocityY != 0) {
-        if (velocityY > 0) {
-          velocityY -= getAccelerationAbsoluteY() * delay;
-          if (velocityY < 0) {
-            velocityY = 0;
-          } else {
-            doScroll = true;
-          }
-        } else {
-          velocityY += getAccelerationAbsoluteY() * delay;
-          if (velocityY > 0) {
-            velocityY = 0;
-          } else {
-            doScroll = true;
-          }
-        }
-      }
-      if (doScroll) {
-        float previousScrollX = scrollX;
-        float previousScrollY = scrollY;
-        scrollX -= velocityX * delay;
-        scrollY -= velocityY * delay;
-        updatePosition();
-        if (previousScrollX == scrollX) velocityX = 0;
-        if (previousScrollY == scrollY) velocityY = 0;
-        makeDirty();
-      }
+  public void onAnimate(int channel, float value, float velocity) {
+    if (channel == CHANNEL_SCROLL_X) {
+      scrollX = value;
+      velocityX = - velocity;
+    } else {
+      scrollY = value;
+      velocityY = - velocity;
     }
+    updatePosition();
+  }
+
+  @Override
+  public void onAnimationFinished(int channel, float value) {
+    if (channel == CHANNEL_SCROLL_X) {
+      scrollAnimationX = Animator.NONE;
+      velocityX = 0;
+    } else {
+      scrollAnimationY = Animator.NONE;
+      velocityY = 0;
+    }
+    makeDirty();
   }
 
   @Override
@@ -336,11 +384,23 @@ public class GdxAbstractScrollView extends GdxAbstractContainer {
     return true;
   }
 
+  @Override
+  protected void onStartDrag(float x, float y, int pointer) {
+    super.onStartDrag(x, y, pointer);
+    //Velocities are kept, so the ScrollView carries on once released
+    Animator animator = getAnimator();
+    if (animator != null) {
+      scrollAnimationX = animator.cancel(scrollAnimationX);
+      scrollAnimationY = animator.cancel(scrollAnimationY);
+    }
+  }
+
   @Override
   protected void onStopDrag(float x, float y, int pointer) {
     overshootX = 0;
     overshootY = 0;
     super.onStopDrag(x, y, pointer);
+    startScrolling();
   }
 
   @Override
@@ -366,6 +426,7 @@ public class GdxAbstractScrollView extends GdxAbstractContainer {
   public boolean onFling(float x, float y, float velocityX, float velocityY, int pointer) {
     this.velocityX = velocityX;
     this.velocityY = velocityY;
+    startScrolling();
     makeDirty();
     return true;
   }
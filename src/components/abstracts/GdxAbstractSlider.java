@@ -1,14 +1,21 @@
 package components.abstracts;
 
+import helpers.Animator;
+import helpers.Animator.Easing;
+
+import java.util.List;
+
 import components.aggregated.GdxListeners;
+import components.interfaces.GdxAnimatable;
 import components.listeners.GdxPositionChangeListener;
 
-public abstract class GdxAbstractSlider extends GdxAbstractComponent {
+public abstract class GdxAbstractSlider extends GdxAbstractComponent implements GdxAnimatable {
   public enum Orientation { HORIZONTAL, VERTICAL }
   
   public static final Orientation ORIENTATION_HORIZONTAL = Orientation.HORIZONTAL;
   public static final Orientation ORIENTATION_VERTICAL = Orientation.VERTICAL;
   private static final float DEFAULT_SPEED = 1;
+  private static final int CHANNEL_POSITION = 0;
 
   private final GdxListeners<GdxPositionChangeListener> positionChangeListeners = 
       new GdxListeners<GdxPositionChangeListener>();
@@ -18,6 +25,7 @@ public abstract class GdxAbstractSlider extends GdxAbstractComponent {
   private float speed = DEFAULT_SPEED;
   private float position = 0, targetPosition = 0;
   private float overshoot = 0;
+  private int positionAnimation = Animator.NONE;
   
   public GdxAbstractSlider(float x, float y, float width, float height, float gripSize,
       float minimum, float maximum, Orientation orientation) {
@@ -116,6 +124,29 @@ public abstract class GdxAbstractSlider extends GdxAbstractComponent {
       targetPosition = length;
     }
     this.targetPosition = targetPosition;
+    animateToTarget();
+  }
+  
+  /**
+   * Moves the slider towards its target position at its speed.
+   */
+  private void animateToTarget() {
+    Animator animator = getAnimator();
+    if (animator == null) {
+      //Without a frame, there is nothing to animate in
+      if (position != targetPosition) setCurrentPosition(targetPosition);
+      return;
+    }
+    positionAnimation = animator.cancel(positionAnimation);
+    if (position != targetPosition) {
+      float duration = Math.abs(targetPosition - position) / getSpeedAbsolute();
+      positionAnimation = animator.tween(this, CHANNEL_POSITION, position, targetPosition, duration, Easing.LINEAR);
+    }
+  }
+  
+  private void cancelAnimation() {
+    Animator animator = getAnimator();
+    if (animator != null) positionAnimation = animator.cancel(positionAnimation);
   }
   
   protected float getCurrentPosition() {
@@ -165,26 +196,21 @@ public abstract class GdxAbstractSlider extends GdxAbstractComponent {
   }
   
   private void launchPositionChangeEvent(float position) {
-    for (GdxPositionChangeListener listener : positionChangeListeners) {
+    List<GdxPositionChangeListener> listeners = positionChangeListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxPositionChangeListener listener = listeners.get(i);
       listener.onPositionChange(this, position);
     }
   }
   
   @Override
-  public void step(float delay) {
-    if (position != targetPosition) {
-      if (position < targetPosition) {
-        position += getSpeedAbsolute() * delay;
-        if (position > targetPosition) position = targetPosition;
-        setCurrentPosition(position);
-      }
-      else {
-        position -= getSpeedAbsolute() * delay;
-        if (position < targetPosition) position = targetPosition;
-        setCurrentPosition(position);
-      }
-      makeDirty();
-    }
+  public void onAnimate(int channel, float value, float velocity) {
+    setCurrentPosition(value);
+  }
+  
+  @Override
+  public void onAnimationFinished(int channel, float value) {
+    positionAnimation = Animator.NONE;
   }
 
   @Override
@@ -205,6 +231,7 @@ public abstract class GdxAbstractSlider extends GdxAbstractComponent {
   public boolean onTouchUp(float x, float y, int pointer) {
     super.onTouchUp(x, y, pointer);
     targetPosition = position;
+    cancelAnimation();
     if (!isDragged()) overshoot = 0;
     makeDirty();
     return true;
@@ -221,6 +248,7 @@ public abstract class GdxAbstractSlider extends GdxAbstractComponent {
     else {
       targetPosition += difference;
       setCurrentPosition(desiredPosition);
+      animateToTarget();
     }
     overshoot = desiredPosition - position;
     makeDirty();
@@ -1,13 +1,18 @@
 package components.abstracts;
 
+import helpers.Animator;
+
+import java.util.List;
+
 import com.badlogic.gdx.Gdx;
 import components.aggregated.GdxListeners;
+import components.interfaces.GdxAnimatable;
 import components.listeners.GdxStateChangeListener;
 
 /**
  * Switch that can be switched on or off by dragging between its two uttermost positions.
  */
-public abstract class GdxAbstractSwitch extends GdxAbstractComponent {
+public abstract class GdxAbstractSwitch extends GdxAbstractComponent implements GdxAnimatable {
   public enum Orientation { HORIZONTAL, VERTICAL }
   public enum Direction { STANDARD, REVERSED }
   public enum InitialStatus { ON, OFF }
@@ -19,6 +24,7 @@ public abstract class GdxAbstractSwitch extends GdxAbstractComponent {
   public static final InitialStatus START_ON = InitialStatus.ON;
   public static final InitialStatus START_OFF = InitialStatus.OFF;
   private static final float DEFAULT_ACCELERATION = 2.5f;
+  private static final int CHANNEL_POSITION = 0;
   
   private final GdxListeners<GdxStateChangeListener> stateChangeListeners = 
       new GdxListeners<GdxStateChangeListener>();
@@ -30,6 +36,8 @@ public abstract class GdxAbstractSwitch extends GdxAbstractComponent {
   private float overshoot = 0;
   private float velocity = 0;
   private boolean isOn;
+  private int positionAnimation = Animator.NONE;
+  private boolean loose = false;
 
   public GdxAbstractSwitch(float x, float y, float width, float height, float gripSize, 
       Orientation orientation, Direction direction, InitialStatus initialStatus) {
@@ -153,6 +161,7 @@ public abstract class GdxAbstractSwitch extends GdxAbstractComponent {
   protected void setOn(boolean isOn) {
     boolean newState = (!reversed && isOn) || (reversed && !isOn);
     if (this.isOn != newState) {
+      cancelAnimation();
       setPosition(this.isOn ? 0 : getLength());
       launchStateChangeEvent(isOn);
       makeDirty();
@@ -280,6 +289,7 @@ public abstract class GdxAbstractSwitch extends GdxAbstractComponent {
           switchedOn();
           setTargetPosition(0);
         }
+        startMotion();
         makeDirty();
       }
     });
@@ -309,6 +319,7 @@ public abstract class GdxAbstractSwitch extends GdxAbstractComponent {
           switchedOff();
           setTargetPosition(getLength());
         }
+        startMotion();
         makeDirty();
       }
     });
@@ -358,39 +369,87 @@ public abstract class GdxAbstractSwitch extends GdxAbstractComponent {
   }
   
   private void launchStateChangeEvent(boolean isOn) {
-    for (GdxStateChangeListener listener : stateChangeListeners) {
+    List<GdxStateChangeListener> listeners = stateChangeListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxStateChangeListener listener = listeners.get(i);
       listener.onStateChange(this, isOn);
     }
   }
   
-  @Override
-  public void step(float delay) {
-    if (!isDragged()) {
-      if (position != targetPosition) {
-        if (targetPosition > position) {
-          increaseVelocity(delay);
-        } else {
-          decreaseVelocity(delay);
-        }
-        updateCurrentPosition(delay);
-        makeDirty();
-      } else if (position > 0 && position < length) {
-        if (position > length * 0.5) {
-          increaseVelocity(delay);
-        } else {
-          decreaseVelocity(delay);
-        }
-        updatePosition(delay);
-        makeDirty();
-      } else {
+  /**
+   * Sets the switch in motion after it has been released, thrown or switched.
+   * Switch accelerates towards its target position or, if it's already there 
+   * but left loose between its uttermost positions, towards the nearer one.
+   */
+  protected void startMotion() {
+    if (isDragged()) return;
+    if (position != targetPosition) {
+      accelerateTo(targetPosition);
+    } else if (position > 0 && position < length) {
+      Animator animator = getAnimator();
+      if (animator == null) {
         velocity = 0;
+        setPosition(position > length * 0.5 ? length : 0);
+        return;
       }
+      positionAnimation = animator.cancel(positionAnimation);
+      loose = true;
+      positionAnimation = animator.accelerateAway(this, CHANNEL_POSITION, position, length * 0.5f, 
+          velocity, getAccelerationAbsolute(), 0, length);
+    } else {
+      cancelAnimation();
+      velocity = 0;
+    }
+  }
+  
+  /**
+   * Accelerates the switch from its current position and velocity
+   * towards the given position, while keeping its target position.
+   * @param position Position to stop at
+   */
+  protected void accelerateTo(float position) {
+    Animator animator = getAnimator();
+    if (animator == null) {
+      velocity = 0;
+      setCurrentPosition(position);
+      return;
     }
+    positionAnimation = animator.cancel(positionAnimation);
+    loose = false;
+    positionAnimation = animator.accelerate(this, CHANNEL_POSITION, this.position, position, 
+        velocity, getAccelerationAbsolute(), 0, length);
+  }
+  
+  private void cancelAnimation() {
+    Animator animator = getAnimator();
+    if (animator != null) positionAnimation = animator.cancel(positionAnimation);
+  }
+  
+  @Override
+  public void onAnimate(int channel, float value, float velocity) {
+    this.velocity = velocity;
+    if (loose) {
+      setPosition(value);
+    } else {
+      setCurrentPosition(value);
+    }
+  }
+  
+  @Override
+  public void onAnimationFinished(int channel, float value) {
+    positionAnimation = Animator.NONE;
+  }
+
+  @Override
+  protected void onStartDrag(float x, float y, int pointer) {
+    //Velocity is kept, so the switch carries on once released
+    cancelAnimation();
   }
 
   @Override
   protected void onStopDrag(float x, float y, int pointer) {
     overshoot = 0;
+    startMotion();
     makeDirty();
   }
 
@@ -408,6 +467,7 @@ public abstract class GdxAbstractSwitch extends GdxAbstractComponent {
   @Override
   public boolean onFling(float x, float y, float velocityX, float velocityY, int pointer) {
     velocity = isVertical() ? velocityY : velocityX;
+    startMotion();
     makeDirty();
     return true;
   }
@@ -1,5 +1,7 @@
 package components.abstracts;
 
+import java.util.List;
+
 import components.aggregated.GdxListeners;
 import components.listeners.GdxStateChangeListener;
 
@@ -39,7 +41,9 @@ public abstract class GdxAbstractToggleButton extends GdxAbstractComponent {
   }
   
   private void launchStateChangeEvent(boolean isOn) {
-    for (GdxStateChangeListener listener : stateChangeListeners) {
+    List<GdxStateChangeListener> listeners = stateChangeListeners.snapshot();
+    for (int i = 0; i < listeners.size(); i++) {
+      GdxStateChangeListener listener = listeners.get(i);
       listener.onStateChange(this, isOn);
     }
   }
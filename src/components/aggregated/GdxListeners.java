@@ -2,30 +2,38 @@ package components.aggregated;
 
 import general.interfaces.GdxListener;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
 /**
  * A holder for listeners which automatically takes care of adding and removing them properly.
+ * <p>
+ * Listeners are stored in a copy-on-write array, so they can be added or removed while they are
+ * being notified. Dispatching should go through {@link #snapshot()}, which is indexed and doesn't
+ * allocate. Listeners added during dispatch are notified starting with the next dispatch, and
+ * removed ones are still notified by the dispatch in progress.
  * @param <T> Class of listeners stored in this structure
  *
  */
 public class GdxListeners<T extends GdxListener> implements Iterable<T> {
-  private final List<T> listeners;
-  private final List<Object> tags;
-  private final Collection<T> unmodifiableListeners;
+  private static final GdxListener[] NO_LISTENERS = new GdxListener[0];
+  private static final Object[] NO_TAGS = new Object[0];
+
+  private GdxListener[] listeners = NO_LISTENERS;
+  private Object[] tags = NO_TAGS;
+  private final HashMap<Object, Integer> tagIndices;
+  private List<T> snapshot = Collections.emptyList();
   
   public GdxListeners() {
     this(1);
   }
   
   public GdxListeners(int initialCapacity) {
-    listeners = new ArrayList<T>(initialCapacity);
-    tags = new ArrayList<Object>(initialCapacity);
-    unmodifiableListeners = Collections.unmodifiableCollection(listeners);
+    tagIndices = new HashMap<Object, Integer>(initialCapacity);
   }
   
   /**
@@ -39,31 +47,32 @@ public class GdxListeners<T extends GdxListener> implements Iterable<T> {
    */
   public boolean add(Object listenerTag, T listener) {
     /* Don't add duplicate listener */
-    if (listeners.contains(listener)) return false;
-    /* Look for matching tag already existing in the list unless tag is NULL */
+    if (indexOf(listener) >= 0) return false;
+    /* Replace listener with matching tag unless tag is NULL */
     if (listenerTag != null) {
-      int size = tags.size();
-      for (int i = 0; i < size; i++) {
-        Object tag = tags.get(i);
-        /* Replace listener with matching tag */
-        if (listenerTag.equals(tag)) {
-          listeners.remove(i);
-          listeners.add(i, listener);
-          return true;
-        }
+      Integer index = tagIndices.get(listenerTag);
+      if (index != null) {
+        GdxListener[] newListeners = listeners.clone();
+        newListeners[index] = listener;
+        publish(newListeners, tags);
+        return true;
       }
     }
     /* Add new listener if tag was NULL or no matching tag was found */
-    listeners.add(listener);
-    tags.add(listenerTag);
+    int size = listeners.length;
+    GdxListener[] newListeners = Arrays.copyOf(listeners, size + 1);
+    Object[] newTags = Arrays.copyOf(tags, size + 1);
+    newListeners[size] = listener;
+    newTags[size] = listenerTag;
+    if (listenerTag != null) tagIndices.put(listenerTag, size);
+    publish(newListeners, newTags);
     return true;
   }
 
   public boolean remove(T listener) {
-    int index = listeners.indexOf(listener);
+    int index = indexOf(listener);
     if (index >= 0) {
-      listeners.remove(index);
-      tags.remove(index);
+      removeAt(index);
       return true;
     }
     return false;
@@ -71,35 +80,92 @@ public class GdxListeners<T extends GdxListener> implements Iterable<T> {
   
   public T remove(Object listenerTag) {
     if (listenerTag == null) throw new NullPointerException("Null value can not be used as a tag");
-    int index = tags.indexOf(listenerTag);
-    if (index >= 0) {
-      T listener = listeners.remove(index);
-      tags.remove(index);
+    Integer index = tagIndices.get(listenerTag);
+    if (index != null) {
+      T listener = snapshot.get(index);
+      removeAt(index);
       return listener;
     }
     return null;
   }
   
   public void clear() {
-    listeners.clear();
-    tags.clear();
+    tagIndices.clear();
+    publish(NO_LISTENERS, NO_TAGS);
   }
   
   public T get(Object listenerTag) {
     if (listenerTag == null) throw new NullPointerException("Null value can not be used as a tag");
-    int index = tags.indexOf(listenerTag);
-    if (index >= 0) {
-      return listeners.get(index);
+    Integer index = tagIndices.get(listenerTag);
+    if (index != null) {
+      return snapshot.get(index);
     }
     return null;
   }
+
+  /**
+   * @return Number of listeners
+   */
+  public int size() {
+    return listeners.length;
+  }
+
+  /**
+   * Returns an unmodifiable list of listeners at the time of the call. The list is shared
+   * until listeners change, so getting it doesn't allocate and iterating it via
+   * {@link List#get(int)} is safe even if listeners are added or removed meanwhile.
+   * @return Current listeners
+   */
+  public List<T> snapshot() {
+    return snapshot;
+  }
   
+  /**
+   * Returns listeners at the time of the call. The collection is a snapshot rather than a live view,
+   * so it doesn't reflect later changes and can be iterated while listeners are added or removed.
+   * @return Unmodifiable collection of listeners at the time of the call
+   * @see #snapshot()
+   */
   public Collection<T> getAll() {
-    return unmodifiableListeners;
+    return snapshot;
   }
 
   @Override
   public Iterator<T> iterator() {
-    return unmodifiableListeners.iterator();
+    return snapshot.iterator();
+  }
+
+  private int indexOf(T listener) {
+    GdxListener[] listeners = this.listeners;
+    for (int i = 0; i < listeners.length; i++) {
+      if (listener == null ? listeners[i] == null : listener.equals(listeners[i])) return i;
+    }
+    return -1;
+  }
+
+  private void removeAt(int index) {
+    int size = listeners.length;
+    GdxListener[] newListeners = new GdxListener[size - 1];
+    Object[] newTags = new Object[size - 1];
+    System.arraycopy(listeners, 0, newListeners, 0, index);
+    System.arraycopy(listeners, index + 1, newListeners, index, size - index - 1);
+    System.arraycopy(tags, 0, newTags, 0, index);
+    System.arraycopy(tags, index + 1, newTags, index, size - index - 1);
+    tagIndices.remove(tags[index]);
+    for (int i = index; i < newTags.length; i++) {
+      if (newTags[i] != null) tagIndices.put(newTags[i], i);
+    }
+    publish(newListeners, newTags);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void publish(GdxListener[] listeners, Object[] tags) {
+    this.listeners = listeners;
+    this.tags = tags;
+    if (listeners.length == 0) {
+      snapshot = Collections.emptyList();
+    } else {
+      snapshot = Collections.unmodifiableList(Arrays.asList((T[])listeners));
+    }
   }
 }
@@ -0,0 +1,26 @@
+package components.interfaces;
+
+import helpers.Animator;
+
+/**
+ * Receiver of values produced by animations of an {@link Animator}. A single animatable
+ * can run several animations at once, each of them on a different channel.
+ */
+public interface GdxAnimatable {
+  /**
+   * Called once per frame for every running animation of the animatable,
+   * including the last step, which reports the final value.
+   * @param channel Channel the animation was started on
+   * @param value Current value of the animation
+   * @param velocity Current rate of change of the value per second
+   */
+  public void onAnimate(int channel, float value, float velocity);
+
+  /**
+   * Called after the final value has been reported. The animation is no longer
+   * running at this point, so a new one may be started on the same channel.
+   * @param channel Channel the animation was started on
+   * @param value Final value of the animation
+   */
+  public void onAnimationFinished(int channel, float value);
+}
@@ -120,6 +120,12 @@ public interface GdxComponent extends GdxUpdatable, GdxInputListener, Disposable
   
   public void addInputListener(Object tag, GdxInputListener inputListener);
   
+  /**
+   * Returns input listeners at the time of the call. The collection is an unmodifiable snapshot,
+   * so it can be iterated while listeners are added or removed, e.g. by the listeners themselves.
+   * Changes made meanwhile only show in collections returned later.
+   * @return Unmodifiable snapshot of input listeners
+   */
   public Collection<GdxInputListener> getInputListeners();
   
   public boolean removeInputListener(GdxInputListener inputListener);
@@ -0,0 +1,20 @@
+package components.interfaces;
+
+/**
+ * Layer which estimates what it costs to keep it constructed, so {@link components.GdxLayerContainer
+ * GdxLayerContainer} can keep constructed layers within a memory budget and prefer disposal of layers
+ * which are cheap to construct again. Other layers are treated as holding no memory and costing
+ * the time their last construction took.
+ */
+public interface GdxCostAwareLayer extends GdxLayer {
+  /**
+   * @return Estimated memory held by the layer while it's constructed, in bytes
+   */
+  public long memoryFootprint();
+  
+  /**
+   * @return Estimated time needed to construct the layer again in nanoseconds, or 0 to let
+   *         the container use the time its last construction took
+   */
+  public long rebuildCost();
+}
@@ -0,0 +1,24 @@
+package components.interfaces;
+
+/**
+ * Layer which can be constructed in parts, so {@link components.GdxLayerContainer GdxLayerContainer}
+ * can prefetch it across several frames without blocking any of them.
+ * <p>
+ * When prefetched, {@link #prepare()} is called on a worker thread first, followed by calls of
+ * {@link #constructStep()} on the rendering thread until construction is finished. When activated
+ * without prefetching, {@link #construct()} is called instead, which is supposed to do all of it at once.
+ */
+public interface GdxIncrementalLayer extends GdxLayer {
+  /**
+   * Prepares parts of the layer which need only CPU, e.g. loads data or builds models.
+   * It's called on a worker thread, so it must not use OpenGL nor touch any components.
+   */
+  public void prepare();
+  
+  /**
+   * Performs a small part of construction, ideally taking no more than a few milliseconds.
+   * It's called on the rendering thread after {@link #prepare()} has finished.
+   * @return Whether construction is finished
+   */
+  public boolean constructStep();
+}
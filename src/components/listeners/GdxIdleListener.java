@@ -0,0 +1,13 @@
+package components.listeners;
+
+import components.GdxMainFrame;
+
+public interface GdxIdleListener extends GdxComponentListener {
+  /**
+   * Called once the frame stops re-rendering because nothing is dirty anymore. This happens
+   * right before the next frame would be rendered, so the last one has already been presented.
+   * Work done here delays only reaction to input, not any motion on the screen.
+   * @param sender Frame which became idle
+   */
+  public void onIdle(GdxMainFrame sender);
+}
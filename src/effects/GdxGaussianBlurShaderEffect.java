@@ -3,12 +3,17 @@ package effects;
 import helpers.ShaderFactory;
 import io.GdxPainter;
 import io.GdxShader;
+import io.GdxShaderUniforms;
+import io.GdxShaderUniforms.FloatUniform;
+import io.GdxShaderUniforms.Vec2Uniform;
 
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import components.interfaces.GdxComponent;
 
 public class GdxGaussianBlurShaderEffect extends GdxShaderEffect {
   private ShaderProgram program;
+  private final Vec2Uniform directionUniform;
+  private final FloatUniform resolutionUniform, radiusUniform;
   private float blurRadius;
   private boolean firstPass = true;
 
@@ -16,6 +21,10 @@ public class GdxGaussianBlurShaderEffect extends GdxShaderEffect {
     super(component);
     program = ShaderFactory.createShaderProgram(
         GdxShader.VERTEX_PASSTHROUGH, FRAGMENT_GAUSSIAN);
+    GdxShaderUniforms uniforms = ShaderFactory.getUniforms(program);
+    directionUniform = uniforms.getVec2("u_direction");
+    resolutionUniform = uniforms.getFloat("u_resolution");
+    radiusUniform = uniforms.getFloat("u_radius");
     setBlurRadius(blurRadius);
   }
 
@@ -35,12 +44,12 @@ public class GdxGaussianBlurShaderEffect extends GdxShaderEffect {
   @Override
   public void prepare(GdxPainter painter, float canvasWidth, float canvasHeight) {
     if (firstPass) {
-      program.setUniformf("u_direction", 1f, 0f);
-      program.setUniformf("u_resolution", painter.getScreenWidth());
-      program.setUniformf("u_radius", blurRadius);
+      directionUniform.set(1f, 0f);
+      resolutionUniform.set(painter.getScreenWidth());
+      radiusUniform.set(blurRadius);
     } else {
-      program.setUniformf("u_direction", 0f, 1f);
-      program.setUniformf("u_resolution", painter.getScreenHeight());
+      directionUniform.set(0f, 1f);
+      resolutionUniform.set(painter.getScreenHeight());
     }
     firstPass = !firstPass;
   }
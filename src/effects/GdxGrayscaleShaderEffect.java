@@ -2,14 +2,17 @@ package effects;
 
 import io.GdxPainter;
 import io.GdxShader;
+import io.GdxShaderUniforms.FloatUniform;
 
 import components.interfaces.GdxComponent;
 
 public class GdxGrayscaleShaderEffect extends GdxSimpleShaderEffect {
+  private final FloatUniform intensityUniform;
   private float intensity;
 
   public GdxGrayscaleShaderEffect(GdxComponent component, float intensity) {
     super(component, GdxShader.VERTEX_PASSTHROUGH, FRAGMENT_GRAYSCALE);
+    intensityUniform = getUniforms().getFloat("u_intensity");
     setIntensity(intensity);
   }
 
@@ -23,7 +26,7 @@ public class GdxGrayscaleShaderEffect extends GdxSimpleShaderEffect {
 
   @Override
   public void prepare(GdxPainter painter, float canvasWidth, float canvasHeight) {
-    getProgram().setUniformf("u_intensity", intensity);
+    intensityUniform.set(intensity);
   }
   
   public static final String FRAGMENT_GRAYSCALE =
@@ -2,19 +2,22 @@ package effects;
 
 import io.GdxPainter;
 import io.GdxShader;
+import io.GdxShaderUniforms.FloatUniform;
 
 import components.interfaces.GdxComponent;
 
 public class GdxRippleShaderEffect extends GdxSimpleShaderEffect {
+  private final FloatUniform timeUniform;
   private float time;
   
   public GdxRippleShaderEffect(GdxComponent component) {
     super(component, GdxShader.VERTEX_PASSTHROUGH, FRAGMENT_RIPPLE);
+    timeUniform = getUniforms().getFloat("u_time");
   }
 
   @Override
   public void prepare(GdxPainter painter, float canvasWidth, float canvasHeight) {
-    getProgram().setUniformf("u_time", time);
+    timeUniform.set(time);
   }
   
   @Override
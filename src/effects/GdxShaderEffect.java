@@ -16,6 +16,8 @@ import components.interfaces.GdxComponent;
  *
  */
 public abstract class GdxShaderEffect extends GdxAbstractVisualEffect implements GdxShader {
+  private final Rectangle area = new Rectangle();
+
   public GdxShaderEffect(GdxComponent component) {
     super(component);
   }
@@ -25,7 +27,10 @@ public abstract class GdxShaderEffect extends GdxAbstractVisualEffect implements
     ShaderProgram.pedantic = false;
   }
 
+  /**
+   * @return The area in canvas coordinates, reused by subsequent calls
+   */
   public Rectangle getArea() {
-    return getComponent().getFrameArea();
+    return getComponent().getFrameArea(area);
   }
 }
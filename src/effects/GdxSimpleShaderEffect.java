@@ -2,6 +2,7 @@ package effects;
 
 import helpers.ShaderFactory;
 import io.GdxPainter;
+import io.GdxShaderUniforms;
 
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import components.interfaces.GdxComponent;
@@ -19,6 +20,13 @@ public abstract class GdxSimpleShaderEffect extends GdxShaderEffect {
     return program;
   }
 
+  /**
+   * @return Cached uniforms of the program, shared with other users of the same program
+   */
+  protected GdxShaderUniforms getUniforms() {
+    return ShaderFactory.getUniforms(program);
+  }
+
   @Override
   public void before(float x, float y, GdxPainter painter) {
     super.before(x, y, painter);
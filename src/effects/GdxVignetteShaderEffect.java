@@ -2,14 +2,19 @@ package effects;
 
 import io.GdxPainter;
 import io.GdxShader;
+import io.GdxShaderUniforms;
+import io.GdxShaderUniforms.FloatUniform;
+import io.GdxShaderUniforms.Vec2Uniform;
 
-import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import components.interfaces.GdxComponent;
 
 public class GdxVignetteShaderEffect extends GdxSimpleShaderEffect {
   private static final float DEFAULT_INTENSITY = 1.0f;
   private static final float DEFAULT_OUTER_EDGE = 0.5f;
   
+  private final Vec2Uniform originUniform, sizeUniform;
+  private final FloatUniform intensityUniform, cornersUniform;
+  private final FloatUniform outerEdgeUniform, innerEdgeUniform;
   private float left, top;
   private float intensity;
   private float radius;
@@ -18,6 +23,13 @@ public class GdxVignetteShaderEffect extends GdxSimpleShaderEffect {
   public GdxVignetteShaderEffect(GdxComponent component, float intensity,
       float radius, float outerEdge, float innerEdge) {
     super(component, GdxShader.VERTEX_PASSTHROUGH, FRAGMENT_VIGNETTE);
+    GdxShaderUniforms uniforms = getUniforms();
+    originUniform = uniforms.getVec2("u_origin");
+    sizeUniform = uniforms.getVec2("u_size");
+    intensityUniform = uniforms.getFloat("u_intensity");
+    cornersUniform = uniforms.getFloat("u_corners");
+    outerEdgeUniform = uniforms.getFloat("u_outerEdge");
+    innerEdgeUniform = uniforms.getFloat("u_innerEdge");
     setIntensity(intensity);
     setRadius(radius);
     setEdges(outerEdge, innerEdge);
@@ -89,18 +101,17 @@ public class GdxVignetteShaderEffect extends GdxSimpleShaderEffect {
   @Override
   public void prepare(GdxPainter painter, float canvasWidth, float canvasHeight) {
     GdxComponent component = getComponent();
-    ShaderProgram program = getProgram();
     float ppcu = painter.getPpcu();
     float width = component.getWidth();
     float height = component.getHeight();
-    program.setUniformf("u_origin", 
+    originUniform.set(
         left * ppcu + painter.getOriginLeft(), 
         (canvasHeight - top - height) * ppcu + painter.getOriginTop());
-    program.setUniformf("u_size", width * ppcu, height * ppcu);
-    program.setUniformf("u_intensity", intensity);
-    program.setUniformf("u_corners", 0.5f - radius);
-    program.setUniformf("u_outerEdge", outerEdge);
-    program.setUniformf("u_innerEdge", innerEdge);
+    sizeUniform.set(width * ppcu, height * ppcu);
+    intensityUniform.set(intensity);
+    cornersUniform.set(0.5f - radius);
+    outerEdgeUniform.set(outerEdge);
+    innerEdgeUniform.set(innerEdge);
   }
 
   public static final String FRAGMENT_VIGNETTE =
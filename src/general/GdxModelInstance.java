@@ -1,5 +1,7 @@
 package general;
 
+import java.util.WeakHashMap;
+
 import com.badlogic.gdx.graphics.g3d.Attribute;
 import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
@@ -22,15 +24,24 @@ import components.bounds.GdxBoundingBox;
  * It also takes transformations into account while calculating a bounding box,
  * therefore representing it as it currently is within the world coordinates,
  * rathen than using the original coordinates of the model with no transformations.
+ * <p>
+ * Transformations are only recorded by setters and composed into a matrix once it's needed,
+ * i.e. when renderables are requested. Bounding boxes of models are calculated once per model
+ * and then just transformed whenever rotation changes.
  *
  */
 public class GdxModelInstance implements RenderableProvider {
+  //Models are shared by instances, so are their untransformed bounding boxes
+  private static final WeakHashMap<Model, BoundingBox> modelBounds = new WeakHashMap<Model, BoundingBox>();
+  private static final BoundingBox transformedBounds = new BoundingBox();
+  
   private final ModelInstance modelInstance;
   private final Vector3 center;
   private final Vector3 scale;
   private final Vector3 rotation;
   private final Vector3 size;
   private final Matrix4 boundingBoxTransform = new Matrix4();
+  private boolean transformationDirty = true;
 
   public GdxModelInstance(Model model, float centerX, float centerY, float centerZ, 
       float scaleX, float scaleY, float scaleZ, float rotationX, float rotationY, float rotationZ) {
@@ -39,7 +50,6 @@ public class GdxModelInstance implements RenderableProvider {
     scale = new Vector3(scaleX, scaleY, scaleZ);
     rotation = new Vector3(rotationX, rotationY, rotationZ);
     size = new Vector3();
-    calculateTransformation();
     calculateSize();
   }
   
@@ -215,19 +225,37 @@ public class GdxModelInstance implements RenderableProvider {
   }
   
   private void calculateSize() {
-    BoundingBox out = new BoundingBox();
-    modelInstance.calculateBoundingBox(out);
     boundingBoxTransform.setToScaling(scale).
         rotate(1, 0, 0, rotation.x).
         rotate(0, 1, 0, rotation.y).
         rotate(0, 0, 1, rotation.z);
-    out.mul(modelInstance.transform);
+    calculateSize(boundingBoxTransform);
+  }
+  
+  /**
+   * Sets size to the size of the model's bounding box transformed by a given matrix.
+   * Translation of the matrix doesn't affect the size.
+   */
+  private void calculateSize(Matrix4 transform) {
+    Model model = modelInstance.model;
+    BoundingBox bounds = modelBounds.get(model);
+    if (bounds == null) {
+      bounds = model.calculateBoundingBox(new BoundingBox());
+      modelBounds.put(model, bounds);
+    }
+    BoundingBox out = transformedBounds.set(bounds).mul(transform);
     size.x = out.max.x - out.min.x;
     size.y = out.max.y - out.min.y;
     size.z = out.max.z - out.min.z;
   }
   
   private void calculateTransformation() {
+    transformationDirty = true;
+  }
+  
+  private void updateTransformation() {
+    if (!transformationDirty) return;
+    transformationDirty = false;
     modelInstance.transform.setToTranslationAndScaling(
         center.x, - center.y, center.z, 
         scale.x, scale.y, scale.z).
@@ -293,7 +321,9 @@ public class GdxModelInstance implements RenderableProvider {
     rotation.x = (rotation.x + axisX * angle) % 360;
     rotation.y = (rotation.y + axisY * angle) % 360;
     rotation.z = (rotation.z + axisZ * angle) % 360;
-    calculateSize();
+    //The transformation is up to date until the next change
+    transformationDirty = false;
+    calculateSize(modelInstance.transform);
     return this;
   }
   
@@ -322,6 +352,7 @@ public class GdxModelInstance implements RenderableProvider {
 
   @Override
   public void getRenderables(Array<Renderable> renderables, Pool<Renderable> pool) {
+    updateTransformation();
     modelInstance.getRenderables(renderables, pool);
   }
 
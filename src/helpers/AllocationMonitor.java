@@ -0,0 +1,280 @@
+package helpers;
+
+import java.lang.management.ManagementFactory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Measures bytes allocated on the rendering thread per frame and per input event. Owned by
+ * {@link components.GdxMainFrame GdxMainFrame}, which reports frame boundaries, while
+ * {@link io.GdxInputManager GdxInputManager} reports input events.
+ * <p>
+ * Counting relies on the allocated bytes counters of HotSpot's ThreadMXBean. On platforms
+ * without them (e.g. Android), {@link #isSupported()} returns false and monitoring can't be enabled.
+ * <p>
+ * Budgets turn the monitor into a regression check: run a scenario, e.g. by replaying a trace via
+ * {@link InputReplayer#runToEnd(float)}, with {@link #setFailOnExceeded(boolean) failing} enabled,
+ * and any frame or event allocating more than its budget throws a {@link GdxRuntimeException}.
+ * The first {@link #setWarmUpFrames(int) few frames} are never checked, since pools and caches
+ * grow during them.
+ *
+ */
+public class AllocationMonitor {
+  public static final String TAG = AllocationMonitor.class.getSimpleName();
+
+  private static final int DEFAULT_WARM_UP_FRAMES = 10;
+
+  private boolean enabled = false;
+  private boolean monitoring = false;
+  private boolean failOnExceeded = false;
+  private long frameBudget = -1, eventBudget = -1; //Bytes, negative for unlimited
+  private int warmUpFrames = DEFAULT_WARM_UP_FRAMES;
+  private int frames = 0, events = 0;
+  private long frameStartBytes, eventStartBytes;
+  private long lastFrameBytes, maxFrameBytes, totalFrameBytes;
+  private long lastEventBytes, maxEventBytes, totalEventBytes;
+  private int exceededFrames = 0, exceededEvents = 0;
+
+  /**
+   * @return Whether allocated bytes can be counted on this platform
+   */
+  public static boolean isSupported() {
+    try {
+      return AllocationCounter.SUPPORTED;
+    } catch (LinkageError error) {
+      return false;
+    }
+  }
+
+  /**
+   * Enables or disables monitoring starting with the next frame.
+   * @param enabled Whether to monitor
+   */
+  public void setEnabled(boolean enabled) {
+    if (enabled && !isSupported())
+      throw new GdxRuntimeException("Allocation counting is not supported on this platform");
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return Whether the current frame is being monitored
+   */
+  public boolean isMonitoring() {
+    return monitoring;
+  }
+
+  /**
+   * Sets a budget for bytes allocated during a single frame.
+   * @param bytes Budget in bytes, negative for unlimited
+   */
+  public void setFrameBudget(long bytes) {
+    frameBudget = bytes;
+  }
+
+  public long getFrameBudget() {
+    return frameBudget;
+  }
+
+  /**
+   * Sets a budget for bytes allocated while handling a single input event.
+   * @param bytes Budget in bytes, negative for unlimited
+   */
+  public void setEventBudget(long bytes) {
+    eventBudget = bytes;
+  }
+
+  public long getEventBudget() {
+    return eventBudget;
+  }
+
+  /**
+   * Sets whether exceeding a budget throws an exception. Otherwise it's only logged.
+   * @param failOnExceeded Whether to throw when a budget is exceeded
+   */
+  public void setFailOnExceeded(boolean failOnExceeded) {
+    this.failOnExceeded = failOnExceeded;
+  }
+
+  public boolean isFailOnExceeded() {
+    return failOnExceeded;
+  }
+
+  /**
+   * Sets the number of frames after enabling or {@link #reset() resetting}, during which
+   * budgets aren't checked. Events are not checked during these frames either.
+   * @param warmUpFrames Number of unchecked frames
+   */
+  public void setWarmUpFrames(int warmUpFrames) {
+    if (warmUpFrames < 0) throw new IllegalArgumentException("Number of warm-up frames cannot be negative");
+    this.warmUpFrames = warmUpFrames;
+  }
+
+  public int getWarmUpFrames() {
+    return warmUpFrames;
+  }
+
+  /**
+   * Clears all collected values and starts a new warm-up.
+   */
+  public void reset() {
+    frames = events = 0;
+    lastFrameBytes = maxFrameBytes = totalFrameBytes = 0;
+    lastEventBytes = maxEventBytes = totalEventBytes = 0;
+    exceededFrames = exceededEvents = 0;
+  }
+
+  private boolean isWarmingUp() {
+    return frames <= warmUpFrames;
+  }
+
+  public void frameStarted() {
+    monitoring = enabled;
+    if (!monitoring) return;
+    frames++;
+    frameStartBytes = AllocationCounter.allocatedBytes();
+  }
+
+  public void frameFinished() {
+    if (!monitoring) return;
+    long bytes = AllocationCounter.allocatedSince(frameStartBytes);
+    monitoring = false;
+    if (isWarmingUp()) return;
+    lastFrameBytes = bytes;
+    totalFrameBytes += bytes;
+    if (bytes > maxFrameBytes) maxFrameBytes = bytes;
+    if (frameBudget >= 0 && bytes > frameBudget) {
+      exceededFrames++;
+      budgetExceeded("Frame", bytes, frameBudget);
+    }
+  }
+
+  public void eventStarted() {
+    if (!enabled) return;
+    eventStartBytes = AllocationCounter.allocatedBytes();
+  }
+
+  /**
+   * @param event Name of the event, used when reporting an exceeded budget
+   */
+  public void eventFinished(String event) {
+    if (!enabled) return;
+    long bytes = AllocationCounter.allocatedSince(eventStartBytes);
+    if (isWarmingUp()) return;
+    events++;
+    lastEventBytes = bytes;
+    totalEventBytes += bytes;
+    if (bytes > maxEventBytes) maxEventBytes = bytes;
+    if (eventBudget >= 0 && bytes > eventBudget) {
+      exceededEvents++;
+      budgetExceeded(event, bytes, eventBudget);
+    }
+  }
+
+  private void budgetExceeded(String what, long bytes, long budget) {
+    String message = what + " allocated " + bytes + " bytes, budget is " + budget + " bytes";
+    if (failOnExceeded) throw new GdxRuntimeException(message);
+    Gdx.app.error(TAG, message);
+  }
+
+  /**
+   * @return Bytes allocated during the last checked frame
+   */
+  public long getFrameBytes() {
+    return lastFrameBytes;
+  }
+
+  /**
+   * @return Most bytes allocated during a single checked frame
+   */
+  public long getMaxFrameBytes() {
+    return maxFrameBytes;
+  }
+
+  /**
+   * @return Average bytes allocated during a checked frame
+   */
+  public float getAverageFrameBytes() {
+    int checkedFrames = frames - warmUpFrames;
+    return checkedFrames > 0 ? totalFrameBytes / (float)checkedFrames : 0;
+  }
+
+  /**
+   * @return Bytes allocated while handling the last checked input event
+   */
+  public long getEventBytes() {
+    return lastEventBytes;
+  }
+
+  public long getMaxEventBytes() {
+    return maxEventBytes;
+  }
+
+  public float getAverageEventBytes() {
+    return events > 0 ? totalEventBytes / (float)events : 0;
+  }
+
+  /**
+   * @return Number of checked input events
+   */
+  public int getEventCount() {
+    return events;
+  }
+
+  public int getExceededFrames() {
+    return exceededFrames;
+  }
+
+  public int getExceededEvents() {
+    return exceededEvents;
+  }
+
+  /**
+   * Keeps HotSpot specific classes out of the monitor, so it loads on any platform.
+   */
+  private static class AllocationCounter {
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN;
+    private static final boolean SUPPORTED;
+    //Bytes allocated by a single query, which older JVMs don't avoid
+    private static final long OVERHEAD;
+
+    static {
+      com.sun.management.ThreadMXBean threadBean = null;
+      try {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+          threadBean = (com.sun.management.ThreadMXBean)bean;
+          if (threadBean.isThreadAllocatedMemorySupported()) {
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+          } else {
+            threadBean = null;
+          }
+        }
+      } catch (Throwable throwable) {
+        threadBean = null;
+      }
+      THREAD_BEAN = threadBean;
+      SUPPORTED = threadBean != null;
+      long overhead = 0;
+      if (SUPPORTED) {
+        long id = Thread.currentThread().getId();
+        threadBean.getThreadAllocatedBytes(id);
+        long first = threadBean.getThreadAllocatedBytes(id);
+        overhead = threadBean.getThreadAllocatedBytes(id) - first;
+      }
+      OVERHEAD = overhead;
+    }
+
+    static long allocatedBytes() {
+      return THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static long allocatedSince(long startBytes) {
+      return Math.max(0, allocatedBytes() - startBytes - OVERHEAD);
+    }
+  }
+}
@@ -0,0 +1,581 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import components.GdxMainFrame;
+import components.interfaces.GdxAnimatable;
+import components.interfaces.GdxComponent;
+import components.interfaces.GdxUpdatable;
+
+/**
+ * Runs tweens, springs, decays and accelerated motions of all components of a frame. Owned by
+ * {@link GdxMainFrame}, which steps it like any other dirty updatable, so it only keeps the frame
+ * rendering while some animation runs.
+ * <p>
+ * State of all animations is kept in parallel primitive arrays and advanced in a single loop per
+ * frame. Running animations don't create objects and the arrays only grow when more animations run
+ * at once than ever before. Each animation drives one channel of a {@link GdxAnimatable} and is
+ * identified by an integer handle, which becomes invalid once the animation finishes or is cancelled.
+ * Only animatables with a running animation are called, idle components are never touched.
+ * <p>
+ * Animations always finish exactly at their final value: tweens and springs at their target,
+ * decays and accelerated motions at a bound. The final value is reported via
+ * {@link GdxAnimatable#onAnimate(int, float, float) onAnimate} before
+ * {@link GdxAnimatable#onAnimationFinished(int, float) onAnimationFinished} is called.
+ *
+ */
+public class Animator implements GdxUpdatable {
+  /**
+   * Handle which never refers to an animation
+   */
+  public static final int NONE = -1;
+
+  public enum Easing {
+    LINEAR, QUAD_IN, QUAD_OUT, QUAD_IN_OUT, CUBIC_IN, CUBIC_OUT, CUBIC_IN_OUT, SINE_IN_OUT;
+
+    /**
+     * @param t Progress of a tween between 0 and 1
+     * @return Eased progress, 0 for 0 and 1 for 1
+     */
+    public float apply(float t) {
+      return ease(ordinal(), t);
+    }
+  }
+
+  private static final byte TWEEN = 0, SPRING = 1, DECAY = 2, ACCELERATION = 3;
+  //Handles carry a generation next to the slot, so stale handles never affect reused slots
+  private static final int SLOT_BITS = 20;
+  private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+  private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+  private static final int DEFAULT_CAPACITY = 64;
+  private static final float SPRING_STEP = 1 / 240f; //Seconds
+  //Spring is at rest once it would move by less than its precision during a frame at this rate
+  private static final float REST_FRAME_RATE = 60;
+
+  private final GdxMainFrame frame;
+  private byte[] kinds, easings;
+  private float[] values, previousValues, velocities, froms, targets, durations, elapsed;
+  private float[] rates, dampings, precisions, pivots, minimums, maximums;
+  private GdxAnimatable[] animatables;
+  private int[] channels, generations;
+  private long[] animatedFrameIds; //Frame in which each slot's animatable has been added to animated
+  private boolean[] alive;
+  private int[] active, activeIndices;
+  private int[] free;
+  private int activeCount = 0, freeCount = 0, usedSlots = 0;
+  //Animatables animated during the frame with the given id, including finished ones, once per animation
+  private final ArrayList<GdxAnimatable> animated = new ArrayList<GdxAnimatable>();
+  private long animatedFrameId = -1;
+  private boolean stepping = false, scheduled = false;
+
+  public Animator(GdxMainFrame frame, int capacity) {
+    if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+    this.frame = frame;
+    allocate(capacity);
+  }
+
+  public Animator(GdxMainFrame frame) {
+    this(frame, DEFAULT_CAPACITY);
+  }
+
+  private void allocate(int capacity) {
+    kinds = new byte[capacity];
+    easings = new byte[capacity];
+    values = new float[capacity];
+    previousValues = new float[capacity];
+    velocities = new float[capacity];
+    froms = new float[capacity];
+    targets = new float[capacity];
+    durations = new float[capacity];
+    elapsed = new float[capacity];
+    rates = new float[capacity];
+    dampings = new float[capacity];
+    precisions = new float[capacity];
+    pivots = new float[capacity];
+    minimums = new float[capacity];
+    maximums = new float[capacity];
+    animatables = new GdxAnimatable[capacity];
+    channels = new int[capacity];
+    generations = new int[capacity];
+    animatedFrameIds = new long[capacity];
+    alive = new boolean[capacity];
+    active = new int[capacity];
+    activeIndices = new int[capacity];
+    free = new int[capacity];
+  }
+
+  private void grow() {
+    int capacity = Math.min(kinds.length * 2, SLOT_MASK + 1);
+    if (capacity == kinds.length) throw new GdxRuntimeException("Too many running animations");
+    kinds = Arrays.copyOf(kinds, capacity);
+    easings = Arrays.copyOf(easings, capacity);
+    values = Arrays.copyOf(values, capacity);
+    previousValues = Arrays.copyOf(previousValues, capacity);
+    velocities = Arrays.copyOf(velocities, capacity);
+    froms = Arrays.copyOf(froms, capacity);
+    targets = Arrays.copyOf(targets, capacity);
+    durations = Arrays.copyOf(durations, capacity);
+    elapsed = Arrays.copyOf(elapsed, capacity);
+    rates = Arrays.copyOf(rates, capacity);
+    dampings = Arrays.copyOf(dampings, capacity);
+    precisions = Arrays.copyOf(precisions, capacity);
+    pivots = Arrays.copyOf(pivots, capacity);
+    minimums = Arrays.copyOf(minimums, capacity);
+    maximums = Arrays.copyOf(maximums, capacity);
+    animatables = Arrays.copyOf(animatables, capacity);
+    channels = Arrays.copyOf(channels, capacity);
+    generations = Arrays.copyOf(generations, capacity);
+    animatedFrameIds = Arrays.copyOf(animatedFrameIds, capacity);
+    alive = Arrays.copyOf(alive, capacity);
+    active = Arrays.copyOf(active, capacity);
+    activeIndices = Arrays.copyOf(activeIndices, capacity);
+    free = Arrays.copyOf(free, capacity);
+  }
+
+  /**
+   * @return Number of animations currently running
+   */
+  public int getAnimationCount() {
+    int count = 0;
+    for (int i = 0; i < activeCount; i++) {
+      if (alive[active[i]]) count++;
+    }
+    return count;
+  }
+
+  /**
+   * @return Number of animations which can run at once without growing the internal arrays
+   */
+  public int getCapacity() {
+    return kinds.length;
+  }
+
+  /**
+   * Moves a value from one point to another during a fixed amount of time.
+   * @param animatable Receiver of the values
+   * @param channel Channel passed to the receiver
+   * @param from Initial value
+   * @param to Final value
+   * @param duration Duration of the tween in seconds
+   * @param easing Progress curve of the tween
+   * @return Handle of the animation
+   */
+  public int tween(GdxAnimatable animatable, int channel, float from, float to, float duration, Easing easing) {
+    if (duration < 0) throw new IllegalArgumentException("Duration cannot be negative");
+    int slot = start(animatable, channel, TWEEN, from, 0);
+    froms[slot] = from;
+    targets[slot] = to;
+    durations[slot] = duration;
+    elapsed[slot] = 0;
+    easings[slot] = (byte)easing.ordinal();
+    return handle(slot);
+  }
+
+  /**
+   * Pulls a value towards a target by a damped spring.
+   * @param animatable Receiver of the values
+   * @param channel Channel passed to the receiver
+   * @param from Initial value
+   * @param to Value the spring is attached to
+   * @param velocity Initial velocity per second
+   * @param stiffness Force per unit of distance from the target
+   * @param damping Force per unit of velocity against the motion
+   * @param precision Distance from the target at which the spring can come to rest
+   * @return Handle of the animation
+   */
+  public int spring(GdxAnimatable animatable, int channel, float from, float to, float velocity,
+      float stiffness, float damping, float precision) {
+    if (stiffness <= 0) throw new IllegalArgumentException("Stiffness must be a positive value");
+    if (damping < 0) throw new IllegalArgumentException("Damping cannot be negative");
+    if (precision <= 0) throw new IllegalArgumentException("Precision must be a positive value");
+    int slot = start(animatable, channel, SPRING, from, velocity);
+    targets[slot] = to;
+    rates[slot] = stiffness;
+    dampings[slot] = damping;
+    precisions[slot] = precision;
+    return handle(slot);
+  }
+
+  /**
+   * Lets a value in motion slow down at a constant rate until it stops or reaches a bound.
+   * @param animatable Receiver of the values
+   * @param channel Channel passed to the receiver
+   * @param from Initial value, trimmed to the bounds
+   * @param velocity Initial velocity per second
+   * @param deceleration Decrease of velocity per second
+   * @param minimum Lower bound, may be infinite
+   * @param maximum Upper bound, may be infinite
+   * @return Handle of the animation
+   */
+  public int decay(GdxAnimatable animatable, int channel, float from, float velocity, float deceleration,
+      float minimum, float maximum) {
+    if (deceleration <= 0) throw new IllegalArgumentException("Deceleration must be a positive value");
+    if (minimum > maximum) throw new IllegalArgumentException("Minimum cannot be higher than maximum");
+    int slot = start(animatable, channel, DECAY, Math.min(maximum, Math.max(minimum, from)), velocity);
+    rates[slot] = deceleration;
+    minimums[slot] = minimum;
+    maximums[slot] = maximum;
+    return handle(slot);
+  }
+
+  /**
+   * Accelerates a value towards a target at a constant rate, starting with the given velocity,
+   * which may point away from the target. The value is kept within bounds on the way.
+   * @param animatable Receiver of the values
+   * @param channel Channel passed to the receiver
+   * @param from Initial value
+   * @param to Final value
+   * @param velocity Initial velocity per second
+   * @param acceleration Increase of velocity per second
+   * @param minimum Lower bound, may be infinite
+   * @param maximum Upper bound, may be infinite
+   * @return Handle of the animation
+   */
+  public int accelerate(GdxAnimatable animatable, int channel, float from, float to, float velocity,
+      float acceleration, float minimum, float maximum) {
+    float pivot = to > from ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+    return accelerate(animatable, channel, from, to, pivot, velocity, acceleration, minimum, maximum);
+  }
+
+  /**
+   * Accelerates a value away from a pivot at a constant rate, until it reaches one of the bounds.
+   * The direction of acceleration changes whenever the value crosses the pivot.
+   * @param animatable Receiver of the values
+   * @param channel Channel passed to the receiver
+   * @param from Initial value
+   * @param pivot Value to accelerate away from, a value equal to it accelerates downwards
+   * @param velocity Initial velocity per second
+   * @param acceleration Increase of velocity per second
+   * @param minimum Lower bound, must be finite
+   * @param maximum Upper bound, must be finite
+   * @return Handle of the animation
+   */
+  public int accelerateAway(GdxAnimatable animatable, int channel, float from, float pivot, float velocity,
+      float acceleration, float minimum, float maximum) {
+    if (Float.isInfinite(minimum) || Float.isInfinite(maximum))
+      throw new IllegalArgumentException("Bounds must be finite");
+    return accelerate(animatable, channel, from, Float.NaN, pivot, velocity, acceleration, minimum, maximum);
+  }
+
+  private int accelerate(GdxAnimatable animatable, int channel, float from, float to, float pivot,
+      float velocity, float acceleration, float minimum, float maximum) {
+    if (acceleration <= 0) throw new IllegalArgumentException("Acceleration must be a positive value");
+    if (minimum > maximum) throw new IllegalArgumentException("Minimum cannot be higher than maximum");
+    int slot = start(animatable, channel, ACCELERATION, from, velocity);
+    targets[slot] = to;
+    pivots[slot] = pivot;
+    rates[slot] = acceleration;
+    minimums[slot] = minimum;
+    maximums[slot] = maximum;
+    return handle(slot);
+  }
+
+  /**
+   * Stops an animation without reporting its final value.
+   * @param handle Handle of the animation, invalid or {@link #NONE} handles are ignored
+   * @return {@link #NONE}, so a stored handle can be cleared by assigning the result
+   */
+  public int cancel(int handle) {
+    int slot = resolve(handle);
+    if (slot >= 0) kill(slot);
+    return NONE;
+  }
+
+  public boolean isRunning(int handle) {
+    return resolve(handle) >= 0;
+  }
+
+  /**
+   * Tells whether an animation may have changed a component or anything within it during
+   * the current frame, including animations which finished during the frame.
+   * @param component Component to be tested
+   * @return Whether any animatable within the component has been animated during the current frame
+   */
+  public boolean isAnimatingWithin(GdxComponent component) {
+    if (animatedFrameId != Gdx.graphics.getFrameId()) return false;
+    for (int i = 0; i < animated.size(); i++) {
+      GdxAnimatable animatable = animated.get(i);
+      if (animatable instanceof GdxComponent && ComponentUtils.isWithin((GdxComponent)animatable, component)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param handle Handle of a running animation
+   * @return Last value of the animation
+   */
+  public float getValue(int handle) {
+    int slot = resolve(handle);
+    if (slot < 0) throw new IllegalArgumentException("Animation is not running");
+    return values[slot];
+  }
+
+  /**
+   * @param handle Handle of a running animation
+   * @return Last velocity of the animation per second
+   */
+  public float getVelocity(int handle) {
+    int slot = resolve(handle);
+    if (slot < 0) throw new IllegalArgumentException("Animation is not running");
+    return velocities[slot];
+  }
+
+  private int start(GdxAnimatable animatable, int channel, byte kind, float value, float velocity) {
+    if (animatable == null) throw new NullPointerException("Animatable cannot be null");
+    int slot;
+    if (freeCount > 0) {
+      slot = free[--freeCount];
+    } else {
+      if (usedSlots == kinds.length) grow();
+      slot = usedSlots++;
+    }
+    kinds[slot] = kind;
+    animatables[slot] = animatable;
+    channels[slot] = channel;
+    animatedFrameIds[slot] = -1;
+    values[slot] = value;
+    previousValues[slot] = value;
+    velocities[slot] = velocity;
+    alive[slot] = true;
+    activeIndices[slot] = activeCount;
+    active[activeCount++] = slot;
+    if (!scheduled) makeDirty();
+    return slot;
+  }
+
+  private int handle(int slot) {
+    return generations[slot] << SLOT_BITS | slot;
+  }
+
+  private int resolve(int handle) {
+    if (handle < 0) return -1;
+    int slot = handle & SLOT_MASK;
+    if (slot >= usedSlots || !alive[slot] || generations[slot] != handle >>> SLOT_BITS) return -1;
+    return slot;
+  }
+
+  private void kill(int slot) {
+    alive[slot] = false;
+    animatables[slot] = null;
+    generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+    //While stepping, dead slots are removed from the active list after the loop
+    if (!stepping) {
+      int index = activeIndices[slot];
+      int last = active[--activeCount];
+      active[index] = last;
+      activeIndices[last] = index;
+      free[freeCount++] = slot;
+    }
+  }
+
+  private void compact() {
+    int count = 0;
+    for (int i = 0; i < activeCount; i++) {
+      int slot = active[i];
+      if (alive[slot]) {
+        activeIndices[slot] = count;
+        active[count++] = slot;
+      } else {
+        free[freeCount++] = slot;
+      }
+    }
+    activeCount = count;
+  }
+
+  @Override
+  public GdxMainFrame getFrame() {
+    return frame;
+  }
+
+  @Override
+  public void makeDirty() {
+    scheduled = true;
+    frame.reportDirty(this);
+  }
+
+  @Override
+  public void step(float delay) {
+    scheduled = false;
+    stepping = true;
+    long frameId = Gdx.graphics.getFrameId();
+    if (frameId != animatedFrameId) {
+      animated.clear();
+      animatedFrameId = frameId;
+    }
+    //Animations started by the callbacks are appended and first advanced during the next frame
+    int count = activeCount;
+    for (int i = 0; i < count; i++) {
+      int slot = active[i];
+      if (!alive[slot]) continue;
+      previousValues[slot] = values[slot];
+      boolean finished;
+      switch (kinds[slot]) {
+        case TWEEN:
+          finished = stepTween(slot, delay);
+          break;
+        case SPRING:
+          finished = stepSpring(slot, delay);
+          break;
+        case DECAY:
+          finished = stepDecay(slot, delay);
+          break;
+        default:
+          finished = stepAcceleration(slot, delay);
+          break;
+      }
+      GdxAnimatable animatable = animatables[slot];
+      int channel = channels[slot];
+      //Fixed timestep may step an animation several times per frame
+      if (animatedFrameIds[slot] != frameId) {
+        animatedFrameIds[slot] = frameId;
+        animated.add(animatable);
+      }
+      animatable.onAnimate(channel, values[slot], velocities[slot]);
+      //The animatable may have cancelled the animation in the meantime
+      if (finished && alive[slot]) {
+        float value = values[slot];
+        kill(slot);
+        animatable.onAnimationFinished(channel, value);
+      }
+    }
+    stepping = false;
+    compact();
+    if (activeCount > 0 && !scheduled) makeDirty();
+  }
+
+  /**
+   * Reports values interpolated between the last two steps to all running animations.
+   * Used by {@link GdxMainFrame} when stepping at a fixed timestep, so motion stays
+   * smooth even though the number of steps per frame varies. Finished animations
+   * have already reported their final value.
+   * @param alpha Fraction of a step passed since the last step, between 0 and 1
+   */
+  public void interpolate(float alpha) {
+    stepping = true;
+    int count = activeCount;
+    for (int i = 0; i < count; i++) {
+      int slot = active[i];
+      if (!alive[slot]) continue;
+      float previous = previousValues[slot];
+      animatables[slot].onAnimate(channels[slot], previous + (values[slot] - previous) * alpha, velocities[slot]);
+    }
+    stepping = false;
+    compact();
+  }
+
+  private boolean stepTween(int slot, float delay) {
+    float previous = values[slot];
+    float time = elapsed[slot] += delay;
+    boolean finished = time >= durations[slot];
+    if (finished) {
+      values[slot] = targets[slot];
+    } else {
+      float from = froms[slot];
+      values[slot] = from + (targets[slot] - from) * ease(easings[slot], time / durations[slot]);
+    }
+    if (delay > 0) velocities[slot] = (values[slot] - previous) / delay;
+    return finished;
+  }
+
+  private boolean stepSpring(int slot, float delay) {
+    float value = values[slot], velocity = velocities[slot], target = targets[slot];
+    float stiffness = rates[slot], damping = dampings[slot];
+    //Fixed sub-steps keep stiff springs stable regardless of frame rate
+    float remaining = delay;
+    while (remaining > 0) {
+      float step = Math.min(remaining, SPRING_STEP);
+      velocity += (stiffness * (target - value) - damping * velocity) * step;
+      value += velocity * step;
+      remaining -= step;
+    }
+    float precision = precisions[slot];
+    boolean finished = Math.abs(target - value) <= precision && Math.abs(velocity) <= precision * REST_FRAME_RATE;
+    if (finished) {
+      value = target;
+      velocity = 0;
+    }
+    values[slot] = value;
+    velocities[slot] = velocity;
+    return finished;
+  }
+
+  private boolean stepDecay(int slot, float delay) {
+    float velocity = velocities[slot];
+    float deceleration = rates[slot] * delay;
+    if (velocity > 0) {
+      velocity -= deceleration;
+      if (velocity < 0) velocity = 0;
+    } else {
+      velocity += deceleration;
+      if (velocity > 0) velocity = 0;
+    }
+    velocities[slot] = velocity;
+    if (velocity == 0) return true;
+    float value = values[slot] + velocity * delay;
+    boolean finished = false;
+    if (value <= minimums[slot] && velocity < 0) {
+      value = minimums[slot];
+      finished = true;
+    } else if (value >= maximums[slot] && velocity > 0) {
+      value = maximums[slot];
+      finished = true;
+    }
+    if (finished) velocities[slot] = 0;
+    values[slot] = value;
+    return finished;
+  }
+
+  private boolean stepAcceleration(int slot, float delay) {
+    float value = values[slot], velocity = velocities[slot];
+    float target = targets[slot], pivot = pivots[slot];
+    float acceleration = rates[slot] * delay;
+    velocity += value > pivot ? acceleration : -acceleration;
+    value += velocity * delay;
+    boolean finished = false;
+    //Target is NaN when accelerating away from the pivot
+    boolean targeted = target == target;
+    if (targeted && (pivot < target ? value >= target : value <= target)) {
+      value = target;
+      finished = true;
+    } else if (value <= minimums[slot]) {
+      value = minimums[slot];
+      finished = !targeted;
+    } else if (value >= maximums[slot]) {
+      value = maximums[slot];
+      finished = !targeted;
+    }
+    values[slot] = value;
+    velocities[slot] = finished ? 0 : velocity;
+    return finished;
+  }
+
+  private static float ease(int easing, float t) {
+    switch (easing) {
+      case 1: //QUAD_IN
+        return t * t;
+      case 2: //QUAD_OUT
+        return t * (2 - t);
+      case 3: //QUAD_IN_OUT
+        return t < 0.5f ? 2 * t * t : 1 - 2 * (1 - t) * (1 - t);
+      case 4: //CUBIC_IN
+        return t * t * t;
+      case 5: //CUBIC_OUT
+        t = 1 - t;
+        return 1 - t * t * t;
+      case 6: //CUBIC_IN_OUT
+        if (t < 0.5f) return 4 * t * t * t;
+        t = 1 - t;
+        return 1 - 4 * t * t * t;
+      case 7: //SINE_IN_OUT
+        return (float)(0.5 - 0.5 * Math.cos(Math.PI * t));
+      default:
+        return t;
+    }
+  }
+}
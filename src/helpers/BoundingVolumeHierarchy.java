@@ -0,0 +1,527 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.Ray;
+
+import components.bounds.GdxBoundingShape;
+import components.interfaces.GdxContainer;
+
+/**
+ * Dynamic tree of axis aligned boxes enclosing bounding shapes of 3D components, used to find
+ * shapes hit by a picking ray without testing each of them. Owned by
+ * {@link components.GdxMainFrame GdxMainFrame}.
+ * <p>
+ * Every shape is a leaf of the tree, enclosed by a box somewhat larger than the shape, so moving
+ * it a little only requires checking it's still enclosed. Leaves are inserted next to leaves whose
+ * common box grows the least and the tree is kept balanced by rotations, so both updates and
+ * ray casts take logarithmic time in the number of shapes.
+ * <p>
+ * Results of a {@link #cast(Ray) cast} are kept until the tree or the ray changes, so propagating
+ * a single input event through nested containers only traverses the tree once. Owners of shapes which
+ * change often may {@link #markStale(Owner) mark} them stale instead of updating them, so they're
+ * refitted in a batch before the next cast.
+ *
+ */
+public class BoundingVolumeHierarchy {
+  /**
+   * Proxy which never refers to a shape
+   */
+  public static final int NONE = -1;
+
+  /**
+   * Owner of indexed shapes, which refits them once they're needed by a cast.
+   */
+  public interface Owner {
+    /**
+     * Brings the shapes of the owner up to date and {@link BoundingVolumeHierarchy#update(int, GdxBoundingShape) updates}
+     * their proxies.
+     */
+    public void refit();
+  }
+
+  private static final int DEFAULT_CAPACITY = 64; //Nodes
+  private static final float MARGIN = 0.1f; //Of the shape size, added on every side
+
+  private float[] bounds; //Minimum and maximum of x, y and z per node
+  private int[] parents, children1, children2, heights;
+  private GdxBoundingShape[] shapes;
+  private int[] hitStamps;
+  private float[] hits; //Intersection x, y and z per leaf
+  private int[] hitLeaves = new int[16];
+  private int hitCount = 0;
+  private final ArrayList<Owner> staleOwners = new ArrayList<Owner>();
+  private final HashMap<GdxContainer, int[]> indexedComponents = new HashMap<GdxContainer, int[]>();
+  private int root = NONE, free = NONE;
+  private int usedNodes = 0, shapeCount = 0;
+  private int[] stack = new int[64];
+  private final Vector3 min = new Vector3(), max = new Vector3(), intersection = new Vector3();
+  private int castStamp = 0;
+  private boolean castValid = false;
+  private float originX, originY, originZ, directionX, directionY, directionZ;
+  private int testedNodes = 0, testedShapes = 0;
+
+  public BoundingVolumeHierarchy(int capacity) {
+    if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+    bounds = new float[capacity * 6];
+    parents = new int[capacity];
+    children1 = new int[capacity];
+    children2 = new int[capacity];
+    heights = new int[capacity];
+    shapes = new GdxBoundingShape[capacity];
+    hitStamps = new int[capacity];
+    hits = new float[capacity * 3];
+  }
+
+  public BoundingVolumeHierarchy() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Adds a shape to the tree.
+   * @param shape Shape to be added
+   * @return Proxy identifying the shape until it's {@link #remove(int) removed}
+   */
+  public int insert(GdxBoundingShape shape) {
+    if (shape == null) throw new NullPointerException("Shape cannot be null");
+    int leaf = allocate();
+    shapes[leaf] = shape;
+    heights[leaf] = 0;
+    fatten(leaf, shape);
+    insertLeaf(leaf);
+    shapeCount++;
+    castValid = false;
+    return leaf;
+  }
+
+  /**
+   * Removes a shape from the tree.
+   * @param proxy Proxy of the shape
+   */
+  public void remove(int proxy) {
+    checkProxy(proxy);
+    removeLeaf(proxy);
+    release(proxy);
+    shapeCount--;
+    castValid = false;
+  }
+
+  /**
+   * Refits the tree after a shape has been moved or resized, or replaced by another one.
+   * @param proxy Proxy of the shape
+   * @param shape Current shape
+   * @return Whether the shape has left its enclosing box, so it had to be inserted again
+   */
+  public boolean update(int proxy, GdxBoundingShape shape) {
+    checkProxy(proxy);
+    if (shape == null) throw new NullPointerException("Shape cannot be null");
+    shapes[proxy] = shape;
+    castValid = false;
+    shape.getMin(min);
+    shape.getMax(max);
+    int offset = proxy * 6;
+    if (min.x >= bounds[offset] && min.y >= bounds[offset + 1] && min.z >= bounds[offset + 2]
+        && max.x <= bounds[offset + 3] && max.y <= bounds[offset + 4] && max.z <= bounds[offset + 5]) {
+      return false;
+    }
+    removeLeaf(proxy);
+    fatten(proxy, shape);
+    insertLeaf(proxy);
+    return true;
+  }
+
+  public GdxBoundingShape getShape(int proxy) {
+    checkProxy(proxy);
+    return shapes[proxy];
+  }
+
+  public int getShapeCount() {
+    return shapeCount;
+  }
+
+  /**
+   * Defers refitting shapes of an owner until the next {@link #cast(Ray) cast}, so shapes changed many
+   * times between casts are only refitted once. Owners should mark themselves once until they're refitted.
+   * @param owner Owner of changed shapes
+   */
+  public void markStale(Owner owner) {
+    if (owner == null) throw new NullPointerException("Owner cannot be null");
+    staleOwners.add(owner);
+  }
+
+  /**
+   * Counts a component whose shapes are in the tree as a child of its container, so containers holding
+   * only indexed components can be picked from the hits alone.
+   * @param container Container of the component, or NULL if it has none
+   */
+  public void addIndexedComponent(GdxContainer container) {
+    if (container == null) return;
+    int[] count = indexedComponents.get(container);
+    if (count == null) {
+      count = new int[1];
+      indexedComponents.put(container, count);
+    }
+    count[0]++;
+  }
+
+  /**
+   * Stops counting a component added by {@link #addIndexedComponent(GdxContainer)}.
+   * @param container Container the component has been counted in
+   */
+  public void removeIndexedComponent(GdxContainer container) {
+    if (container == null) return;
+    int[] count = indexedComponents.get(container);
+    if (count == null) throw new IllegalArgumentException("No components indexed in the container");
+    if (--count[0] == 0) indexedComponents.remove(container);
+  }
+
+  /**
+   * @param container Container
+   * @return Number of components in the container whose shapes are in the tree
+   */
+  public int getIndexedComponentCount(GdxContainer container) {
+    int[] count = indexedComponents.get(container);
+    return count == null ? 0 : count[0];
+  }
+
+  /**
+   * @return Number of levels of the tree, 0 if it's empty
+   */
+  public int getHeight() {
+    return root == NONE ? 0 : heights[root] + 1;
+  }
+
+  /**
+   * Finds all shapes hit by a ray, after refitting shapes marked stale. Does nothing else if the ray
+   * and the tree are the same as during the previous cast.
+   * @param ray Ray in frame coordinates
+   */
+  public void cast(Ray ray) {
+    refitStale();
+    Vector3 origin = ray.origin, direction = ray.direction;
+    if (castValid && origin.x == originX && origin.y == originY && origin.z == originZ
+        && direction.x == directionX && direction.y == directionY && direction.z == directionZ) return;
+    originX = origin.x;
+    originY = origin.y;
+    originZ = origin.z;
+    directionX = direction.x;
+    directionY = direction.y;
+    directionZ = direction.z;
+    castValid = true;
+    castStamp++;
+    testedNodes = testedShapes = hitCount = 0;
+    if (root == NONE) return;
+    float inverseX = 1 / direction.x, inverseY = 1 / direction.y, inverseZ = 1 / direction.z;
+    int size = 0;
+    stack[size++] = root;
+    while (size > 0) {
+      int node = stack[--size];
+      testedNodes++;
+      if (!intersects(node, inverseX, inverseY, inverseZ)) continue;
+      if (shapes[node] != null) {
+        testedShapes++;
+        intersection.set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        if (shapes[node].intersectRay(ray, intersection)) {
+          hitStamps[node] = castStamp;
+          hits[node * 3] = intersection.x;
+          hits[node * 3 + 1] = intersection.y;
+          hits[node * 3 + 2] = intersection.z;
+          if (hitCount == hitLeaves.length) hitLeaves = Arrays.copyOf(hitLeaves, hitCount * 2);
+          hitLeaves[hitCount++] = node;
+        }
+      } else {
+        if (size + 2 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[size++] = children1[node];
+        stack[size++] = children2[node];
+      }
+    }
+  }
+
+  /**
+   * @param proxy Proxy of a shape
+   * @param intersection Vector to store the intersection of the shape with the last cast ray
+   * @return Whether the shape has been hit by the last cast ray
+   */
+  public boolean getIntersection(int proxy, Vector3 intersection) {
+    checkProxy(proxy);
+    if (!castValid || hitStamps[proxy] != castStamp) return false;
+    intersection.set(hits[proxy * 3], hits[proxy * 3 + 1], hits[proxy * 3 + 2]);
+    return true;
+  }
+
+  /**
+   * @return Number of shapes hit by the last cast ray
+   */
+  public int getHitCount() {
+    return castValid ? hitCount : 0;
+  }
+
+  /**
+   * @param index Index of a hit, from 0 to {@link #getHitCount()} - 1
+   * @return Proxy of the shape hit by the last cast ray
+   */
+  public int getHit(int index) {
+    if (index < 0 || index >= getHitCount()) throw new IndexOutOfBoundsException("Invalid hit: " + index);
+    return hitLeaves[index];
+  }
+
+  /**
+   * @return Number of enclosing boxes tested by the last cast
+   */
+  public int getTestedNodes() {
+    return testedNodes;
+  }
+
+  /**
+   * @return Number of shapes tested by the last cast
+   */
+  public int getTestedShapes() {
+    return testedShapes;
+  }
+
+  private void refitStale() {
+    //Owners may be marked again while refitting, so the ones refitted are removed afterwards
+    int size = staleOwners.size();
+    if (size == 0) return;
+    for (int i = 0; i < size; i++) {
+      staleOwners.get(i).refit();
+    }
+    staleOwners.subList(0, size).clear();
+  }
+
+  private boolean intersects(int node, float inverseX, float inverseY, float inverseZ) {
+    int offset = node * 6;
+    float near = 0, far = Float.POSITIVE_INFINITY;
+    float t1 = (bounds[offset] - originX) * inverseX, t2 = (bounds[offset + 3] - originX) * inverseX;
+    near = Math.max(near, Math.min(t1, t2));
+    far = Math.min(far, Math.max(t1, t2));
+    t1 = (bounds[offset + 1] - originY) * inverseY;
+    t2 = (bounds[offset + 4] - originY) * inverseY;
+    near = Math.max(near, Math.min(t1, t2));
+    far = Math.min(far, Math.max(t1, t2));
+    t1 = (bounds[offset + 2] - originZ) * inverseZ;
+    t2 = (bounds[offset + 5] - originZ) * inverseZ;
+    near = Math.max(near, Math.min(t1, t2));
+    far = Math.min(far, Math.max(t1, t2));
+    return near <= far;
+  }
+
+  private void checkProxy(int proxy) {
+    if (proxy < 0 || proxy >= usedNodes || shapes[proxy] == null)
+      throw new IllegalArgumentException("Invalid proxy: " + proxy);
+  }
+
+  private void fatten(int leaf, GdxBoundingShape shape) {
+    shape.getMin(min);
+    shape.getMax(max);
+    float marginX = (max.x - min.x) * MARGIN, marginY = (max.y - min.y) * MARGIN, marginZ = (max.z - min.z) * MARGIN;
+    int offset = leaf * 6;
+    bounds[offset] = min.x - marginX;
+    bounds[offset + 1] = min.y - marginY;
+    bounds[offset + 2] = min.z - marginZ;
+    bounds[offset + 3] = max.x + marginX;
+    bounds[offset + 4] = max.y + marginY;
+    bounds[offset + 5] = max.z + marginZ;
+  }
+
+  private int allocate() {
+    int node;
+    if (free != NONE) {
+      node = free;
+      free = parents[node];
+    } else {
+      if (usedNodes == parents.length) grow();
+      node = usedNodes++;
+    }
+    parents[node] = children1[node] = children2[node] = NONE;
+    heights[node] = 0;
+    hitStamps[node] = 0;
+    return node;
+  }
+
+  private void release(int node) {
+    shapes[node] = null;
+    parents[node] = free;
+    free = node;
+  }
+
+  private void grow() {
+    int capacity = parents.length * 2;
+    bounds = Arrays.copyOf(bounds, capacity * 6);
+    parents = Arrays.copyOf(parents, capacity);
+    children1 = Arrays.copyOf(children1, capacity);
+    children2 = Arrays.copyOf(children2, capacity);
+    heights = Arrays.copyOf(heights, capacity);
+    shapes = Arrays.copyOf(shapes, capacity);
+    hitStamps = Arrays.copyOf(hitStamps, capacity);
+    hits = Arrays.copyOf(hits, capacity * 3);
+  }
+
+  private boolean isLeaf(int node) {
+    return children1[node] == NONE;
+  }
+
+  private float area(int node) {
+    int offset = node * 6;
+    float x = bounds[offset + 3] - bounds[offset];
+    float y = bounds[offset + 4] - bounds[offset + 1];
+    float z = bounds[offset + 5] - bounds[offset + 2];
+    return x * y + y * z + z * x;
+  }
+
+  private float unionArea(int node1, int node2) {
+    int offset1 = node1 * 6, offset2 = node2 * 6;
+    float x = Math.max(bounds[offset1 + 3], bounds[offset2 + 3]) - Math.min(bounds[offset1], bounds[offset2]);
+    float y = Math.max(bounds[offset1 + 4], bounds[offset2 + 4]) - Math.min(bounds[offset1 + 1], bounds[offset2 + 1]);
+    float z = Math.max(bounds[offset1 + 5], bounds[offset2 + 5]) - Math.min(bounds[offset1 + 2], bounds[offset2 + 2]);
+    return x * y + y * z + z * x;
+  }
+
+  private void setUnion(int node, int node1, int node2) {
+    int offset = node * 6, offset1 = node1 * 6, offset2 = node2 * 6;
+    for (int i = 0; i < 3; i++) {
+      bounds[offset + i] = Math.min(bounds[offset1 + i], bounds[offset2 + i]);
+      bounds[offset + 3 + i] = Math.max(bounds[offset1 + 3 + i], bounds[offset2 + 3 + i]);
+    }
+  }
+
+  private void refit(int node) {
+    int child1 = children1[node], child2 = children2[node];
+    heights[node] = 1 + Math.max(heights[child1], heights[child2]);
+    setUnion(node, child1, child2);
+  }
+
+  private void insertLeaf(int leaf) {
+    if (root == NONE) {
+      root = leaf;
+      parents[leaf] = NONE;
+      return;
+    }
+    //Descend towards the sibling whose common box costs the least
+    int index = root;
+    while (!isLeaf(index)) {
+      int child1 = children1[index], child2 = children2[index];
+      float area = area(index);
+      float combinedArea = unionArea(index, leaf);
+      float cost = 2 * combinedArea;
+      float inheritanceCost = 2 * (combinedArea - area);
+      float cost1 = unionArea(leaf, child1) + inheritanceCost;
+      if (!isLeaf(child1)) cost1 -= area(child1);
+      float cost2 = unionArea(leaf, child2) + inheritanceCost;
+      if (!isLeaf(child2)) cost2 -= area(child2);
+      if (cost < cost1 && cost < cost2) break;
+      index = cost1 < cost2 ? child1 : child2;
+    }
+    int sibling = index;
+    int oldParent = parents[sibling];
+    int newParent = allocate();
+    parents[newParent] = oldParent;
+    children1[newParent] = sibling;
+    children2[newParent] = leaf;
+    parents[sibling] = newParent;
+    parents[leaf] = newParent;
+    refit(newParent);
+    if (oldParent == NONE) {
+      root = newParent;
+    } else if (children1[oldParent] == sibling) {
+      children1[oldParent] = newParent;
+    } else {
+      children2[oldParent] = newParent;
+    }
+    for (index = oldParent; index != NONE; index = parents[index]) {
+      index = balance(index);
+      refit(index);
+    }
+  }
+
+  private void removeLeaf(int leaf) {
+    if (leaf == root) {
+      root = NONE;
+      return;
+    }
+    int parent = parents[leaf];
+    int grandParent = parents[parent];
+    int sibling = children1[parent] == leaf ? children2[parent] : children1[parent];
+    parents[sibling] = grandParent;
+    //The parent node is a branch, so it has no shape to clear
+    parents[parent] = free;
+    free = parent;
+    if (grandParent == NONE) {
+      root = sibling;
+      return;
+    }
+    if (children1[grandParent] == parent) {
+      children1[grandParent] = sibling;
+    } else {
+      children2[grandParent] = sibling;
+    }
+    for (int index = grandParent; index != NONE; index = parents[index]) {
+      index = balance(index);
+      refit(index);
+    }
+  }
+
+  /**
+   * Rotates a child up if the node is imbalanced.
+   * @return Node which took the place of the given one
+   */
+  private int balance(int a) {
+    if (isLeaf(a) || heights[a] < 2) return a;
+    int b = children1[a], c = children2[a];
+    int balance = heights[c] - heights[b];
+    if (balance > 1) {
+      int f = children1[c], g = children2[c];
+      replaceChild(a, c);
+      children1[c] = a;
+      if (heights[f] > heights[g]) {
+        children2[c] = f;
+        children2[a] = g;
+        parents[g] = a;
+      } else {
+        children2[c] = g;
+        children2[a] = f;
+        parents[f] = a;
+      }
+      refit(a);
+      refit(c);
+      return c;
+    }
+    if (balance < -1) {
+      int d = children1[b], e = children2[b];
+      replaceChild(a, b);
+      children1[b] = a;
+      if (heights[d] > heights[e]) {
+        children2[b] = d;
+        children1[a] = e;
+        parents[e] = a;
+      } else {
+        children2[b] = e;
+        children1[a] = d;
+        parents[d] = a;
+      }
+      refit(a);
+      refit(b);
+      return b;
+    }
+    return a;
+  }
+
+  /**
+   * Puts a child in place of its parent, which becomes the child's child.
+   */
+  private void replaceChild(int parent, int child) {
+    int grandParent = parents[parent];
+    parents[child] = grandParent;
+    parents[parent] = child;
+    if (grandParent == NONE) {
+      root = child;
+    } else if (children1[grandParent] == parent) {
+      children1[grandParent] = child;
+    } else {
+      children2[grandParent] = child;
+    }
+  }
+}
@@ -31,6 +31,19 @@ public class ComponentUtils {
     }
   }
   
+  /**
+   * @param component Component to be tested
+   * @param ancestor Component to be searched
+   * @return Whether the component is the ancestor itself or lies anywhere within it
+   */
+  public static boolean isWithin(GdxComponent component, GdxComponent ancestor) {
+    while (component != null) {
+      if (component == ancestor) return true;
+      component = component.getContainer();
+    }
+    return false;
+  }
+  
   /**
    * Finds a drag target for component if it exists. Target must lie at given 
    * coordinates and have to accept the component. Targets deeper within component
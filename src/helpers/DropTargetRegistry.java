@@ -0,0 +1,244 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.badlogic.gdx.math.Rectangle;
+import components.GdxLayerContainer;
+import components.GdxMainFrame;
+import components.interfaces.GdxComponent;
+import components.interfaces.GdxDragDropComponent;
+import components.interfaces.GdxDragTarget;
+
+/**
+ * Drop targets registered with a frame, indexed by their area within the frame, so a target
+ * under a dragged component is found without scanning the containers. Owned by
+ * {@link components.GdxMainFrame GdxMainFrame}.
+ * <p>
+ * Areas are kept in a uniform grid, which is rebuilt once any registered target, or any
+ * of its containers, is moved or resized. Areas are clipped by the areas of the containers, so
+ * targets scrolled out of view are not found, and targets within disabled containers or within
+ * layers of a {@link GdxLayerContainer} other than the active one are skipped, the same way
+ * {@link ComponentUtils#findDragTarget(GdxDragDropComponent, float, float)} skips them. Results of {@link GdxDragTarget#accept(GdxComponent) accept}
+ * are remembered for each dragged component until its drag ends, so each target is asked only once.
+ * <p>
+ * Dragged components look for registered targets first, and search the containers for targets
+ * which are not registered only if no registered one is found.
+ *
+ */
+public class DropTargetRegistry {
+  private static final float DEFAULT_CELL_SIZE = 64; //Canvas units
+  private static final int MAX_CELLS_PER_TARGET = 64;
+
+  private final GdxMainFrame frame;
+  private final float cellSize;
+  private final HashMap<GdxComponent, Entry> entries = new HashMap<GdxComponent, Entry>();
+  private final HashMap<Long, ArrayList<Entry>> cells = new HashMap<Long, ArrayList<Entry>>();
+  private final ArrayList<Entry> largeEntries = new ArrayList<Entry>(); //Spanning too many cells
+  private final HashMap<GdxComponent, HashMap<GdxComponent, Boolean>> acceptances =
+      new HashMap<GdxComponent, HashMap<GdxComponent, Boolean>>();
+  private final Rectangle clip = new Rectangle();
+  private boolean indexValid = false;
+  private int registrations = 0;
+  private int rebuilds = 0, acceptCalls = 0;
+
+  public DropTargetRegistry(GdxMainFrame frame, float cellSize) {
+    if (cellSize <= 0) throw new IllegalArgumentException("Cell size must be positive");
+    this.frame = frame;
+    this.cellSize = cellSize;
+  }
+
+  public DropTargetRegistry(GdxMainFrame frame) {
+    this(frame, DEFAULT_CELL_SIZE);
+  }
+
+  /**
+   * Registers a drop target. The target is only found while it's within the frame.
+   * @param target Component implementing {@link GdxDragTarget}
+   */
+  public void register(GdxComponent target) {
+    if (target == null) throw new NullPointerException("Target cannot be null");
+    if (!(target instanceof GdxDragTarget))
+      throw new IllegalArgumentException("Component is not a drag target: " + target);
+    if (entries.containsKey(target)) return;
+    entries.put(target, new Entry(target, registrations++));
+    indexValid = false;
+  }
+
+  public boolean unregister(GdxComponent target) {
+    if (entries.remove(target) == null) return false;
+    indexValid = false;
+    return true;
+  }
+
+  public boolean isRegistered(GdxComponent target) {
+    return entries.containsKey(target);
+  }
+
+  public int getTargetCount() {
+    return entries.size();
+  }
+
+  /**
+   * Makes the index be rebuilt before the next search if the component is a registered target.
+   * Called whenever a drag target is moved or resized, or moved to another container.
+   * @param target Component which has changed
+   */
+  public void invalidate(GdxComponent target) {
+    if (indexValid && entries.containsKey(target)) indexValid = false;
+  }
+
+  /**
+   * Finds the target which lies at the given location and accepts the dragged component.
+   * Targets deeper within the component structure are preferred, targets registered later
+   * are preferred among those at the same depth.
+   * @param draggable Component to find a target for
+   * @param x Coordinate relative to frame
+   * @param y Coordinate relative to frame
+   * @return Drag target for the component, or NULL if there is none
+   */
+  public GdxComponent find(GdxDragDropComponent draggable, float x, float y) {
+    if (!indexValid) rebuild();
+    Entry best = findWithin(cells.get(getKey(getCell(x), getCell(y))), draggable, x, y, null);
+    best = findWithin(largeEntries, draggable, x, y, best);
+    return best == null ? null : best.target;
+  }
+
+  /**
+   * Forgets which targets accepted the component. Called whenever a component stopped being dragged.
+   * @param draggable Component which stopped being dragged
+   */
+  public void endDrag(GdxDragDropComponent draggable) {
+    acceptances.remove(draggable);
+  }
+
+  /**
+   * @return Number of times the index has been rebuilt
+   */
+  public int getRebuilds() {
+    return rebuilds;
+  }
+
+  /**
+   * @return Number of times a target has been asked to accept a dragged component
+   */
+  public int getAcceptCalls() {
+    return acceptCalls;
+  }
+
+  private Entry findWithin(ArrayList<Entry> candidates, GdxDragDropComponent draggable, float x, float y, Entry best) {
+    if (candidates == null) return best;
+    for (int i = 0; i < candidates.size(); i++) {
+      Entry entry = candidates.get(i);
+      if (best != null && (entry.depth < best.depth || entry.depth == best.depth && entry.order < best.order)) continue;
+      GdxComponent target = entry.target;
+      if (!entry.area.contains(x, y) || !target.isEnabled() || target.getFrame() != frame) continue;
+      if (!reachable(entry)) continue;
+      //Neither the dragged component nor anything within it can be a target
+      if (ComponentUtils.isWithin(target, draggable)) continue;
+      if (!target.insideActiveArea(x - entry.area.x - target.getInteractiveAreaExtension(),
+          y - entry.area.y - target.getInteractiveAreaExtension())) continue;
+      if (accepts(target, draggable)) best = entry;
+    }
+    return best;
+  }
+
+  /**
+   * @return Whether the containers of the target would let a search through them reach it
+   */
+  private static boolean reachable(Entry entry) {
+    GdxComponent child = entry.target;
+    for (int i = 0; i < entry.ancestors.size(); i++) {
+      GdxComponent container = entry.ancestors.get(i);
+      if (!container.isEnabled()) return false;
+      if (container instanceof GdxLayerContainer && ((GdxLayerContainer)container).getActiveLayer() != child) return false;
+      child = container;
+    }
+    return true;
+  }
+
+  private boolean accepts(GdxComponent target, GdxDragDropComponent draggable) {
+    HashMap<GdxComponent, Boolean> accepted = acceptances.get(draggable);
+    if (accepted == null) {
+      accepted = new HashMap<GdxComponent, Boolean>();
+      acceptances.put(draggable, accepted);
+    }
+    Boolean result = accepted.get(target);
+    if (result == null) {
+      acceptCalls++;
+      result = ((GdxDragTarget)target).accept(draggable);
+      accepted.put(target, result);
+    }
+    return result;
+  }
+
+  private void rebuild() {
+    rebuilds++;
+    cells.clear();
+    largeEntries.clear();
+    for (Entry entry : entries.values()) {
+      GdxComponent target = entry.target;
+      if (target.getFrame() != frame) continue;
+      float extension = target.getInteractiveAreaExtension();
+      target.getFrameArea(entry.area);
+      entry.area.set(entry.area.x - extension, entry.area.y - extension,
+          entry.area.width + 2 * extension, entry.area.height + 2 * extension);
+      entry.ancestors.clear();
+      for (GdxComponent container = target.getContainer(); container != null; container = container.getContainer()) {
+        entry.ancestors.add(container);
+        //Only the part within every container can be reached
+        extension = container.getInteractiveAreaExtension();
+        container.getFrameArea(clip);
+        clip.set(clip.x - extension, clip.y - extension, clip.width + 2 * extension, clip.height + 2 * extension);
+        clip(entry.area, clip);
+      }
+      entry.depth = entry.ancestors.size();
+      if (entry.area.width <= 0 || entry.area.height <= 0) continue;
+      int left = getCell(entry.area.x), right = getCell(entry.area.x + entry.area.width);
+      int top = getCell(entry.area.y), bottom = getCell(entry.area.y + entry.area.height);
+      if ((long)(right - left + 1) * (bottom - top + 1) > MAX_CELLS_PER_TARGET) {
+        largeEntries.add(entry);
+        continue;
+      }
+      for (int cellY = top; cellY <= bottom; cellY++) {
+        for (int cellX = left; cellX <= right; cellX++) {
+          long key = getKey(cellX, cellY);
+          ArrayList<Entry> cell = cells.get(key);
+          if (cell == null) {
+            cell = new ArrayList<Entry>();
+            cells.put(key, cell);
+          }
+          cell.add(entry);
+        }
+      }
+    }
+    indexValid = true;
+  }
+
+  private static void clip(Rectangle area, Rectangle clip) {
+    float left = Math.max(area.x, clip.x), right = Math.min(area.x + area.width, clip.x + clip.width);
+    float top = Math.max(area.y, clip.y), bottom = Math.min(area.y + area.height, clip.y + clip.height);
+    area.set(left, top, Math.max(0, right - left), Math.max(0, bottom - top));
+  }
+
+  private int getCell(float coordinate) {
+    return (int)Math.floor(coordinate / cellSize);
+  }
+
+  private static long getKey(int cellX, int cellY) {
+    return (long)cellX << 32 | (cellY & 0xFFFFFFFFL);
+  }
+
+  private static class Entry {
+    public final GdxComponent target;
+    public final int order;
+    public final Rectangle area = new Rectangle(); //Frame coordinates, including the interactive area extension
+    public final ArrayList<GdxComponent> ancestors = new ArrayList<GdxComponent>(); //From the closest container
+    public int depth;
+
+    public Entry(GdxComponent target, int order) {
+      this.target = target;
+      this.order = order;
+    }
+  }
+}
@@ -0,0 +1,372 @@
+package helpers;
+
+import io.GdxGLState;
+import io.GdxPainter;
+import io.GdxPainter2D;
+import io.GdxShaderUniforms;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import components.interfaces.GdxComponent;
+import components.interfaces.GdxUpdatable;
+
+/**
+ * Measures where the time of a frame goes. Owned by {@link components.GdxMainFrame GdxMainFrame},
+ * which reports frame boundaries and {@link GdxUpdatable#step(float) step} calls, while
+ * {@link GdxPainter2D} reports {@link GdxComponent#paint(float, float, GdxPainter) paint} calls.
+ * <p>
+ * Paint times are measured both inclusive and exclusive of the paint times of child components.
+ * All values returned by getters belong to the last finished frame. Components and updatables
+ * which weren't painted or stepped during that frame report zero.
+ * <p>
+ * Enabling or disabling takes effect at the beginning of the next frame. While disabled,
+ * all hooks reduce to a single boolean check.
+ *
+ */
+public class FrameProfiler {
+  private static final int OVERLAY_ENTRIES = 5;
+  private static final float NANOS_PER_SECOND = 1000000000f;
+
+  private boolean enabled = false;
+  private boolean profiling = false;
+  private boolean overlayEnabled = false;
+  private int frame = 0;
+  private long frameStartTime, stepStartTime;
+  private long stepTime, paintTime; //Nanoseconds
+  private long lastFrameTime, lastStepTime, lastPaintTime; //Nanoseconds
+  private int renderCalls, totalRenderCalls, frameBufferSwitches, shaderSwitches;
+  private int stateChanges, skippedStateChanges, uniformUploads;
+  private final IdentityHashMap<Object, TimingEntry> stepEntries = new IdentityHashMap<Object, TimingEntry>();
+  private final IdentityHashMap<Object, TimingEntry> paintEntries = new IdentityHashMap<Object, TimingEntry>();
+  private long[] paintStack = new long[16];
+  private long[] childStack = new long[16];
+  private int paintDepth = 0;
+  private final TimingEntry[] topEntries = new TimingEntry[OVERLAY_ENTRIES];
+  private final StringBuilder overlayText = new StringBuilder();
+  private final Color savedFontColor = new Color();
+
+  /**
+   * Enables or disables profiling starting with the next frame.
+   * @param enabled Whether to profile
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return Whether the current frame is being profiled
+   */
+  public boolean isProfiling() {
+    return profiling;
+  }
+
+  /**
+   * Sets whether the statistics of the last frame should be drawn on top of the frame.
+   * Has no effect unless profiling is enabled.
+   * @param overlayEnabled Whether to draw the overlay
+   */
+  public void setOverlayEnabled(boolean overlayEnabled) {
+    this.overlayEnabled = overlayEnabled;
+  }
+
+  public boolean isOverlayEnabled() {
+    return overlayEnabled;
+  }
+
+  public void frameStarted() {
+    profiling = enabled;
+    if (!profiling) return;
+    frame++;
+    paintDepth = 0;
+    stepTime = paintTime = 0;
+    frameStartTime = TimeUtils.nanoTime();
+  }
+
+  public void frameFinished(GdxPainter painter) {
+    if (!profiling) return;
+    lastFrameTime = TimeUtils.timeSinceNanos(frameStartTime);
+    lastStepTime = stepTime;
+    lastPaintTime = paintTime;
+    if (painter instanceof GdxPainter2D) {
+      GdxPainter2D painter2D = (GdxPainter2D)painter;
+      GdxGLState glState = painter2D.getGLState();
+      renderCalls = painter2D.getRenderCallsPerFrame();
+      totalRenderCalls = painter2D.getTotalRenderCalls();
+      frameBufferSwitches = glState.getFrameBufferSwitchesPerFrame();
+      shaderSwitches = glState.getShaderSwitchesPerFrame();
+      stateChanges = glState.getStateChangesPerFrame();
+      skippedStateChanges = glState.getSkippedStateChangesPerFrame();
+    }
+    uniformUploads = GdxShaderUniforms.getUploadsPerFrame();
+    finishEntries(stepEntries);
+    finishEntries(paintEntries);
+    profiling = false;
+  }
+
+  private void finishEntries(IdentityHashMap<Object, TimingEntry> entries) {
+    Iterator<TimingEntry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      TimingEntry entry = iterator.next();
+      if (entry.frame != frame) {
+        // Entries of removed components would pile up otherwise
+        iterator.remove();
+      } else {
+        entry.finish();
+      }
+    }
+  }
+
+  private TimingEntry getEntry(IdentityHashMap<Object, TimingEntry> entries, Object target) {
+    TimingEntry entry = entries.get(target);
+    if (entry == null) {
+      String name = target.getClass().getSimpleName();
+      entry = new TimingEntry(name.isEmpty() ? target.getClass().getName() : name);
+      entries.put(target, entry);
+    }
+    if (entry.frame != frame) {
+      entry.frame = frame;
+      entry.reset();
+    }
+    return entry;
+  }
+
+  public void stepStarted() {
+    stepStartTime = TimeUtils.nanoTime();
+  }
+
+  public void stepFinished(GdxUpdatable updatable) {
+    long time = TimeUtils.timeSinceNanos(stepStartTime);
+    stepTime += time;
+    TimingEntry entry = getEntry(stepEntries, updatable);
+    entry.inclusiveTime += time;
+    entry.exclusiveTime += time;
+    entry.calls++;
+  }
+
+  public void paintStarted() {
+    if (paintDepth == paintStack.length) {
+      long[] newPaintStack = new long[paintDepth * 2];
+      long[] newChildStack = new long[paintDepth * 2];
+      System.arraycopy(paintStack, 0, newPaintStack, 0, paintDepth);
+      System.arraycopy(childStack, 0, newChildStack, 0, paintDepth);
+      paintStack = newPaintStack;
+      childStack = newChildStack;
+    }
+    paintStack[paintDepth] = TimeUtils.nanoTime();
+    childStack[paintDepth] = 0;
+    paintDepth++;
+  }
+
+  public void paintFinished(GdxComponent component) {
+    paintDepth--;
+    long time = TimeUtils.timeSinceNanos(paintStack[paintDepth]);
+    TimingEntry entry = getEntry(paintEntries, component);
+    entry.inclusiveTime += time;
+    entry.exclusiveTime += time - childStack[paintDepth];
+    entry.calls++;
+    if (paintDepth > 0) {
+      childStack[paintDepth - 1] += time;
+    } else {
+      paintTime += time;
+    }
+  }
+
+  /**
+   * @return Duration of the last profiled frame in seconds, excluding buffer swap
+   */
+  public float getFrameTime() {
+    return lastFrameTime / NANOS_PER_SECOND;
+  }
+
+  /**
+   * @return Time spent in step methods during the last profiled frame in seconds
+   */
+  public float getStepTime() {
+    return lastStepTime / NANOS_PER_SECOND;
+  }
+
+  /**
+   * @return Time spent painting components during the last profiled frame in seconds
+   */
+  public float getPaintTime() {
+    return lastPaintTime / NANOS_PER_SECOND;
+  }
+
+  /**
+   * @param updatable Profiled updatable
+   * @return Time spent in step method of the updatable during the last profiled frame in seconds
+   */
+  public float getStepTime(GdxUpdatable updatable) {
+    TimingEntry entry = stepEntries.get(updatable);
+    return entry == null ? 0 : entry.lastInclusiveTime / NANOS_PER_SECOND;
+  }
+
+  /**
+   * @param component Profiled component
+   * @return Time spent painting the component including its children in seconds
+   */
+  public float getInclusivePaintTime(GdxComponent component) {
+    TimingEntry entry = paintEntries.get(component);
+    return entry == null ? 0 : entry.lastInclusiveTime / NANOS_PER_SECOND;
+  }
+
+  /**
+   * @param component Profiled component
+   * @return Time spent painting the component excluding its children in seconds
+   */
+  public float getExclusivePaintTime(GdxComponent component) {
+    TimingEntry entry = paintEntries.get(component);
+    return entry == null ? 0 : entry.lastExclusiveTime / NANOS_PER_SECOND;
+  }
+
+  /**
+   * @return Number of sprite batch render calls during the last profiled frame. Since sprite batch binds
+   *         its texture on every render call, this also equals the number of texture binds it issued.
+   */
+  public int getRenderCalls() {
+    return renderCalls;
+  }
+
+  /**
+   * @return Number of sprite batch render calls since the painter has been created
+   */
+  public int getTotalRenderCalls() {
+    return totalRenderCalls;
+  }
+
+  /**
+   * @return Number of texture binds issued by sprite batch during the last profiled frame
+   */
+  public int getTextureBinds() {
+    return renderCalls;
+  }
+
+  public int getFrameBufferSwitches() {
+    return frameBufferSwitches;
+  }
+
+  public int getShaderSwitches() {
+    return shaderSwitches;
+  }
+
+  public int getStateChanges() {
+    return stateChanges;
+  }
+
+  public int getSkippedStateChanges() {
+    return skippedStateChanges;
+  }
+
+  public int getUniformUploads() {
+    return uniformUploads;
+  }
+
+  /**
+   * Draws statistics of the last profiled frame into the top left corner of the canvas.
+   * Lists the components with the longest exclusive paint times and the slowest updatables.
+   * @param painter Painter to draw with
+   * @param font Font of the overlay
+   */
+  public void paintOverlay(GdxPainter painter, BitmapFont font) {
+    if (!profiling || !overlayEnabled) return;
+    float lineHeight = font.getLineHeight();
+    float y = 0;
+    savedFontColor.set(font.getColor());
+    font.setColor(Color.YELLOW);
+    StringBuilder text = overlayText;
+    text.setLength(0);
+    text.append("Frame ");
+    appendMillis(text, lastFrameTime);
+    text.append(" (step ");
+    appendMillis(text, lastStepTime);
+    text.append(", paint ");
+    appendMillis(text, lastPaintTime);
+    text.append(')');
+    painter.drawText(font, text, 0, y);
+    y += lineHeight;
+    text.setLength(0);
+    text.append("Render calls ").append(renderCalls).append(" (total ").append(totalRenderCalls)
+        .append("), FBO switches ").append(frameBufferSwitches)
+        .append(", shader switches ").append(shaderSwitches);
+    painter.drawText(font, text, 0, y);
+    y += lineHeight;
+    text.setLength(0);
+    text.append("State changes ").append(stateChanges).append(" (skipped ").append(skippedStateChanges)
+        .append("), uniform uploads ").append(uniformUploads);
+    painter.drawText(font, text, 0, y);
+    y += lineHeight;
+    y = paintTopEntries(painter, font, paintEntries, "Paint ", y, lineHeight);
+    paintTopEntries(painter, font, stepEntries, "Step ", y, lineHeight);
+    font.setColor(savedFontColor);
+  }
+
+  private float paintTopEntries(GdxPainter painter, BitmapFont font, IdentityHashMap<Object, TimingEntry> entries,
+      String prefix, float y, float lineHeight) {
+    TimingEntry[] top = topEntries;
+    int count = 0;
+    for (TimingEntry entry : entries.values()) {
+      int index = count < top.length ? count++ : top.length;
+      while (index > 0 && top[index - 1].lastExclusiveTime < entry.lastExclusiveTime) {
+        if (index < top.length) top[index] = top[index - 1];
+        index--;
+      }
+      if (index < top.length) top[index] = entry;
+    }
+    StringBuilder text = overlayText;
+    for (int i = 0; i < count; i++) {
+      TimingEntry entry = top[i];
+      text.setLength(0);
+      text.append(prefix).append(entry.name).append(' ');
+      appendMillis(text, entry.lastExclusiveTime);
+      if (entry.lastInclusiveTime != entry.lastExclusiveTime) {
+        text.append(" (incl. ");
+        appendMillis(text, entry.lastInclusiveTime);
+        text.append(')');
+      }
+      if (entry.lastCalls > 1) text.append(" x").append(entry.lastCalls);
+      painter.drawText(font, text, 0, y);
+      y += lineHeight;
+      top[i] = null;
+    }
+    return y;
+  }
+
+  private static void appendMillis(StringBuilder text, long nanos) {
+    long hundredths = nanos / 10000;
+    text.append(hundredths / 100).append('.');
+    if (hundredths % 100 < 10) text.append('0');
+    text.append(hundredths % 100).append(" ms");
+  }
+
+  private static class TimingEntry {
+    private final String name;
+    private int frame;
+    private long inclusiveTime, exclusiveTime; //Nanoseconds
+    private long lastInclusiveTime, lastExclusiveTime; //Nanoseconds
+    private int calls, lastCalls;
+
+    public TimingEntry(String name) {
+      this.name = name;
+    }
+
+    public void reset() {
+      inclusiveTime = exclusiveTime = 0;
+      calls = 0;
+    }
+
+    public void finish() {
+      lastInclusiveTime = inclusiveTime;
+      lastExclusiveTime = exclusiveTime;
+      lastCalls = calls;
+    }
+  }
+}
@@ -0,0 +1,426 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import components.interfaces.GdxLayer;
+import components.interfaces.GdxUpdatable;
+
+/**
+ * Aggregates frame timing of {@link components.GdxMainFrame GdxMainFrame} into histograms, so
+ * percentiles can be collected from field devices at low cost. Render interval, update time
+ * and paint time are tracked separately for every screen ({@link GdxLayer} most recently
+ * activated) as well as for the whole session.
+ * <p>
+ * Histograms use logarithmic buckets with 16 linear sub-buckets each, so any value
+ * is reported within about 6 % of its actual value. Recording a frame doesn't allocate,
+ * except when a screen is shown for the first time or a frame makes it among the longest ones.
+ * <p>
+ * Render intervals following an idle period, i.e. a frame after which no re-rendering
+ * was requested, are not recorded, as they are not a result of slow rendering.
+ *
+ */
+public class FrameStatistics {
+  public static final String TAG = FrameStatistics.class.getSimpleName();
+
+  private static final int LONGEST_FRAME_COUNT = 10;
+  private static final float[] DEFAULT_JANK_THRESHOLDS = { 1 / 30f, 1 / 15f, 0.25f }; //Seconds
+
+  private boolean enabled = false;
+  private long[] jankThresholds = toNanos(DEFAULT_JANK_THRESHOLDS);
+  private final IdentityHashMap<GdxLayer, ScreenStatistics> screens = new IdentityHashMap<GdxLayer, ScreenStatistics>();
+  private ScreenStatistics total = new ScreenStatistics("total", jankThresholds.length);
+  private ScreenStatistics currentScreen = null;
+  private final LongestFrame[] longestFrames = new LongestFrame[LONGEST_FRAME_COUNT];
+  private int longestFrameCount = 0;
+  private long frameStartTime, updateFinishedTime, lastFrameStartTime = 0;
+  private boolean measureInterval = false;
+  private FileHandle exportFile = null;
+
+  private static long[] toNanos(float[] seconds) {
+    long[] nanos = new long[seconds.length];
+    for (int i = 0; i < seconds.length; i++) {
+      nanos[i] = (long)(seconds[i] * 1000000000L);
+    }
+    return nanos;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    lastFrameStartTime = 0;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Sets render intervals above which a frame counts as jank. Resets all statistics.
+   * @param thresholds Thresholds in seconds
+   */
+  public void setJankThresholds(float... thresholds) {
+    jankThresholds = toNanos(thresholds);
+    reset();
+  }
+
+  /**
+   * Sets a file the statistics are written to whenever the application is paused.
+   * Files ending with .csv are written as CSV, all others as JSON.
+   * @param exportFile File to write to or NULL to disable export on pause
+   */
+  public void setExportFile(FileHandle exportFile) {
+    this.exportFile = exportFile;
+  }
+
+  public FileHandle getExportFile() {
+    return exportFile;
+  }
+
+  public void reset() {
+    screens.clear();
+    total = new ScreenStatistics("total", jankThresholds.length);
+    currentScreen = null;
+    longestFrameCount = 0;
+    lastFrameStartTime = 0;
+  }
+
+  /**
+   * Assigns subsequent frames to statistics of a given screen.
+   * @param layer Layer which became active or NULL
+   */
+  public void setScreen(GdxLayer layer) {
+    if (layer == null) {
+      currentScreen = null;
+      return;
+    }
+    ScreenStatistics statistics = screens.get(layer);
+    if (statistics == null) {
+      statistics = new ScreenStatistics(getName(layer), jankThresholds.length);
+      screens.put(layer, statistics);
+    }
+    currentScreen = statistics;
+  }
+
+  private static String getName(Object object) {
+    String name = object.getClass().getSimpleName();
+    return name.isEmpty() ? object.getClass().getName() : name;
+  }
+
+  /**
+   * @param afterIdle Whether the previous frame didn't request re-rendering
+   */
+  public void frameStarted(boolean afterIdle) {
+    if (!enabled) return;
+    frameStartTime = TimeUtils.nanoTime();
+    measureInterval = !afterIdle && lastFrameStartTime != 0;
+  }
+
+  public void updateFinished() {
+    if (!enabled) return;
+    updateFinishedTime = TimeUtils.nanoTime();
+  }
+
+  /**
+   * @param dirty Updatable whose single step took the longest during the frame, or NULL
+   */
+  public void frameFinished(GdxUpdatable dirty) {
+    if (!enabled) return;
+    long time = TimeUtils.nanoTime();
+    long updateTime = updateFinishedTime - frameStartTime;
+    long paintTime = time - updateFinishedTime;
+    long interval = measureInterval ? frameStartTime - lastFrameStartTime : -1;
+    lastFrameStartTime = frameStartTime;
+    total.record(interval, updateTime, paintTime, jankThresholds);
+    if (currentScreen != null) currentScreen.record(interval, updateTime, paintTime, jankThresholds);
+    if (interval > 0) recordLongestFrame(interval, dirty);
+  }
+
+  private void recordLongestFrame(long interval, GdxUpdatable dirty) {
+    if (longestFrameCount == LONGEST_FRAME_COUNT && longestFrames[longestFrameCount - 1].interval >= interval) return;
+    int index = longestFrameCount < LONGEST_FRAME_COUNT ? longestFrameCount++ : LONGEST_FRAME_COUNT - 1;
+    while (index > 0 && longestFrames[index - 1].interval < interval) {
+      longestFrames[index] = longestFrames[index - 1];
+      index--;
+    }
+    longestFrames[index] = new LongestFrame(interval,
+        currentScreen == null ? null : currentScreen.name, dirty == null ? null : getName(dirty));
+  }
+
+  /**
+   * @return Statistics of the whole session
+   */
+  public ScreenStatistics getTotal() {
+    return total;
+  }
+
+  /**
+   * @param layer Screen
+   * @return Statistics of the screen or NULL if it hasn't been shown yet
+   */
+  public ScreenStatistics getScreen(GdxLayer layer) {
+    return screens.get(layer);
+  }
+
+  private ArrayList<ScreenStatistics> getAllStatistics() {
+    ArrayList<ScreenStatistics> statistics = new ArrayList<ScreenStatistics>(screens.size() + 1);
+    statistics.add(total);
+    statistics.addAll(screens.values());
+    return statistics;
+  }
+
+  public String toCsv() {
+    StringBuilder csv = new StringBuilder();
+    csv.append("screen,metric,count,mean,p50,p95,p99,max");
+    for (long threshold : jankThresholds) {
+      csv.append(",jank>").append(formatMillis(threshold));
+    }
+    csv.append('\n');
+    for (ScreenStatistics statistics : getAllStatistics()) {
+      appendCsv(csv, statistics, "interval", statistics.interval, true);
+      appendCsv(csv, statistics, "update", statistics.update, false);
+      appendCsv(csv, statistics, "paint", statistics.paint, false);
+    }
+    return csv.toString();
+  }
+
+  private void appendCsv(StringBuilder csv, ScreenStatistics statistics, String metric, Histogram histogram, boolean jank) {
+    csv.append(statistics.name).append(',').append(metric).append(',').append(histogram.getCount())
+        .append(',').append(formatMillis(histogram.getMean()))
+        .append(',').append(formatMillis(histogram.getValueAtPercentile(50)))
+        .append(',').append(formatMillis(histogram.getValueAtPercentile(95)))
+        .append(',').append(formatMillis(histogram.getValueAtPercentile(99)))
+        .append(',').append(formatMillis(histogram.getMax()));
+    for (int i = 0; i < jankThresholds.length; i++) {
+      csv.append(',');
+      if (jank) csv.append(statistics.jankCounts[i]);
+    }
+    csv.append('\n');
+  }
+
+  public String toJson() {
+    StringBuilder json = new StringBuilder();
+    json.append("{\"unit\":\"ms\",\"jankThresholds\":[");
+    for (int i = 0; i < jankThresholds.length; i++) {
+      if (i > 0) json.append(',');
+      json.append(formatMillis(jankThresholds[i]));
+    }
+    json.append("],\"screens\":[");
+    boolean first = true;
+    for (ScreenStatistics statistics : getAllStatistics()) {
+      if (!first) json.append(',');
+      first = false;
+      json.append("{\"screen\":\"").append(escapeJson(statistics.name)).append('"');
+      appendJson(json, "interval", statistics.interval);
+      appendJson(json, "update", statistics.update);
+      appendJson(json, "paint", statistics.paint);
+      json.append(",\"jank\":[");
+      for (int i = 0; i < statistics.jankCounts.length; i++) {
+        if (i > 0) json.append(',');
+        json.append(statistics.jankCounts[i]);
+      }
+      json.append("]}");
+    }
+    json.append("],\"longestFrames\":[");
+    for (int i = 0; i < longestFrameCount; i++) {
+      LongestFrame frame = longestFrames[i];
+      if (i > 0) json.append(',');
+      json.append("{\"interval\":").append(formatMillis(frame.interval));
+      if (frame.screen != null) json.append(",\"screen\":\"").append(escapeJson(frame.screen)).append('"');
+      if (frame.dirty != null) json.append(",\"dirty\":\"").append(escapeJson(frame.dirty)).append('"');
+      json.append('}');
+    }
+    json.append("]}");
+    return json.toString();
+  }
+
+  private void appendJson(StringBuilder json, String metric, Histogram histogram) {
+    json.append(",\"").append(metric).append("\":{\"count\":").append(histogram.getCount())
+        .append(",\"mean\":").append(formatMillis(histogram.getMean()))
+        .append(",\"p50\":").append(formatMillis(histogram.getValueAtPercentile(50)))
+        .append(",\"p95\":").append(formatMillis(histogram.getValueAtPercentile(95)))
+        .append(",\"p99\":").append(formatMillis(histogram.getValueAtPercentile(99)))
+        .append(",\"max\":").append(formatMillis(histogram.getMax())).append('}');
+  }
+
+  private static String escapeJson(String text) {
+    return text.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private static String formatMillis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+  }
+
+  /**
+   * Writes the statistics to a file.
+   * @param file Target file, written as CSV if its extension is csv, otherwise as JSON
+   */
+  public void export(FileHandle file) {
+    boolean csv = file.extension().equalsIgnoreCase("csv");
+    file.writeString(csv ? toCsv() : toJson(), false, "UTF-8");
+    Gdx.app.log(TAG, "Frame statistics exported to " + file.path());
+  }
+
+  /**
+   * Called by the frame when the application is paused. Exports the statistics
+   * if an {@link #setExportFile(FileHandle) export file} is set.
+   */
+  public void paused() {
+    if (exportFile != null) export(exportFile);
+    // The interval spanning the pause is meaningless
+    lastFrameStartTime = 0;
+  }
+
+  /**
+   * Timing statistics of a single screen.
+   */
+  public static class ScreenStatistics {
+    private final String name;
+    private final Histogram interval = new Histogram();
+    private final Histogram update = new Histogram();
+    private final Histogram paint = new Histogram();
+    private final int[] jankCounts;
+
+    private ScreenStatistics(String name, int thresholdCount) {
+      this.name = name;
+      jankCounts = new int[thresholdCount];
+    }
+
+    private void record(long intervalTime, long updateTime, long paintTime, long[] jankThresholds) {
+      if (intervalTime >= 0) {
+        interval.record(intervalTime);
+        for (int i = 0; i < jankThresholds.length; i++) {
+          if (intervalTime > jankThresholds[i]) jankCounts[i]++;
+        }
+      }
+      update.record(updateTime);
+      paint.record(paintTime);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return Histogram of time between starts of consecutive frames
+     */
+    public Histogram getInterval() {
+      return interval;
+    }
+
+    /**
+     * @return Histogram of time spent in step methods
+     */
+    public Histogram getUpdate() {
+      return update;
+    }
+
+    /**
+     * @return Histogram of time spent painting, including painter end
+     */
+    public Histogram getPaint() {
+      return paint;
+    }
+
+    /**
+     * @param threshold Index of jank threshold
+     * @return Number of frames exceeding the threshold
+     */
+    public int getJankCount(int threshold) {
+      return jankCounts[threshold];
+    }
+  }
+
+  /**
+   * Histogram of durations with logarithmic buckets, each divided into linear sub-buckets.
+   * Values are stored with microsecond resolution.
+   */
+  public static class Histogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = Integer.MAX_VALUE; //Microseconds
+    private static final int BUCKETS = getIndex(MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count = 0;
+    private long sum = 0; //Nanoseconds
+    private long max = 0; //Nanoseconds
+
+    private static int getIndex(long micros) {
+      if (micros < SUB_BUCKETS) return (int)micros;
+      int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+      return SUB_BUCKETS + shift * SUB_BUCKETS + (int)(micros >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long getHighestValue(int index) {
+      if (index < SUB_BUCKETS) return index;
+      int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+      long lowest = (long)(SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+      return lowest + (1L << shift) - 1;
+    }
+
+    public void record(long nanos) {
+      if (nanos < 0) nanos = 0;
+      counts[getIndex(Math.min(nanos / 1000, MAX_VALUE))]++;
+      count++;
+      sum += nanos;
+      if (nanos > max) max = nanos;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    /**
+     * @return Mean value in nanoseconds
+     */
+    public long getMean() {
+      return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * @return Maximal value in nanoseconds
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * @param percentile Percentile in range (0, 100]
+     * @return Highest value equivalent to the value at the given percentile in nanoseconds
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (count == 0) return 0;
+      long target = Math.max(1, (long)Math.ceil(percentile / 100 * count));
+      long cumulative = 0;
+      for (int i = 0; i < counts.length; i++) {
+        cumulative += counts[i];
+        if (cumulative >= target) return Math.min(getHighestValue(i) * 1000 + 999, max);
+      }
+      return max;
+    }
+
+    public void reset() {
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = 0;
+      }
+      count = sum = max = 0;
+    }
+  }
+
+  private static class LongestFrame {
+    private final long interval; //Nanoseconds
+    private final String screen;
+    private final String dirty;
+
+    public LongestFrame(long interval, String screen, String dirty) {
+      this.interval = interval;
+      this.screen = screen;
+      this.dirty = dirty;
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package helpers;
+
+import java.util.Locale;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Records begin and end events of frame phases, texture renders, shader passes, layout passes,
+ * layer construction and input dispatch, so a session can be inspected on a timeline. Owned by
+ * {@link components.GdxMainFrame GdxMainFrame}.
+ * <p>
+ * Events are written into a ring buffer allocated up front, so tracing doesn't allocate and only
+ * the most recent events are kept once the buffer is full. The trace is exported in the Chrome
+ * trace event format, which can be opened in chrome://tracing or Perfetto.
+ * <p>
+ * Enabling or disabling takes effect immediately. While disabled, all hooks reduce
+ * to a single boolean check.
+ *
+ */
+public class FrameTracer {
+  public static final String TAG = FrameTracer.class.getSimpleName();
+
+  private static final int DEFAULT_CAPACITY = 65536; //Events
+
+  public enum Phase {
+    FRAME("render", "frame"),
+    UPDATE("updateDirties", "frame"),
+    PAINT("paint", "frame"),
+    PAINTER_END("painter end", "frame"),
+    TEXTURE_RENDER("requestTextureRender", "render"),
+    SHADER_BEGIN("beginShaderBuffer", "render"),
+    SHADER_SWAP("swapShaderBuffer", "render"),
+    SHADER_FLUSH("flushShaderBuffer", "render"),
+    LAYOUT("layout", "layout"),
+    LAYER_CONSTRUCTION("layer construction", "layer"),
+    TOUCH_DOWN("touchDown", "input"),
+    TOUCH_UP("touchUp", "input"),
+    TOUCH_DRAGGED("touchDragged", "input"),
+    MOUSE_MOVED("mouseMoved", "input");
+
+    private final String eventName, category;
+
+    private Phase(String eventName, String category) {
+      this.eventName = eventName;
+      this.category = category;
+    }
+
+    public String getEventName() {
+      return eventName;
+    }
+
+    public String getCategory() {
+      return category;
+    }
+  }
+
+  private static final Phase[] PHASES = Phase.values();
+
+  private boolean enabled = false;
+  private final long[] times; //Nanoseconds
+  private final byte[] phases;
+  private final boolean[] ends;
+  private int start = 0, size = 0;
+  private long droppedEvents = 0;
+  private long startTime = TimeUtils.nanoTime();
+
+  public FrameTracer(int capacity) {
+    if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+    times = new long[capacity];
+    phases = new byte[capacity];
+    ends = new boolean[capacity];
+  }
+
+  public FrameTracer() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return Maximum number of events kept
+   */
+  public int getCapacity() {
+    return times.length;
+  }
+
+  /**
+   * @return Number of events currently kept
+   */
+  public int getEventCount() {
+    return size;
+  }
+
+  /**
+   * @return Number of events overwritten since the last {@link #clear()}
+   */
+  public long getDroppedEvents() {
+    return droppedEvents;
+  }
+
+  /**
+   * Discards all recorded events. Timestamps of new events start from zero again.
+   */
+  public void clear() {
+    start = size = 0;
+    droppedEvents = 0;
+    startTime = TimeUtils.nanoTime();
+  }
+
+  public void begin(Phase phase) {
+    if (enabled) record(phase, false);
+  }
+
+  public void end(Phase phase) {
+    if (enabled) record(phase, true);
+  }
+
+  private void record(Phase phase, boolean end) {
+    int index;
+    if (size < times.length) {
+      index = (start + size++) % times.length;
+    } else {
+      index = start;
+      start = (start + 1) % times.length;
+      droppedEvents++;
+    }
+    times[index] = TimeUtils.nanoTime();
+    phases[index] = (byte)phase.ordinal();
+    ends[index] = end;
+  }
+
+  /**
+   * Builds the trace in Chrome trace event format. End events whose begin has already been
+   * overwritten are left out and phases still open are closed at the time of the last event,
+   * so every span in the trace is complete.
+   * @return The trace as JSON
+   */
+  public String toJson() {
+    StringBuilder json = new StringBuilder(size * 80 + 64);
+    json.append("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+    byte[] openPhases = new byte[size];
+    int depth = 0;
+    long lastTime = startTime;
+    boolean first = true;
+    for (int i = 0; i < size; i++) {
+      int index = (start + i) % times.length;
+      Phase phase = PHASES[phases[index]];
+      if (ends[index]) {
+        if (depth == 0) continue;
+        depth--;
+      } else {
+        openPhases[depth++] = phases[index];
+      }
+      lastTime = times[index];
+      if (!first) json.append(',');
+      first = false;
+      appendEvent(json, phase, ends[index], lastTime);
+    }
+    while (depth > 0) {
+      if (!first) json.append(',');
+      first = false;
+      appendEvent(json, PHASES[openPhases[--depth]], true, lastTime);
+    }
+    json.append("]}");
+    return json.toString();
+  }
+
+  private void appendEvent(StringBuilder json, Phase phase, boolean end, long time) {
+    json.append("{\"name\":\"").append(phase.eventName)
+        .append("\",\"cat\":\"").append(phase.category)
+        .append("\",\"ph\":\"").append(end ? 'E' : 'B')
+        .append("\",\"ts\":").append(String.format(Locale.ROOT, "%.3f", (time - startTime) / 1000.0))
+        .append(",\"pid\":1,\"tid\":1}");
+  }
+
+  /**
+   * Writes the trace to a file.
+   * @param file Target file, usually with json extension
+   */
+  public void export(FileHandle file) {
+    file.writeString(toJson(), false, "UTF-8");
+    Gdx.app.log(TAG, "Frame trace exported to " + file.path());
+  }
+}
@@ -0,0 +1,212 @@
+package helpers;
+
+import io.GdxClock;
+
+import java.io.ByteArrayOutputStream;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputMultiplexer;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Records raw input events into a compact binary trace, which can be replayed by {@link InputReplayer}.
+ * The recorder never handles events itself, so once {@link #attach() attached} in front of other
+ * input processors, it only observes them.
+ * <p>
+ * A trace starts with a header consisting of {@link #TRACE_MAGIC}, {@link #TRACE_VERSION} and screen
+ * size at the start of recording. Each event follows as a type byte, time in nanoseconds since the previous
+ * event and event arguments. Except for the type, all values are stored as variable-length integers,
+ * so a typical drag event takes about 8 bytes.
+ *
+ */
+public class InputRecorder implements InputProcessor {
+  public static final int TRACE_MAGIC = 0x47445854;
+  public static final int TRACE_VERSION = 1;
+
+  public static final byte EVENT_TOUCH_DOWN = 1;
+  public static final byte EVENT_TOUCH_UP = 2;
+  public static final byte EVENT_TOUCH_DRAGGED = 3;
+  public static final byte EVENT_MOUSE_MOVED = 4;
+  public static final byte EVENT_SCROLLED = 5;
+
+  private final GdxClock clock;
+  private final ByteArrayOutputStream trace = new ByteArrayOutputStream(4096);
+  private boolean recording = false;
+  private long lastEventTime;
+  private int eventCount = 0;
+
+  public InputRecorder(GdxClock clock) {
+    this.clock = clock;
+  }
+
+  public InputRecorder() {
+    this(GdxClock.SYSTEM);
+  }
+
+  /**
+   * Inserts the recorder in front of all input processors, so it receives every event.
+   * Call this only after the frame has been created, since its input manager installs
+   * a new input multiplexer on creation.
+   */
+  public void attach() {
+    InputProcessor inputProcessor = Gdx.input.getInputProcessor();
+    if (inputProcessor == null || !(inputProcessor instanceof InputMultiplexer)) {
+      InputMultiplexer multiplexer = new InputMultiplexer();
+      if (inputProcessor != null) multiplexer.addProcessor(inputProcessor);
+      inputProcessor = multiplexer;
+      Gdx.input.setInputProcessor(inputProcessor);
+    }
+    ((InputMultiplexer)inputProcessor).addProcessor(0, this);
+  }
+
+  public void detach() {
+    InputProcessor inputProcessor = Gdx.input.getInputProcessor();
+    if (inputProcessor != null && inputProcessor instanceof InputMultiplexer) {
+      ((InputMultiplexer)inputProcessor).removeProcessor(this);
+    }
+  }
+
+  /**
+   * Discards any previously recorded trace and starts a new one.
+   * @param screenWidth Current width of screen in pixels
+   * @param screenHeight Current height of screen in pixels
+   */
+  public void start(int screenWidth, int screenHeight) {
+    trace.reset();
+    eventCount = 0;
+    writeInt(TRACE_MAGIC);
+    trace.write(TRACE_VERSION);
+    writeVarLong(screenWidth);
+    writeVarLong(screenHeight);
+    lastEventTime = clock.nanoTime();
+    recording = true;
+  }
+
+  /**
+   * Variant of {@link #start(int, int)} which uses the current size of screen.
+   */
+  public void start() {
+    start(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+  }
+
+  public void stop() {
+    recording = false;
+  }
+
+  public boolean isRecording() {
+    return recording;
+  }
+
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * @return Copy of the trace recorded so far
+   */
+  public byte[] getTrace() {
+    return trace.toByteArray();
+  }
+
+  public void save(FileHandle file) {
+    file.writeBytes(trace.toByteArray(), false);
+  }
+
+  private void writeInt(int value) {
+    trace.write(value >>> 24);
+    trace.write(value >>> 16);
+    trace.write(value >>> 8);
+    trace.write(value);
+  }
+
+  private void writeVarLong(long value) {
+    while ((value & ~0x7FL) != 0) {
+      trace.write((int)((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    trace.write((int)value);
+  }
+
+  private void writeSigned(int value) {
+    // Zigzag encoding keeps small negative values (e.g. cursor outside window) short
+    writeVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+  }
+
+  private void writeEvent(byte type) {
+    long time = clock.nanoTime();
+    trace.write(type);
+    writeVarLong(Math.max(0, time - lastEventTime));
+    lastEventTime = time;
+    eventCount++;
+  }
+
+  @Override
+  public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+    if (recording) {
+      writeEvent(EVENT_TOUCH_DOWN);
+      writeSigned(screenX);
+      writeSigned(screenY);
+      writeVarLong(pointer);
+      writeVarLong(button);
+    }
+    return false;
+  }
+
+  @Override
+  public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+    if (recording) {
+      writeEvent(EVENT_TOUCH_UP);
+      writeSigned(screenX);
+      writeSigned(screenY);
+      writeVarLong(pointer);
+      writeVarLong(button);
+    }
+    return false;
+  }
+
+  @Override
+  public boolean touchDragged(int screenX, int screenY, int pointer) {
+    if (recording) {
+      writeEvent(EVENT_TOUCH_DRAGGED);
+      writeSigned(screenX);
+      writeSigned(screenY);
+      writeVarLong(pointer);
+    }
+    return false;
+  }
+
+  @Override
+  public boolean mouseMoved(int screenX, int screenY) {
+    if (recording) {
+      writeEvent(EVENT_MOUSE_MOVED);
+      writeSigned(screenX);
+      writeSigned(screenY);
+    }
+    return false;
+  }
+
+  @Override
+  public boolean scrolled(int amount) {
+    if (recording) {
+      writeEvent(EVENT_SCROLLED);
+      writeSigned(amount);
+    }
+    return false;
+  }
+
+  @Override
+  public boolean keyDown(int keycode) {
+    return false;
+  }
+
+  @Override
+  public boolean keyUp(int keycode) {
+    return false;
+  }
+
+  @Override
+  public boolean keyTyped(char character) {
+    return false;
+  }
+}
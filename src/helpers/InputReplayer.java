@@ -0,0 +1,265 @@
+package helpers;
+
+import io.GdxClock;
+import io.GdxInputManager;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import components.GdxMainFrame;
+import components.interfaces.GdxUpdatable;
+
+/**
+ * Replays a trace recorded by {@link InputRecorder} into the input manager of a frame. While replaying,
+ * the input manager uses a {@link ReplayClock} driven by the replayer, so timing dependent events
+ * like taps and flings are reproduced exactly regardless of replay speed.
+ * <p>
+ * The trace can be replayed either in real time, scaled by {@link #setSpeed(float) speed}, by calling
+ * {@link #start()}, or as fast as possible by {@link #runToEnd(float)}, which renders the frame at fixed
+ * intervals of trace time.
+ *
+ */
+public class InputReplayer implements GdxUpdatable {
+  private final GdxMainFrame frame;
+  private final byte[] trace;
+  private final int screenWidth, screenHeight;
+  private final int eventsStart;
+  private final ReplayClock clock = new ReplayClock();
+  private GdxClock originalClock;
+  private int position;
+  private long nextEventTime;
+  private float speed = 1;
+  private boolean running = false;
+  private int eventCount = 0;
+
+  public InputReplayer(GdxMainFrame frame, byte[] trace) {
+    this.frame = frame;
+    this.trace = trace;
+    position = 0;
+    if (trace.length < 5 || readInt() != InputRecorder.TRACE_MAGIC)
+      throw new GdxRuntimeException("Not an input trace");
+    int version = trace[position++];
+    if (version != InputRecorder.TRACE_VERSION)
+      throw new GdxRuntimeException("Unsupported input trace version: " + version);
+    screenWidth = (int)readVarLong();
+    screenHeight = (int)readVarLong();
+    eventsStart = position;
+    rewind();
+  }
+
+  public InputReplayer(GdxMainFrame frame, FileHandle file) {
+    this(frame, file.readBytes());
+  }
+
+  /**
+   * @return Width of screen in pixels at the time of recording
+   */
+  public int getScreenWidth() {
+    return screenWidth;
+  }
+
+  /**
+   * @return Height of screen in pixels at the time of recording
+   */
+  public int getScreenHeight() {
+    return screenHeight;
+  }
+
+  public ReplayClock getClock() {
+    return clock;
+  }
+
+  /**
+   * Sets speed of replay in real time. Has no effect on {@link #runToEnd(float)}.
+   * @param speed Multiplier of time passed, 1 for original speed
+   */
+  public void setSpeed(float speed) {
+    if (speed <= 0) throw new IllegalArgumentException("Speed must be positive");
+    this.speed = speed;
+  }
+
+  public float getSpeed() {
+    return speed;
+  }
+
+  /**
+   * @return Number of events dispatched since the last rewind
+   */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  public boolean isFinished() {
+    return position >= trace.length;
+  }
+
+  /**
+   * Moves back to the start of the trace. Time of the replay clock keeps running,
+   * so timing of events replayed again is not affected by the previous replay.
+   */
+  public void rewind() {
+    position = eventsStart;
+    eventCount = 0;
+    if (!isFinished()) nextEventTime = clock.time + peekEventDelay();
+  }
+
+  /**
+   * Starts replaying in real time. The replayer keeps the frame rendering continuously
+   * until all events have been dispatched.
+   */
+  public void start() {
+    attachClock();
+    running = true;
+    makeDirty();
+  }
+
+  public void stop() {
+    running = false;
+    detachClock();
+  }
+
+  /**
+   * Replays the rest of the trace as fast as possible, rendering the frame every time
+   * the given interval of trace time passes. Each render is given the interval as its delta time,
+   * so animations and timed state advance the same way on every run.
+   * @param frameInterval Interval between rendered frames in seconds of trace time
+   * @return Number of frames rendered
+   */
+  public int runToEnd(float frameInterval) {
+    long interval = (long)(frameInterval * 1000000000L);
+    if (interval <= 0) throw new IllegalArgumentException("Frame interval must be positive");
+    attachClock();
+    int frames = 0;
+    while (!isFinished()) {
+      advance(interval);
+      frame.render(frameInterval);
+      frames++;
+    }
+    detachClock();
+    return frames;
+  }
+
+  private void attachClock() {
+    GdxInputManager inputManager = frame.getInputManager();
+    if (inputManager.getClock() != clock) {
+      originalClock = inputManager.getClock();
+      inputManager.setClock(clock);
+    }
+  }
+
+  private void detachClock() {
+    GdxInputManager inputManager = frame.getInputManager();
+    if (inputManager.getClock() == clock) {
+      inputManager.setClock(originalClock);
+    }
+  }
+
+  /**
+   * Advances the replay clock and dispatches all events which occurred in the meantime.
+   * The clock is set to the time of each event before it's dispatched.
+   * @param nanos Time to advance by in nanoseconds
+   * @return Number of events dispatched
+   */
+  public int advance(long nanos) {
+    long targetTime = clock.time + nanos;
+    int dispatched = 0;
+    while (!isFinished() && nextEventTime <= targetTime) {
+      clock.time = nextEventTime;
+      dispatchEvent();
+      dispatched++;
+      if (!isFinished()) nextEventTime += peekEventDelay();
+    }
+    clock.time = targetTime;
+    return dispatched;
+  }
+
+  private long peekEventDelay() {
+    int savedPosition = position;
+    position++;
+    long delay = readVarLong();
+    position = savedPosition;
+    return delay;
+  }
+
+  private void dispatchEvent() {
+    GdxInputManager inputManager = frame.getInputManager();
+    byte type = trace[position++];
+    readVarLong();
+    switch (type) {
+      case InputRecorder.EVENT_TOUCH_DOWN:
+        inputManager.touchDown(readSigned(), readSigned(), (int)readVarLong(), (int)readVarLong());
+        break;
+      case InputRecorder.EVENT_TOUCH_UP:
+        inputManager.touchUp(readSigned(), readSigned(), (int)readVarLong(), (int)readVarLong());
+        break;
+      case InputRecorder.EVENT_TOUCH_DRAGGED:
+        inputManager.touchDragged(readSigned(), readSigned(), (int)readVarLong());
+        break;
+      case InputRecorder.EVENT_MOUSE_MOVED:
+        inputManager.mouseMoved(readSigned(), readSigned());
+        break;
+      case InputRecorder.EVENT_SCROLLED:
+        inputManager.scrolled(readSigned());
+        break;
+      default:
+        throw new GdxRuntimeException("Unknown input event type: " + type);
+    }
+    eventCount++;
+  }
+
+  private int readInt() {
+    return (trace[position++] & 0xFF) << 24 | (trace[position++] & 0xFF) << 16
+        | (trace[position++] & 0xFF) << 8 | (trace[position++] & 0xFF);
+  }
+
+  private long readVarLong() {
+    long value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      if (position >= trace.length) throw new GdxRuntimeException("Input trace is truncated");
+      b = trace[position++];
+      value |= (long)(b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  private int readSigned() {
+    int value = (int)readVarLong();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  @Override
+  public GdxMainFrame getFrame() {
+    return frame;
+  }
+
+  @Override
+  public void makeDirty() {
+    frame.reportDirty(this);
+  }
+
+  @Override
+  public void step(float delay) {
+    if (!running) return;
+    advance((long)(delay * speed * 1000000000L));
+    if (isFinished()) {
+      stop();
+    } else {
+      makeDirty();
+    }
+  }
+
+  /**
+   * Clock which only moves when the replayer advances it.
+   */
+  public static class ReplayClock implements GdxClock {
+    private long time = 0;
+
+    @Override
+    public long nanoTime() {
+      return time;
+    }
+  }
+}
@@ -3,6 +3,8 @@ package helpers;
 import general.GdxModelInstance;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.VertexAttributes.Usage;
@@ -13,6 +15,9 @@ import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
 import com.badlogic.gdx.math.Matrix4;
 
 public class ModelUtils {
+  //Shared box models by layout of their materials
+  private static final HashMap<Integer, SharedModel> sharedBoxes = new HashMap<Integer, SharedModel>();
+  
   /**
    * Determines the width of a box bounding a given group of models.
    * @param models Group of models to be worked with
@@ -57,6 +62,77 @@ public class ModelUtils {
   
   public static Model createBox(ModelBuilder modelBuilder, Material topMaterial, Material northMaterial, Material eastMaterial, 
       Material southMaterial, Material westMaterial, Material bottomMaterial) {
+    return buildBox(modelBuilder, topMaterial, northMaterial, eastMaterial, southMaterial, westMaterial, bottomMaterial);
+  }
+  
+  /**
+   * Creates an instance of a unit box, whose faces are given materials. Boxes with the same layout
+   * of materials, i.e. with the same faces sharing a material, share a single model and therefore
+   * a single mesh, so they only differ in their transformation and materials.
+   * <p>
+   * Every box created this way has to be released by {@link #releaseBox(GdxModelInstance)}
+   * instead of disposing its model.
+   * @return Instance of the shared model with materials of the faces set
+   */
+  public static GdxModelInstance createBoxInstance(ModelBuilder modelBuilder, Material topMaterial, Material northMaterial, 
+      Material eastMaterial, Material southMaterial, Material westMaterial, Material bottomMaterial, 
+      float centerX, float centerY, float centerZ, float scaleX, float scaleY, float scaleZ) {
+    Material[] materials = {topMaterial, northMaterial, eastMaterial, southMaterial, westMaterial, bottomMaterial};
+    //Every face starting a new part sets a bit, the top face always does
+    int layout = 0;
+    for (int i = 1; i < materials.length; i++) {
+      if (materials[i] != materials[i - 1]) layout |= 1 << (i - 1);
+    }
+    SharedModel sharedBox = sharedBoxes.get(layout);
+    if (sharedBox == null) {
+      Material[] placeholders = new Material[materials.length];
+      placeholders[0] = new Material();
+      for (int i = 1; i < materials.length; i++) {
+        placeholders[i] = materials[i] != materials[i - 1] ? new Material() : placeholders[i - 1];
+      }
+      sharedBox = new SharedModel(buildBox(modelBuilder, placeholders[0], placeholders[1], placeholders[2], 
+          placeholders[3], placeholders[4], placeholders[5]));
+      sharedBoxes.put(layout, sharedBox);
+    }
+    sharedBox.references++;
+    //Instances copy materials of the model, so setting them doesn't affect other boxes
+    GdxModelInstance box = new GdxModelInstance(sharedBox.model, centerX, centerY, centerZ, scaleX, scaleY, scaleZ);
+    int part = 0;
+    box.setMaterial(0, part, topMaterial);
+    for (int i = 1; i < materials.length; i++) {
+      if (materials[i] != materials[i - 1]) box.setMaterial(0, ++part, materials[i]);
+    }
+    return box;
+  }
+  
+  /**
+   * Releases a box created by {@link #createBoxInstance}. The shared model is disposed
+   * once no box uses it.
+   * @param box Box to be released
+   */
+  public static void releaseBox(GdxModelInstance box) {
+    for (Iterator<SharedModel> it = sharedBoxes.values().iterator(); it.hasNext(); ) {
+      SharedModel sharedBox = it.next();
+      if (sharedBox.model == box.getModel()) {
+        if (--sharedBox.references == 0) {
+          it.remove();
+          sharedBox.model.dispose();
+        }
+        return;
+      }
+    }
+    throw new IllegalArgumentException("Box is not shared");
+  }
+  
+  /**
+   * @return Number of models currently shared by boxes
+   */
+  public static int getSharedBoxCount() {
+    return sharedBoxes.size();
+  }
+  
+  private static Model buildBox(ModelBuilder modelBuilder, Material topMaterial, Material northMaterial, Material eastMaterial, 
+      Material southMaterial, Material westMaterial, Material bottomMaterial) {
     Matrix4 transformMatrix = new Matrix4();
     modelBuilder.begin();
     MeshPartBuilder partBuilder;
@@ -93,4 +169,13 @@ public class ModelUtils {
     partBuilder.rect(-0.5f,  0.5f, -0.5f,   0.5f,  0.5f, -0.5f,   0.5f, -0.5f, -0.5f,  -0.5f, -0.5f, -0.5f,   0f,  0f,  1f);
     return modelBuilder.end();
   }
+  
+  private static class SharedModel {
+    private final Model model;
+    private int references = 0;
+    
+    private SharedModel(Model model) {
+      this.model = model;
+    }
+  }
 }
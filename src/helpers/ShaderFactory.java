@@ -1,36 +1,56 @@
 package helpers;
 
+import io.GdxShaderUniforms;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 
 import com.badlogic.gdx.Application.ApplicationType;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.TimeUtils;
 
+/**
+ * Creates shader programs and shares them between all their users. Programs are
+ * identified by a content hash of their vertex and fragment shader sources.
+ * <p>
+ * Shaders registered via {@link #registerShader(String, String)} can be compiled
+ * ahead of time by {@link #warmUp()}, which is called by {@link components.GdxMainFrame}
+ * during its creation. This prevents hitches when an effect is painted for the first time.
+ * <p>
+ * Program binaries are not cached between application starts, as libGDX does not
+ * provide access to them through its GL interfaces.
+ *
+ */
 public class ShaderFactory {
   public static final String TAG = ShaderFactory.class.getSimpleName();
-  
-  private static HashMap<InstanceMapKey, UsageCountedShaderProgram> programInstances = 
-      new HashMap<InstanceMapKey, UsageCountedShaderProgram>();
-  private static VersatileMapKey versatileMapKey = new VersatileMapKey();
-  
+
+  private static HashMap<ShaderKey, UsageCountedShaderProgram> programInstances =
+      new HashMap<ShaderKey, UsageCountedShaderProgram>();
+  private static ShaderKey versatileMapKey = new ShaderKey();
+  private static LinkedHashSet<ShaderKey> registeredShaders = new LinkedHashSet<ShaderKey>();
+  private static ArrayList<ShaderProgram> warmedUpPrograms = new ArrayList<ShaderProgram>();
+  private static int compileCount = 0;
+  private static long compileTime = 0;
+
   private static String removePrecisionQualifier(String shaderCode) {
     if (shaderCode.trim().startsWith("precision")) {
       return shaderCode.substring(shaderCode.indexOf("\n") + "\n".length());
     }
     return shaderCode;
   }
-  
+
   private static boolean hasPrecisionQualifier(String shaderCode) {
     return shaderCode.trim().startsWith("precision");
   }
-  
+
   private static UsageCountedShaderProgram createShaderProgram_GL(String vertexShader, String fragmentShader) {
     return new UsageCountedShaderProgram(
         removePrecisionQualifier(vertexShader), removePrecisionQualifier(fragmentShader));
   }
-  
+
   private static UsageCountedShaderProgram createShaderProgram_GL_ES(String vertexShader, String fragmentShader) {
     UsageCountedShaderProgram program = new UsageCountedShaderProgram(vertexShader, fragmentShader);
     if (!program.isCompiled()) {
@@ -47,65 +67,152 @@ public class ShaderFactory {
     }
     return program;
   }
-  
+
+  private static UsageCountedShaderProgram compileShaderProgram(String vertexShader, String fragmentShader) {
+    long startTime = TimeUtils.nanoTime();
+    UsageCountedShaderProgram program;
+    String errorLog = null;
+    if (Gdx.app.getType() == ApplicationType.Desktop || Gdx.app.getType() == ApplicationType.HeadlessDesktop) {
+      program = createShaderProgram_GL(vertexShader, fragmentShader);
+      if (!program.isCompiled()) {
+        errorLog = program.getLog();
+        program.dispose();
+        Gdx.app.log(TAG, "Compilation as GL shader failed - attempting to use GL ES");
+        program = createShaderProgram_GL_ES(vertexShader, fragmentShader);
+      }
+    } else {
+      program = createShaderProgram_GL_ES(vertexShader, fragmentShader);
+      if (!program.isCompiled()) {
+        errorLog = program.getLog();
+        program.dispose();
+        Gdx.app.log(TAG, "Compilation as GL ES shader failed - attempting to use GL");
+        program = createShaderProgram_GL(vertexShader, fragmentShader);
+      }
+    }
+    if (!program.isCompiled()) {
+      program.dispose();
+      throw new GdxRuntimeException("Error while compiling shader: " + errorLog);
+    }
+    long time = TimeUtils.timeSinceNanos(startTime);
+    compileCount++;
+    compileTime += time;
+    Gdx.app.log(TAG, String.format("Shader program compiled (%.2f ms)", time / 1000000f));
+    return program;
+  }
+
   public static ShaderProgram createShaderProgram(String vertexShader, String fragmentShader) {
     versatileMapKey.setShaders(vertexShader, fragmentShader);
     UsageCountedShaderProgram program = programInstances.get(versatileMapKey);
     if (program == null) {
-      String errorLog = null;
-      if (Gdx.app.getType() == ApplicationType.Desktop || Gdx.app.getType() == ApplicationType.HeadlessDesktop) {
-        program = createShaderProgram_GL(vertexShader, fragmentShader);
-        if (!program.isCompiled()) {
-          errorLog = program.getLog();
-          Gdx.app.log(TAG, "Compilation as GL shader failed - attempting to use GL ES");
-          program = createShaderProgram_GL_ES(vertexShader, fragmentShader);
-        }
-      } else {
-        program = createShaderProgram_GL_ES(vertexShader, fragmentShader);
-        if (!program.isCompiled()) {
-          errorLog = program.getLog();
-          Gdx.app.log(TAG, "Compilation as GL ES shader failed - attempting to use GL");
-          program = createShaderProgram_GL(vertexShader, fragmentShader);
-        }
-      }
-      if (errorLog != null)
-        throw new GdxRuntimeException("Error while compiling shader: " + errorLog);
+      ShaderKey key = new ShaderKey(vertexShader, fragmentShader);
+      program = compileShaderProgram(vertexShader, fragmentShader);
+      program.setKey(key);
+      programInstances.put(key, program);
     }
     program.incUsageCounter();
     return program;
   }
-  
-  private interface InstanceMapKey {
-    public String getVertexShaderSource();
-    
-    public String getFragmentShaderSource();
+
+  /**
+   * Returns uniforms of a program created by this factory. The instance is shared
+   * by all users of the program, so cached uniform values are always accurate.
+   * @param program Program created by {@link #createShaderProgram(String, String)}
+   * @return Uniforms of the program
+   */
+  public static GdxShaderUniforms getUniforms(ShaderProgram program) {
+    if (!(program instanceof UsageCountedShaderProgram))
+      throw new IllegalArgumentException("Shader program was not created by " + TAG);
+    return ((UsageCountedShaderProgram)program).getUniformCache();
+  }
+
+  /**
+   * Invalidates cached uniforms of all programs. Needs to be called after
+   * the programs have been recompiled due to OpenGL context loss.
+   */
+  public static void invalidateUniforms() {
+    for (UsageCountedShaderProgram program : programInstances.values()) {
+      program.getUniformCache().invalidate();
+    }
+  }
+
+  /**
+   * Registers a shader to be compiled during {@link #warmUp()}. Registering
+   * the same pair of sources more than once has no effect.
+   * @param vertexShader Source of the vertex shader
+   * @param fragmentShader Source of the fragment shader
+   */
+  public static void registerShader(String vertexShader, String fragmentShader) {
+    registeredShaders.add(new ShaderKey(vertexShader, fragmentShader));
+  }
+
+  /**
+   * Compiles all registered shaders which haven't been compiled yet. Compiled programs
+   * are kept alive until {@link #releaseWarmedUp()} is called, even if all their users
+   * dispose them in the meantime.
+   * @return Time spent compiling in seconds
+   */
+  public static float warmUp() {
+    long startTime = TimeUtils.nanoTime();
+    int startCount = compileCount;
+    for (ShaderKey key : registeredShaders) {
+      ShaderProgram program = createShaderProgram(key.vertexShader, key.fragmentShader);
+      if (warmedUpPrograms.contains(program)) {
+        program.dispose();
+      } else {
+        warmedUpPrograms.add(program);
+      }
+    }
+    float time = TimeUtils.timeSinceNanos(startTime) / 1000000000f;
+    Gdx.app.log(TAG, String.format("Warm-up compiled %d shader programs (%.2f ms)",
+        compileCount - startCount, time * 1000));
+    return time;
   }
-  
-  private static class VersatileMapKey implements InstanceMapKey {
+
+  /**
+   * Releases all programs kept alive by {@link #warmUp()}. Programs which are still
+   * in use elsewhere remain compiled.
+   */
+  public static void releaseWarmedUp() {
+    for (ShaderProgram program : warmedUpPrograms) {
+      program.dispose();
+    }
+    warmedUpPrograms.clear();
+  }
+
+  /**
+   * @return Number of shader programs compiled since the application started
+   */
+  public static int getCompileCount() {
+    return compileCount;
+  }
+
+  /**
+   * @return Total time spent compiling shader programs in seconds
+   */
+  public static float getCompileTime() {
+    return compileTime / 1000000000f;
+  }
+
+  private static class ShaderKey {
     private String vertexShader, fragmentShader;
-    
+    private int hashCode;
+
+    public ShaderKey() { }
+
+    public ShaderKey(String vertexShader, String fragmentShader) {
+      setShaders(vertexShader, fragmentShader);
+    }
+
     public void setShaders(String vertexShader, String fragmentShader) {
       this.vertexShader = vertexShader;
       this.fragmentShader = fragmentShader;
-    }
-    
-    @Override
-    public String getVertexShaderSource() {
-      return vertexShader;
-    }
-
-    @Override
-    public String getFragmentShaderSource() {
-      return fragmentShader;
+      // String hash codes cover the entire content and are cached by the strings themselves
+      hashCode = 31 * vertexShader.hashCode() + fragmentShader.hashCode();
     }
 
     @Override
     public int hashCode() {
-      final int prime = 31;
-      int result = 1;
-      result = prime * result + vertexShader.length();
-      result = prime * result + fragmentShader.length();
-      return result;
+      return hashCode;
     }
 
     @Override
@@ -114,49 +221,32 @@ public class ShaderFactory {
         return true;
       if (object == null)
         return false;
-      if (object instanceof InstanceMapKey) {
-        InstanceMapKey other = (InstanceMapKey)object;
-        return vertexShader.equals(other.getVertexShaderSource()) && 
-            fragmentShader.equals(other.getFragmentShaderSource());
+      if (object instanceof ShaderKey) {
+        ShaderKey other = (ShaderKey)object;
+        return hashCode == other.hashCode &&
+            vertexShader.equals(other.vertexShader) &&
+            fragmentShader.equals(other.fragmentShader);
       }
       return false;
     }
   }
-  
-  private static class UsageCountedShaderProgram extends ShaderProgram implements InstanceMapKey {
+
+  private static class UsageCountedShaderProgram extends ShaderProgram {
     private int usageCounter = 0;
-    
-    public UsageCountedShaderProgram(FileHandle vertexShader, FileHandle fragmentShader) {
-      super(vertexShader, fragmentShader);
-      programInstances.put(this, this);
-    }
+    private ShaderKey key;
+    private final GdxShaderUniforms uniforms;
 
     public UsageCountedShaderProgram(String vertexShader, String fragmentShader) {
       super(vertexShader, fragmentShader);
-      programInstances.put(this, this);
+      uniforms = new GdxShaderUniforms(this);
     }
-    
-    @Override
-    public int hashCode() {
-      final int prime = 31;
-      int result = 1;
-      result = prime * result + getVertexShaderSource().length();
-      result = prime * result + getFragmentShaderSource().length();
-      return result;
+
+    public GdxShaderUniforms getUniformCache() {
+      return uniforms;
     }
 
-    @Override
-    public boolean equals(Object object) {
-      if (this == object)
-        return true;
-      if (object == null)
-        return false;
-      if (object instanceof InstanceMapKey) {
-        InstanceMapKey other = (InstanceMapKey)object;
-        return getVertexShaderSource().equals(other.getVertexShaderSource()) && 
-            getFragmentShaderSource().equals(other.getFragmentShaderSource());
-      }
-      return false;
+    public void setKey(ShaderKey key) {
+      this.key = key;
     }
 
     public void incUsageCounter() {
@@ -167,7 +257,7 @@ public class ShaderFactory {
     public void dispose() {
       usageCounter--;
       if (usageCounter <= 0) {
-        programInstances.remove(this);
+        if (key != null) programInstances.remove(key);
         super.dispose();
       }
     }
@@ -1,6 +1,14 @@
 package helpers;
 
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.TextureData.TextureDataType;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
 public class TextureUtils {
   public static float scaleWidth(float height, TextureRegion image) {
@@ -10,4 +18,154 @@ public class TextureUtils {
   public static float scaleHeight(float width, TextureRegion image) {
     return width / image.getRegionWidth() * image.getRegionHeight();
   }
+  
+  /**
+   * Multiplies color channels of all pixels of the pixmap by their alpha.
+   * Pixmaps in formats without color or alpha channel are left untouched.
+   * @param pixmap Pixmap to be modified
+   */
+  public static void premultiplyAlpha(Pixmap pixmap) {
+    Format format = pixmap.getFormat();
+    if (!isPremultipliable(format)) return;
+    if (format == Format.RGBA8888) {
+      ByteBuffer pixels = pixmap.getPixels();
+      int length = pixmap.getWidth() * pixmap.getHeight() * 4;
+      for (int i = 0; i < length; i += 4) {
+        int alpha = pixels.get(i + 3) & 0xff;
+        if (alpha == 0xff) continue;
+        pixels.put(i, (byte)(((pixels.get(i) & 0xff) * alpha + 127) / 255));
+        pixels.put(i + 1, (byte)(((pixels.get(i + 1) & 0xff) * alpha + 127) / 255));
+        pixels.put(i + 2, (byte)(((pixels.get(i + 2) & 0xff) * alpha + 127) / 255));
+      }
+    } else {
+      int width = pixmap.getWidth();
+      int height = pixmap.getHeight();
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          int color = pixmap.getPixel(x, y); // Always returned as RGBA8888
+          int alpha = color & 0xff;
+          if (alpha == 0xff) continue;
+          int red = (((color >>> 24) & 0xff) * alpha + 127) / 255;
+          int green = (((color >>> 16) & 0xff) * alpha + 127) / 255;
+          int blue = (((color >>> 8) & 0xff) * alpha + 127) / 255;
+          pixmap.drawPixel(x, y, (red << 24) | (green << 16) | (blue << 8) | alpha);
+        }
+      }
+    }
+  }
+  
+  /**
+   * Multiplies color channels of all pixels of the texture by their alpha and uploads
+   * the result. Only textures backed by pixmap data are supported.
+   * <p>
+   * Texture data is replaced by one premultiplying every time it's uploaded, so managed textures
+   * stay premultiplied when reloaded after OpenGL context loss. Pixmaps owned by the caller
+   * are never modified, they are premultiplied in a copy. Textures already premultiplied are left untouched.
+   * @param texture Texture to be modified
+   */
+  public static void premultiplyAlpha(Texture texture) {
+    TextureData data = texture.getTextureData();
+    if (data instanceof PremultipliedTextureData) return;
+    if (data.getType() != TextureDataType.Pixmap)
+      throw new GdxRuntimeException("Only pixmap based textures can be premultiplied");
+    texture.load(new PremultipliedTextureData(data));
+  }
+  
+  /**
+   * @param texture Texture to be checked
+   * @return Whether the texture has been premultiplied by {@link #premultiplyAlpha(Texture)}
+   */
+  public static boolean isPremultiplied(Texture texture) {
+    return texture.getTextureData() instanceof PremultipliedTextureData;
+  }
+  
+  private static boolean isPremultipliable(Format format) {
+    return format == Format.RGBA8888 || format == Format.RGBA4444 || format == Format.LuminanceAlpha;
+  }
+  
+  private static Pixmap copy(Pixmap pixmap) {
+    Pixmap copy = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), pixmap.getFormat());
+    ByteBuffer pixels = pixmap.getPixels().duplicate();
+    pixels.clear();
+    ByteBuffer copiedPixels = copy.getPixels().duplicate();
+    copiedPixels.clear();
+    copiedPixels.put(pixels);
+    return copy;
+  }
+  
+  /**
+   * Texture data premultiplying pixmaps of another data whenever they are consumed.
+   */
+  private static class PremultipliedTextureData implements TextureData {
+    private final TextureData data;
+    private boolean disposePixmap;
+    
+    public PremultipliedTextureData(TextureData data) {
+      this.data = data;
+    }
+    
+    @Override
+    public TextureDataType getType() {
+      return TextureDataType.Pixmap;
+    }
+    
+    @Override
+    public boolean isPrepared() {
+      return data.isPrepared();
+    }
+    
+    @Override
+    public void prepare() {
+      data.prepare();
+    }
+    
+    @Override
+    public Pixmap consumePixmap() {
+      Pixmap pixmap = data.consumePixmap();
+      disposePixmap = data.disposePixmap();
+      if (!isPremultipliable(pixmap.getFormat())) return pixmap;
+      if (!disposePixmap) {
+        //Pixmap is owned by someone else, so only its copy can be modified
+        pixmap = copy(pixmap);
+        disposePixmap = true;
+      }
+      premultiplyAlpha(pixmap);
+      return pixmap;
+    }
+    
+    @Override
+    public boolean disposePixmap() {
+      return disposePixmap;
+    }
+    
+    @Override
+    public void consumeCustomData(int target) {
+      throw new GdxRuntimeException("This TextureData implementation does not upload data itself");
+    }
+    
+    @Override
+    public int getWidth() {
+      return data.getWidth();
+    }
+    
+    @Override
+    public int getHeight() {
+      return data.getHeight();
+    }
+    
+    @Override
+    public Format getFormat() {
+      return data.getFormat();
+    }
+    
+    @Override
+    public boolean useMipMaps() {
+      return data.useMipMaps();
+    }
+    
+    @Override
+    public boolean isManaged() {
+      return data.isManaged();
+    }
+  }
 }
@@ -16,6 +16,17 @@ public class SingleElementIterator<E> implements Iterator<E> {
     this.unused = true;
   }
   
+  /**
+   * Makes the iterator return a given element once again, so it can be reused.
+   * @param element Element to be returned by the iterator
+   * @return This iterator
+   */
+  public SingleElementIterator<E> reset(E element) {
+    this.element = element;
+    this.unused = true;
+    return this;
+  }
+
   @Override
   public boolean hasNext() {
     return unused;
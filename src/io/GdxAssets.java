@@ -1,5 +1,7 @@
 package io;
 
+import helpers.TextureUtils;
+
 import java.util.HashMap;
 import java.util.Iterator;
 
@@ -15,6 +17,7 @@ public class GdxAssets implements Disposable {
   private HashMap<String, BitmapFont> fonts = new HashMap<String, BitmapFont>();
   private BitmapFont defaultFont = null;
   private TextureFilter defaultTextureFilter = TextureFilter.Linear;
+  private boolean premultiplyAlpha = false;
   private static GdxMainFrame frame;
 
   /**
@@ -54,6 +57,28 @@ public class GdxAssets implements Disposable {
     defaultTextureFilter = textureFilter;
   }
 
+  public boolean isPremultiplyAlpha() {
+    return premultiplyAlpha;
+  }
+
+  /**
+   * Sets whether textures and fonts should be premultiplied by alpha when added. This only
+   * affects assets added afterwards, so it should be set before any assets are added.
+   * Use together with {@link GdxPainter2D#setPremultipliedAlpha(boolean)}.
+   * Textures stay premultiplied when reloaded, see {@link TextureUtils#premultiplyAlpha(Texture)}.
+   * @param premultiplyAlpha Whether to premultiply added textures by alpha
+   */
+  public void setPremultiplyAlpha(boolean premultiplyAlpha) {
+    this.premultiplyAlpha = premultiplyAlpha;
+  }
+
+  private void premultiplyTexture(Texture texture) {
+    // A single texture may back multiple regions, it's only premultiplied once
+    if (premultiplyAlpha && !TextureUtils.isPremultiplied(texture)) {
+      TextureUtils.premultiplyAlpha(texture);
+    }
+  }
+
   public void addTexture(String name, Texture texture) {
     addTexture(name, texture, false);
   }
@@ -71,6 +96,7 @@ public class GdxAssets implements Disposable {
     if (textureRegion == null) throw new NullPointerException("No texture to be added");
     if (defaultTextureFilter != null)
       textureRegion.getTexture().setFilter(defaultTextureFilter, defaultTextureFilter);
+    premultiplyTexture(textureRegion.getTexture());
     textureRegion.flip(false, !flipY); // Textures are flipped by default because of y-down coordinate system
     textures.put(name, textureRegion);
   }
@@ -95,6 +121,9 @@ public class GdxAssets implements Disposable {
       for (TextureRegion textureRegion : font.getRegions()) {
         textureRegion.getTexture().setFilter(defaultTextureFilter, defaultTextureFilter);
       }
+    for (TextureRegion textureRegion : font.getRegions()) {
+      premultiplyTexture(textureRegion.getTexture());
+    }
     if (fonts.size() == 0) defaultFont = font;
     fonts.put(name, font);
   }
@@ -121,8 +150,12 @@ public class GdxAssets implements Disposable {
   }
 
   public BitmapFont getDefaultFont() {
-    if (defaultFont == null)
+    if (defaultFont == null) {
       defaultFont = new BitmapFont(true);
+      for (TextureRegion textureRegion : defaultFont.getRegions()) {
+        premultiplyTexture(textureRegion.getTexture());
+      }
+    }
     return defaultFont;
   }
   
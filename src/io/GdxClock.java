@@ -0,0 +1,20 @@
+package io;
+
+/**
+ * Source of time used for timing of input events. Replacing the system clock
+ * allows to replay recorded input deterministically.
+ *
+ */
+public interface GdxClock {
+  public static final GdxClock SYSTEM = new GdxClock() {
+    @Override
+    public long nanoTime() {
+      return System.nanoTime();
+    }
+  };
+
+  /**
+   * @return Current time in nanoseconds, only meaningful relative to other values of the same clock
+   */
+  public long nanoTime();
+}
@@ -0,0 +1,291 @@
+package io;
+
+import helpers.ShaderFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.RenderableProvider;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.Ray;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Pool;
+
+import components.interfaces.GdxComponent3D;
+
+/**
+ * Finds 3D components under the pointer by rendering them in colors encoding their identifiers
+ * and reading the colors back. Unlike bounding shapes, this is exact to a pixel for any mesh.
+ * Owned by {@link GdxPainter3D}.
+ * <p>
+ * Only a small area around each pointer is rendered, each area into its own tile of an offscreen
+ * target. Areas of all pointers currently down are rendered in a single pass with a single readback,
+ * so several pointer queries during one frame share it. The pass is repeated only for a position
+ * not covered yet, or once the components have been painted again.
+ * <p>
+ * Components are registered while being painted and the pass uses those of the last painted frame,
+ * so the result matches what is on the screen.
+ *
+ */
+public class GdxColorPicker implements Disposable {
+  public static final String TAG = GdxColorPicker.class.getSimpleName();
+
+  private static final int TILE_SIZE = 3; //Pixels, odd so that the pointer is in the middle
+  private static final int MAX_TILES = 10; //Pointers per pass
+
+  private final GdxPainter3D painter;
+  private ArrayList<GdxComponent3D> components = new ArrayList<GdxComponent3D>();
+  private ArrayList<Iterable<? extends RenderableProvider>> models = new ArrayList<Iterable<? extends RenderableProvider>>();
+  private ArrayList<GdxComponent3D> nextComponents = new ArrayList<GdxComponent3D>();
+  private ArrayList<Iterable<? extends RenderableProvider>> nextModels = new ArrayList<Iterable<? extends RenderableProvider>>();
+  private HashSet<GdxComponent3D> registered = new HashSet<GdxComponent3D>();
+  private HashSet<GdxComponent3D> nextRegistered = new HashSet<GdxComponent3D>();
+  private final float[] tileX = new float[MAX_TILES], tileY = new float[MAX_TILES]; //Window pixels, y grows upwards
+  private final GdxComponent3D[] tileHits = new GdxComponent3D[MAX_TILES];
+  private int tileCount = 0;
+  private long passFrameId = -1;
+  private boolean passValid = false;
+  private int passes = 0;
+  private FrameBuffer frameBuffer;
+  private ShaderProgram program;
+  private final ByteBuffer pixels = BufferUtils.newByteBuffer(MAX_TILES * TILE_SIZE * TILE_SIZE * 4);
+  private final Array<Renderable> renderables = new Array<Renderable>();
+  private int[] renderableIds = new int[64];
+  private final Pool<Renderable> renderablePool = new Pool<Renderable>() {
+    @Override
+    protected Renderable newObject() {
+      return new Renderable();
+    }
+  };
+  private final Matrix4 projection = new Matrix4();
+  private final Vector3 position = new Vector3();
+
+  public GdxColorPicker(GdxPainter3D painter) {
+    this.painter = painter;
+  }
+
+  /**
+   * Registers models of a component painted in the current frame.
+   * @param component Component to be reported when any of the models is hit
+   * @param models Models of the component
+   */
+  public void add(GdxComponent3D component, Iterable<? extends RenderableProvider> models) {
+    nextComponents.add(component);
+    nextModels.add(models);
+    nextRegistered.add(component);
+  }
+
+  /**
+   * Makes the components registered during the current frame the ones to be picked from.
+   * Called by the painter once the frame is painted.
+   */
+  public void frameFinished() {
+    ArrayList<GdxComponent3D> swappedComponents = components;
+    components = nextComponents;
+    nextComponents = swappedComponents;
+    nextComponents.clear();
+    ArrayList<Iterable<? extends RenderableProvider>> swappedModels = models;
+    models = nextModels;
+    nextModels = swappedModels;
+    nextModels.clear();
+    HashSet<GdxComponent3D> swappedRegistered = registered;
+    registered = nextRegistered;
+    nextRegistered = swappedRegistered;
+    nextRegistered.clear();
+    passValid = false;
+  }
+
+  /**
+   * @param component Component to be tested
+   * @return Whether the component has been registered during the last painted frame
+   */
+  public boolean isRegistered(GdxComponent3D component) {
+    return registered.contains(component);
+  }
+
+  /**
+   * Finds the registered component closest to the camera under a pointer. Must not be called
+   * while painting, i.e. it's meant to be called while handling input.
+   * @param pickingRay Picking ray of the pointer, as provided by {@link GdxPainter3D#getPickingRay(int, int)}
+   * @return Component hit by the ray or NULL if none of the registered components is hit
+   */
+  public GdxComponent3D pick(Ray pickingRay) {
+    Camera camera = painter.currentCamera;
+    //Frame coordinates grow downwards, unlike world coordinates
+    position.set(pickingRay.origin.x, - pickingRay.origin.y, pickingRay.origin.z).prj(camera.combined);
+    float x = (position.x + 1) / 2 * Gdx.graphics.getWidth();
+    float y = (position.y + 1) / 2 * Gdx.graphics.getHeight();
+    if (passFrameId != Gdx.graphics.getFrameId()) passValid = false;
+    if (passValid) {
+      int tile = findTile(x, y);
+      if (tile >= 0) return tileHits[tile];
+    }
+    tileCount = 0;
+    addTile(x, y);
+    for (int pointer = 0; pointer < MAX_TILES; pointer++) {
+      if (Gdx.input.isTouched(pointer)) {
+        //Mirrors the window to viewport conversion of Camera.getPickRay
+        float pointerX = Gdx.input.getX(pointer);
+        float pointerY = Gdx.graphics.getHeight() - Gdx.input.getY(pointer) - 1;
+        if (findTile(pointerX, pointerY) < 0) addTile(pointerX, pointerY);
+      }
+    }
+    render(camera);
+    passFrameId = Gdx.graphics.getFrameId();
+    passValid = true;
+    return tileHits[0];
+  }
+
+  /**
+   * @return Number of picking passes rendered so far
+   */
+  public int getPasses() {
+    return passes;
+  }
+
+  private int findTile(float x, float y) {
+    for (int i = 0; i < tileCount; i++) {
+      if (Math.abs(tileX[i] - x) < 0.5f && Math.abs(tileY[i] - y) < 0.5f) return i;
+    }
+    return -1;
+  }
+
+  private void addTile(float x, float y) {
+    if (tileCount == MAX_TILES) return;
+    tileX[tileCount] = x;
+    tileY[tileCount] = y;
+    tileCount++;
+  }
+
+  private void render(Camera camera) {
+    passes++;
+    if (frameBuffer == null) {
+      frameBuffer = new FrameBuffer(Format.RGBA8888, MAX_TILES * TILE_SIZE, TILE_SIZE, true);
+      Gdx.app.log(TAG, String.format("Picking target created (%d x %d px)", MAX_TILES * TILE_SIZE, TILE_SIZE));
+    }
+    if (program == null) program = ShaderFactory.createShaderProgram(VERTEX_PICKING, FRAGMENT_PICKING);
+    for (int i = 0; i < models.size(); i++) {
+      for (RenderableProvider model : models.get(i)) {
+        int start = renderables.size;
+        model.getRenderables(renderables, renderablePool);
+        if (renderables.size > renderableIds.length) {
+          renderableIds = Arrays.copyOf(renderableIds, Math.max(renderables.size, renderableIds.length * 2));
+        }
+        //Identifier 0 is left for the background
+        Arrays.fill(renderableIds, start, renderables.size, i + 1);
+      }
+    }
+    frameBuffer.begin();
+    painter.glState.frameBufferSwitched();
+    //State shadowed by the painter goes through its GL state, so the shadow stays in sync
+    painter.glState.setScissorTest(false);
+    painter.glState.setClearColor(0, 0, 0, 0);
+    Gdx.gl.glDisable(GL20.GL_BLEND);
+    Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
+    Gdx.gl.glEnable(GL20.GL_DEPTH_TEST);
+    Gdx.gl.glDepthFunc(GL20.GL_LEQUAL);
+    Gdx.gl.glDepthMask(true);
+    //Faces are not culled, so double sided models can be hit from behind as well
+    Gdx.gl.glDisable(GL20.GL_CULL_FACE);
+    program.begin();
+    float scaleX = Gdx.graphics.getWidth() / (float)TILE_SIZE;
+    float scaleY = Gdx.graphics.getHeight() / (float)TILE_SIZE;
+    for (int tile = 0; tile < tileCount; tile++) {
+      Gdx.gl.glViewport(tile * TILE_SIZE, 0, TILE_SIZE, TILE_SIZE);
+      //Magnifies the pixels around the pointer to fill the whole tile
+      float centerX = tileX[tile] / Gdx.graphics.getWidth() * 2 - 1;
+      float centerY = tileY[tile] / Gdx.graphics.getHeight() * 2 - 1;
+      projection.idt();
+      projection.val[Matrix4.M00] = scaleX;
+      projection.val[Matrix4.M11] = scaleY;
+      projection.val[Matrix4.M03] = - centerX * scaleX;
+      projection.val[Matrix4.M13] = - centerY * scaleY;
+      projection.mul(camera.combined);
+      program.setUniformMatrix("u_projViewTrans", projection);
+      for (int i = 0; i < renderables.size; i++) {
+        Renderable renderable = renderables.get(i);
+        int id = renderableIds[i];
+        program.setUniformf("u_color", (id & 0xFF) / 255f, ((id >> 8) & 0xFF) / 255f, ((id >> 16) & 0xFF) / 255f, 1);
+        program.setUniformMatrix("u_worldTrans", renderable.worldTransform);
+        renderable.meshPart.render(program);
+      }
+    }
+    program.end();
+    pixels.clear();
+    Gdx.gl.glReadPixels(0, 0, tileCount * TILE_SIZE, TILE_SIZE, GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, pixels);
+    Gdx.gl.glDisable(GL20.GL_DEPTH_TEST);
+    frameBuffer.end();
+    painter.glState.frameBufferSwitched();
+    for (int tile = 0; tile < tileCount; tile++) {
+      tileHits[tile] = resolveTile(tile);
+    }
+    renderablePool.freeAll(renderables);
+    renderables.clear();
+  }
+
+  /**
+   * Takes the middle pixel of a tile, or if there's no component, any of the surrounding pixels,
+   * so thin parts of models can be hit as well.
+   */
+  private GdxComponent3D resolveTile(int tile) {
+    int middle = TILE_SIZE / 2;
+    int id = getId(tile * TILE_SIZE + middle, middle);
+    for (int y = 0; y < TILE_SIZE && id == 0; y++) {
+      for (int x = 0; x < TILE_SIZE && id == 0; x++) {
+        id = getId(tile * TILE_SIZE + x, y);
+      }
+    }
+    return id == 0 || id > components.size() ? null : components.get(id - 1);
+  }
+
+  private int getId(int x, int y) {
+    int offset = (y * tileCount * TILE_SIZE + x) * 4;
+    return (pixels.get(offset) & 0xFF) | (pixels.get(offset + 1) & 0xFF) << 8 | (pixels.get(offset + 2) & 0xFF) << 16;
+  }
+
+  @Override
+  public void dispose() {
+    if (frameBuffer != null) frameBuffer.dispose();
+    frameBuffer = null;
+    if (program != null) program.dispose();
+    program = null;
+    components.clear();
+    models.clear();
+    nextComponents.clear();
+    nextModels.clear();
+    registered.clear();
+    nextRegistered.clear();
+  }
+
+  private static final String VERTEX_PICKING =
+      "precision highp float;\n" +
+
+      "attribute vec3 a_position;\n" +
+
+      "uniform mat4 u_projViewTrans;\n" +
+      "uniform mat4 u_worldTrans;\n" +
+
+      "void main() {\n" +
+      "  gl_Position = u_projViewTrans * u_worldTrans * vec4(a_position, 1.0);\n" +
+      "}\n";
+  private static final String FRAGMENT_PICKING =
+      "precision mediump float;\n" +
+
+      "uniform vec4 u_color;\n" +
+
+      "void main() {\n" +
+      "  gl_FragColor = u_color;\n" +
+      "}\n";
+}
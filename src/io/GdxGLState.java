@@ -0,0 +1,197 @@
+package io;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.scenes.scene2d.utils.ScissorStack;
+
+/**
+ * Shadow copy of OpenGL state modified by a painter. Calls which would not change
+ * the current state are skipped, which saves driver round trips especially on tiled
+ * mobile GPUs.
+ * <p>
+ * The shadow copy is only accurate as long as the state is modified exclusively through
+ * this class. Whenever any other code (e.g. ModelBatch) may have modified the state directly,
+ * {@link #invalidate()} has to be called.
+ *
+ */
+public class GdxGLState {
+  private static final int UNKNOWN = -1;
+
+  private final SpriteBatch spriteBatch;
+  private int srcColorFunc = UNKNOWN, dstColorFunc = UNKNOWN;
+  private int srcAlphaFunc = UNKNOWN, dstAlphaFunc = UNKNOWN;
+  private float clearR, clearG, clearB, clearA;
+  private boolean clearColorKnown = false;
+  private Boolean scissorTest = null;
+  private int scissorDepth = 0;
+  private ShaderProgram batchShader = null;
+  private int stateChanges = 0, skippedStateChanges = 0;
+  private int frameStateChanges = 0, frameSkippedStateChanges = 0;
+  private int shaderSwitches = 0, frameBufferSwitches = 0;
+  private int frameShaderSwitches = 0, frameFrameBufferSwitches = 0;
+
+  public GdxGLState(SpriteBatch spriteBatch) {
+    this.spriteBatch = spriteBatch;
+  }
+
+  /**
+   * Forgets the shadowed state, so the next call of each kind is always passed to OpenGL.
+   * Scissor stack depth and batch shader are tracked independently of OpenGL and are kept.
+   */
+  public void invalidate() {
+    srcColorFunc = dstColorFunc = srcAlphaFunc = dstAlphaFunc = UNKNOWN;
+    clearColorKnown = false;
+    scissorTest = null;
+  }
+
+  public void setBlendFunction(int srcColorFunc, int dstColorFunc, int srcAlphaFunc, int dstAlphaFunc) {
+    if (this.srcColorFunc == srcColorFunc && this.dstColorFunc == dstColorFunc
+        && this.srcAlphaFunc == srcAlphaFunc && this.dstAlphaFunc == dstAlphaFunc) {
+      skippedStateChanges++;
+      return;
+    }
+    this.srcColorFunc = srcColorFunc;
+    this.dstColorFunc = dstColorFunc;
+    this.srcAlphaFunc = srcAlphaFunc;
+    this.dstAlphaFunc = dstAlphaFunc;
+    if (srcColorFunc == srcAlphaFunc && dstColorFunc == dstAlphaFunc) {
+      Gdx.gl.glBlendFunc(srcColorFunc, dstColorFunc);
+    } else {
+      Gdx.gl.glBlendFuncSeparate(srcColorFunc, dstColorFunc, srcAlphaFunc, dstAlphaFunc);
+    }
+    stateChanges++;
+  }
+
+  public void setClearColor(float r, float g, float b, float a) {
+    if (clearColorKnown && clearR == r && clearG == g && clearB == b && clearA == a) {
+      skippedStateChanges++;
+      return;
+    }
+    clearR = r;
+    clearG = g;
+    clearB = b;
+    clearA = a;
+    clearColorKnown = true;
+    Gdx.gl.glClearColor(r, g, b, a);
+    stateChanges++;
+  }
+
+  public void setScissorTest(boolean enabled) {
+    if (scissorTest != null && scissorTest == enabled) {
+      skippedStateChanges++;
+      return;
+    }
+    scissorTest = enabled;
+    if (enabled) {
+      Gdx.gl.glEnable(GL20.GL_SCISSOR_TEST);
+    } else {
+      Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
+    }
+    stateChanges++;
+  }
+
+  /**
+   * Pushes scissors on {@link ScissorStack} while keeping track of its depth,
+   * so it never needs to be queried from OpenGL.
+   * @param scissors Scissors in screen coordinates
+   * @return Whether the scissors have been pushed
+   */
+  public boolean pushScissors(Rectangle scissors) {
+    if (!ScissorStack.pushScissors(scissors)) return false;
+    // ScissorStack enables scissor test on its own when pushing on an empty stack
+    if (scissorDepth == 0) scissorTest = true;
+    scissorDepth++;
+    stateChanges++;
+    return true;
+  }
+
+  public Rectangle popScissors() {
+    Rectangle scissors = ScissorStack.popScissors();
+    scissorDepth--;
+    // ScissorStack disables scissor test on its own once it's empty
+    if (scissorDepth == 0) scissorTest = false;
+    stateChanges++;
+    return scissors;
+  }
+
+  /**
+   * @return Number of scissors pushed on {@link ScissorStack} through this instance
+   */
+  public int getScissorDepth() {
+    return scissorDepth;
+  }
+
+  /**
+   * Sets a shader used by sprite batch. Unlike {@link SpriteBatch#setShader(ShaderProgram)},
+   * this doesn't flush the batch if the shader is already in use.
+   * @param shader Shader program or NULL for the default shader
+   */
+  public void setBatchShader(ShaderProgram shader) {
+    if (batchShader == shader) {
+      skippedStateChanges++;
+      return;
+    }
+    batchShader = shader;
+    spriteBatch.setShader(shader);
+    stateChanges++;
+    shaderSwitches++;
+  }
+
+  /**
+   * @return Shader program used by sprite batch, or NULL for the default shader
+   */
+  public ShaderProgram getBatchShader() {
+    return batchShader;
+  }
+
+  /**
+   * Records a framebuffer being bound or unbound. Framebuffers are bound by the painter
+   * directly, so this only serves the purpose of counting switches per frame.
+   */
+  public void frameBufferSwitched() {
+    frameBufferSwitches++;
+  }
+
+  /**
+   * Marks an end of a frame for the purpose of counting state changes per frame.
+   */
+  public void frameFinished() {
+    frameStateChanges = stateChanges;
+    frameSkippedStateChanges = skippedStateChanges;
+    frameShaderSwitches = shaderSwitches;
+    frameFrameBufferSwitches = frameBufferSwitches;
+    stateChanges = skippedStateChanges = 0;
+    shaderSwitches = frameBufferSwitches = 0;
+  }
+
+  /**
+   * @return Number of sprite batch shader switches during the last finished frame
+   */
+  public int getShaderSwitchesPerFrame() {
+    return frameShaderSwitches;
+  }
+
+  /**
+   * @return Number of framebuffer binds and unbinds during the last finished frame
+   */
+  public int getFrameBufferSwitchesPerFrame() {
+    return frameFrameBufferSwitches;
+  }
+
+  /**
+   * @return Number of state changes passed to OpenGL during the last finished frame
+   */
+  public int getStateChangesPerFrame() {
+    return frameStateChanges;
+  }
+
+  /**
+   * @return Number of redundant state changes skipped during the last finished frame
+   */
+  public int getSkippedStateChangesPerFrame() {
+    return frameSkippedStateChanges;
+  }
+}
@@ -1,5 +1,9 @@
 package io;
 
+import helpers.AllocationMonitor;
+import helpers.BoundingVolumeHierarchy;
+import helpers.FrameTracer;
+import helpers.FrameTracer.Phase;
 import helpers.collections.SingleElementIterator;
 
 import java.util.ArrayList;
@@ -30,6 +34,7 @@ import com.badlogic.gdx.math.collision.Ray;
 import com.badlogic.gdx.utils.Disposable;
 
 import components.GdxMainFrame;
+import components.abstracts.GdxAbstractComponent3D;
 import components.interfaces.GdxComponent;
 import components.interfaces.GdxContainer;
 import components.interfaces.GdxSingletouchComponent;
@@ -51,10 +56,21 @@ public class GdxInputManager implements InputProcessor, Disposable {
   private long multitapMaxDelay = DEFAULT_MULTITAP_MAX_DELAY;
   private long tapMaxDuration = DEFAULT_TAP_MAX_DURATION;
   private float tapMaxDragDistanceX, tapMaxDragDistanceY;
+  private GdxClock clock = GdxClock.SYSTEM;
+  private final AllocationMonitor allocationMonitor;
+  private final FrameTracer tracer;
+  //Reused during dispatching, so steady input doesn't allocate
+  private final SingleElementIterator<GdxComponent> frameIterator = new SingleElementIterator<GdxComponent>(null);
+  private final ArrayList<ArrayList<IntersectedComponent>> intersectedLists = new ArrayList<ArrayList<IntersectedComponent>>();
+  private final ArrayList<IntersectedComponent> freeIntersected = new ArrayList<IntersectedComponent>();
+  private int intersectedDepth = 0;
+  private final Vector3 pointerIntersection = new Vector3();
   
   public GdxInputManager(GdxMainFrame mainFrame) {
     this.mainFrame = mainFrame;
     this.painter = mainFrame.getPainter();
+    this.allocationMonitor = mainFrame.getAllocationMonitor();
+    this.tracer = mainFrame.getTracer();
     InputProcessor inputProcessor = Gdx.input.getInputProcessor();
     if (inputProcessor == null || inputProcessor instanceof InputMultiplexer) {
       inputProcessor = new InputMultiplexer();
@@ -64,6 +80,21 @@ public class GdxInputManager implements InputProcessor, Disposable {
     setTapMaxDragDistanceCentimeters(DEFAULT_TAP_MAX_DRAG_DISTANCE);
   }
 
+  public GdxClock getClock() {
+    return clock;
+  }
+
+  /**
+   * Replaces the clock used for timing of taps and flings. Should only be
+   * replaced while no pointer is down, otherwise timing of pending touches is lost.
+   * @param clock Clock to be used, {@link GdxClock#SYSTEM} by default
+   */
+  public void setClock(GdxClock clock) {
+    if (clock == null) throw new NullPointerException("Clock cannot be null");
+    this.clock = clock;
+    tapCounters.clear();
+  }
+
   public boolean isMultitouchEnabled() {
     return multitouchEnabled;
   }
@@ -158,31 +189,114 @@ public class GdxInputManager implements InputProcessor, Disposable {
     }
   }
   
-  protected List<IntersectedComponent> getIntersected(Iterator<GdxComponent> candidateIterator, Ray pickingRay,
-      List<IntersectedComponent> intersected) {
-    while (candidateIterator.hasNext()) {
-      GdxComponent component = candidateIterator.next();
-      if (component.isEnabled()) {
-        Vector3 intersection = new Vector3();
-        if (component.intersectRay(pickingRay, intersection)) {
-          float distance = intersection.dst(pickingRay.origin);
-          intersected.add(new IntersectedComponent(component, intersection, distance));
+  /**
+   * Finds components within a container hit by a picking ray, sorted from the closest one.
+   * <p>
+   * The ray is cast once through the frame's bounding volume hierarchy and indexed 3D components are
+   * taken from the shapes it hits, regardless of the candidates offered by the container. Candidates
+   * are only walked and tested one by one if the container holds components which are not indexed.
+   * @param container Container whose children are picked, or NULL if the candidate is the frame
+   * @param candidateIterator Candidates for interaction offered by the container
+   * @param pickingRay Picking ray
+   * @param intersected List to store the hit components to
+   * @return The given list
+   */
+  protected List<IntersectedComponent> getIntersected(GdxContainer container, Iterator<GdxComponent> candidateIterator,
+      Ray pickingRay, List<IntersectedComponent> intersected) {
+    BoundingVolumeHierarchy boundingVolumes = mainFrame.getBoundingVolumes();
+    int indexedCount = boundingVolumes.getIndexedComponentCount(container);
+    if (indexedCount > 0) {
+      boundingVolumes.cast(pickingRay);
+      for (int i = 0; i < boundingVolumes.getHitCount(); i++) {
+        GdxComponent component = boundingVolumes.getShape(boundingVolumes.getHit(i)).getComponent();
+        if (component.getContainer() == container && component.isEnabled() && !contains(intersected, component)) {
+          intersect(component, pickingRay, intersected);
         }
       }
+      //Every child is indexed, so there are no candidates left to test
+      if (indexedCount == container.getComponents().size()) {
+        Collections.sort(intersected);
+        return intersected;
+      }
+    }
+    while (candidateIterator.hasNext()) {
+      GdxComponent component = candidateIterator.next();
+      if (indexedCount > 0 && component instanceof GdxAbstractComponent3D
+          && ((GdxAbstractComponent3D)component).isIndexedIn(boundingVolumes)) continue;
+      if (component.isEnabled()) intersect(component, pickingRay, intersected);
     }
     Collections.sort(intersected);
     return intersected;
   }
+
+  private void intersect(GdxComponent component, Ray pickingRay, List<IntersectedComponent> intersected) {
+    IntersectedComponent candidate = obtainIntersectedComponent();
+    if (component.intersectRay(pickingRay, candidate.intersection)) {
+      candidate.component = component;
+      candidate.distance = candidate.intersection.dst(pickingRay.origin);
+      intersected.add(candidate);
+    } else {
+      freeIntersected.add(candidate);
+    }
+  }
+
+  private static boolean contains(List<IntersectedComponent> intersected, GdxComponent component) {
+    for (int i = 0; i < intersected.size(); i++) {
+      if (intersected.get(i).component == component) return true;
+    }
+    return false;
+  }
+
+  private IntersectedComponent obtainIntersectedComponent() {
+    int size = freeIntersected.size();
+    if (size == 0) return new IntersectedComponent();
+    return freeIntersected.remove(size - 1);
+  }
+
+  /**
+   * Returns an empty list for intersected components. Lists are kept per depth
+   * of propagation, since events are propagated to children recursively.
+   */
+  private List<IntersectedComponent> obtainIntersectedList() {
+    if (intersectedDepth == intersectedLists.size()) {
+      intersectedLists.add(new ArrayList<IntersectedComponent>());
+    }
+    return intersectedLists.get(intersectedDepth++);
+  }
+
+  private void freeIntersectedList(List<IntersectedComponent> intersected) {
+    for (int i = 0; i < intersected.size(); i++) {
+      IntersectedComponent candidate = intersected.get(i);
+      candidate.component = null;
+      freeIntersected.add(candidate);
+    }
+    intersected.clear();
+    intersectedDepth--;
+  }
+
+  private Iterator<GdxComponent> frameIterator() {
+    return frameIterator.reset(mainFrame);
+  }
   
-  protected boolean processTouchDown(Iterator<GdxComponent> candidateIterator, int screenX, int screenY, int pointer) {
+  protected boolean processTouchDown(GdxContainer container, Iterator<GdxComponent> candidateIterator,
+      int screenX, int screenY, int pointer) {
     Ray pickingRay = painter.getPickingRay(screenX, screenY);
-    List<IntersectedComponent> intersected = getIntersected(candidateIterator, pickingRay, new ArrayList<IntersectedComponent>());
-    for (IntersectedComponent candidate : intersected) {
+    List<IntersectedComponent> intersected = getIntersected(container, candidateIterator, pickingRay, obtainIntersectedList());
+    try {
+      return processTouchDown(intersected, screenX, screenY, pointer);
+    } finally {
+      freeIntersectedList(intersected);
+    }
+  }
+
+  private boolean processTouchDown(List<IntersectedComponent> intersected, int screenX, int screenY, int pointer) {
+    for (int i = 0; i < intersected.size(); i++) {
+      IntersectedComponent candidate = intersected.get(i);
       GdxComponent component = candidate.component;
       Vector3 intersection = candidate.intersection;
       //If the component is a container, event is propagated to its children
       if (component instanceof GdxContainer
-          && processTouchDown(
+          && processTouchDown((GdxContainer)component,
               ((GdxContainer)component).interactionCandidatesIterator(intersection.x, intersection.y), 
               screenX, screenY, pointer)) {
         return true;
@@ -202,19 +316,37 @@ public class GdxInputManager implements InputProcessor, Disposable {
   
   @Override
   public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+    allocationMonitor.eventStarted();
+    tracer.begin(Phase.TOUCH_DOWN);
+    boolean handled = handleTouchDown(screenX, screenY, pointer);
+    tracer.end(Phase.TOUCH_DOWN);
+    allocationMonitor.eventFinished("Touch down");
+    return handled;
+  }
+
+  private boolean handleTouchDown(int screenX, int screenY, int pointer) {
     clearExpiredTapCounters();
     if (multitouchEnabled || noRegisteredTouch()) {
-      return processTouchDown(SingleElementIterator.create((GdxComponent)mainFrame), screenX, screenY, pointer);
+      return processTouchDown(null, frameIterator(), screenX, screenY, pointer);
     }
     return false;
   }
 
   @Override
   public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+    allocationMonitor.eventStarted();
+    tracer.begin(Phase.TOUCH_UP);
+    boolean handled = handleTouchUp(screenX, screenY, pointer);
+    tracer.end(Phase.TOUCH_UP);
+    allocationMonitor.eventFinished("Touch up");
+    return handled;
+  }
+
+  private boolean handleTouchUp(int screenX, int screenY, int pointer) {
     PointerRecord record = pointers.remove(pointer);
     if (record != null && record.component.isEnabled()) {
       GdxComponent component = record.component;
-      Vector3 intersection = new Vector3();
+      Vector3 intersection = pointerIntersection;
       Intersector.intersectRayPlane(painter.getPickingRay(screenX, screenY), record.plane, intersection);
       float componentX = intersection.x - component.getFrameX();
       float componentY = intersection.y - component.getFrameY();
@@ -224,7 +356,7 @@ public class GdxInputManager implements InputProcessor, Disposable {
       //preceding touch down event.
       boolean touchUpHandled = sendTouchUpEvent(record, component, componentX, componentY, pointer);
       handled = touchUpHandled;
-      if (record.startTime - System.nanoTime() + tapMaxDuration >= 0) {
+      if (record.startTime - clock.nanoTime() + tapMaxDuration >= 0) {
         float ppcu = painter.getPpcu();
         if (Math.abs(record.startX - record.x) * ppcu <= tapMaxDragDistanceX
             && Math.abs(record.startY - record.y) * ppcu <= tapMaxDragDistanceY) {
@@ -241,7 +373,7 @@ public class GdxInputManager implements InputProcessor, Disposable {
       float diffX = record.x - record.previousX;
       float diffY = record.y - record.previousY;
       if (diffX != 0 || diffY != 0) {
-        float timeDiff = (System.nanoTime() - record.previousTime) * 0.000000001f;
+        float timeDiff = (clock.nanoTime() - record.previousTime) * 0.000000001f;
         float velocityX = diffX / timeDiff;
         float velocityY = diffY / timeDiff;
         handled = propagateFlingEvent(component, componentX, componentY, velocityX, velocityY, pointer) || handled;
@@ -254,18 +386,27 @@ public class GdxInputManager implements InputProcessor, Disposable {
 
   @Override
   public boolean touchDragged(int screenX, int screenY, int pointer) {
+    allocationMonitor.eventStarted();
+    tracer.begin(Phase.TOUCH_DRAGGED);
+    boolean handled = handleTouchDragged(screenX, screenY, pointer);
+    tracer.end(Phase.TOUCH_DRAGGED);
+    allocationMonitor.eventFinished("Touch dragged");
+    return handled;
+  }
+
+  private boolean handleTouchDragged(int screenX, int screenY, int pointer) {
     PointerRecord record = pointers.get(pointer);
     if (record != null) {
       GdxComponent component = record.component;
       GdxComponent receiver = record.dragReceiver;
       Ray pickingRay = painter.getPickingRay(screenX, screenY);
-      Vector3 intersection = new Vector3();
+      Vector3 intersection = pointerIntersection;
       Intersector.intersectRayPlane(pickingRay, record.plane, intersection);
       float dragX = intersection.x - record.x;
       float dragY = intersection.y - record.y;
       record.setX(intersection.x);
       record.setY(intersection.y);
-      record.setTime(System.nanoTime());
+      record.setTime(clock.nanoTime());
       float receiverX = intersection.x - receiver.getFrameX();
       float receiverY = intersection.y - receiver.getFrameY();
       boolean inside = receiver.intersectRay(pickingRay, intersection);
@@ -305,9 +446,18 @@ public class GdxInputManager implements InputProcessor, Disposable {
     return false;
   }
   
-  protected boolean processMouseMoved(Iterator<GdxComponent> candidateIterator, int screenX, int screenY) {
+  protected boolean processMouseMoved(GdxContainer container, Iterator<GdxComponent> candidateIterator,
+      int screenX, int screenY) {
     Ray pickingRay = painter.getPickingRay(screenX, screenY);
-    List<IntersectedComponent> intersected = getIntersected(candidateIterator, pickingRay, new ArrayList<IntersectedComponent>());
+    List<IntersectedComponent> intersected = getIntersected(container, candidateIterator, pickingRay, obtainIntersectedList());
+    try {
+      return processMouseMoved(intersected, screenX, screenY);
+    } finally {
+      freeIntersectedList(intersected);
+    }
+  }
+
+  private boolean processMouseMoved(List<IntersectedComponent> intersected, int screenX, int screenY) {
     if (!intersected.isEmpty()) {
       IntersectedComponent candidate = intersected.get(0);
       GdxComponent component = candidate.component;
@@ -315,7 +465,7 @@ public class GdxInputManager implements InputProcessor, Disposable {
       if (cursorPosition == null) cursorPosition = new Vector2(intersection.x, intersection.y);
       //If the component is a container, event is propagated to its children
       if (component instanceof GdxContainer
-          && processMouseMoved(
+          && processMouseMoved((GdxContainer)component,
               ((GdxContainer)component).interactionCandidatesIterator(intersection.x, intersection.y), 
               screenX, screenY)) {
         return true;
@@ -344,11 +494,13 @@ public class GdxInputManager implements InputProcessor, Disposable {
   
   @Override
   public boolean mouseMoved(int screenX, int screenY) {
-    if (processMouseMoved(SingleElementIterator.create((GdxComponent)mainFrame), screenX, screenY)) {
-      return true;
-    }
-    mouseOver = null;
-    return false;
+    allocationMonitor.eventStarted();
+    tracer.begin(Phase.MOUSE_MOVED);
+    boolean handled = processMouseMoved(null, frameIterator(), screenX, screenY);
+    if (!handled) mouseOver = null;
+    tracer.end(Phase.MOUSE_MOVED);
+    allocationMonitor.eventFinished("Mouse moved");
+    return handled;
   }
 
   @Override
@@ -488,7 +640,7 @@ public class GdxInputManager implements InputProcessor, Disposable {
     public float previousX, previousY;
     public final float startX, startY;
     public boolean outside = false;
-    public long time = System.nanoTime();
+    public long time = clock.nanoTime();
     public long previousTime = time;
     public final long startTime = time;
     public final GdxComponent component;
@@ -590,15 +742,9 @@ public class GdxInputManager implements InputProcessor, Disposable {
   }
   
   private class IntersectedComponent implements Comparable<IntersectedComponent> {
-    public final GdxComponent component;
-    public final Vector3 intersection;
-    public final float distance;
-    
-    public IntersectedComponent(GdxComponent component, Vector3 intersection, float distance) {
-      this.component = component;
-      this.intersection = intersection;
-      this.distance = distance;
-    }
+    public GdxComponent component;
+    public final Vector3 intersection = new Vector3();
+    public float distance;
 
     @Override
     public int compareTo(IntersectedComponent other) {
@@ -629,19 +775,19 @@ public class GdxInputManager implements InputProcessor, Disposable {
     
     public TapCounter(int numberOfTouches) {
       tapCount = 1;
-      lastTapTime = System.nanoTime();
+      lastTapTime = clock.nanoTime();
       lastNumberOfTouches = numberOfTouches;
     }
     
     public int getTapCount() {
-      if (System.nanoTime() - lastTapTime > multitapMaxDelay) {
+      if (clock.nanoTime() - lastTapTime > multitapMaxDelay) {
         tapCount = 0;
       }
       return tapCount;
     }
     
     public int countTap(int numberOfTouches) {
-      long time = System.nanoTime();
+      long time = clock.nanoTime();
       if (time - lastTapTime <= multitapMaxDelay && numberOfTouches == lastNumberOfTouches) {
         tapCount++;
       } else {
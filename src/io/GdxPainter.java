@@ -155,10 +155,20 @@ public interface GdxPainter {
    */
   public TextureRegion requestTextureRender(GdxComponent component, int id);
 
+  /**
+   * Pushes a clipping area given by its bounds. The area is kept in a rectangle owned
+   * by the painter, which is reused by later pushes once this area is popped.
+   * @return Whether the area has been pushed, false if nothing would be left visible
+   */
   public boolean pushClippingArea(float x, float y, float width, float height);
 
   public boolean pushClippingArea(Rectangle area);
 
+  /**
+   * Removes the clipping area pushed last.
+   * @return Area pushed last. If it has been pushed by its bounds, the rectangle is owned by the painter
+   *         and is only valid until the next push, so it has to be copied to be kept.
+   */
   public Rectangle popClippingArea();
 
   public void pushShader(GdxShader shader);
@@ -1,5 +1,8 @@
 package io;
 
+import helpers.FrameProfiler;
+import helpers.FrameTracer;
+import helpers.FrameTracer.Phase;
 import helpers.ShaderFactory;
 
 import java.util.ArrayList;
@@ -13,6 +16,7 @@ import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Pixmap.Format;
 import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
@@ -22,9 +26,11 @@ import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.collision.Ray;
 import com.badlogic.gdx.scenes.scene2d.utils.ScissorStack;
+import com.badlogic.gdx.utils.TimeUtils;
 
 import components.interfaces.GdxComponent;
 import effects.GdxVisualEffect;
@@ -44,38 +50,65 @@ public class GdxPainter2D implements GdxPainter {
    * only of fully transparent or fully opaque pixels.
    */
   public static final AlphaBlending ALPHA_BLENDING_ADDITIVE = AlphaBlending.ADDITIVE;
+  
+  private static final int FRAME_TIME_WINDOW = 30; //Frames
+  private static final float MAX_MEASURED_FRAME_TIME = 0.125f; //Seconds
+  private static final float RENDER_SCALE_STEP = 0.05f;
+  private static final int RENDER_SCALE_INCREASE_DELAY = 4; //Frame time windows
 
   protected final SpriteBatch spriteBatch = new SpriteBatch();
+  protected final GdxGLState glState = new GdxGLState(spriteBatch);
   
   private float canvasWidth, canvasHeight;
   private int screenWidth, screenHeight;
+  private int nativeScreenWidth, nativeScreenHeight;
+  private float renderScale = 1;
+  private float minRenderScale, maxRenderScale, targetFrameTime;
+  private boolean dynamicResolution = false;
+  private long lastBeginTime = 0;
+  private float frameTimeSum = 0;
+  private int frameTimeCount = 0;
+  private int renderScaleIncreaseDelay = 0;
+  private FrameBuffer renderTarget;
+  private boolean renderTargetActive = false;
+  private final Matrix4 renderTargetProjection = new Matrix4();
+  private int frameStartRenderCalls = 0, frameRenderCalls = 0;
+  private FrameProfiler profiler = null;
+  private FrameTracer tracer = null;
   private Color mainClearColor = Color.BLACK;
   private boolean blackBorders = true;
   private final OrthographicCamera mainCamera;
   private OrthographicCamera frameCamera;
   private Camera currentCamera;
-  private LinkedList<Rectangle> clippingAreas = new LinkedList<Rectangle>();
+  private ArrayList<Rectangle> clippingAreas = new ArrayList<Rectangle>();
+  //Indexed by depth of clipping areas, so pushing and popping doesn't allocate
+  private final ArrayList<Rectangle> clippingAreaPool = new ArrayList<Rectangle>();
+  private final ArrayList<Rectangle> scissorsPool = new ArrayList<Rectangle>();
+  private final Rectangle visibleArea = new Rectangle();
+  private final Color savedFontColor = new Color();
   private HashMap<TextureKey, ExtendedFrameBuffer> textureFrameBuffers = 
       new HashMap<TextureKey, ExtendedFrameBuffer>(); 
+  private final TextureKey textureLookupKey = new TextureKey(null, 0); //Only used for lookups, never stored
+  private final ArrayList<Rectangle> savedScissors = new ArrayList<Rectangle>(); //Stack shared by nested texture renders
   private ExtendedFrameBuffer shaderFrameBuffer, otherFrameBuffer;
   private ExtendedFrameBuffer currentFrameBuffer;
   private LinkedList<SavedFrameBuffer> frameBufferStack = new LinkedList<SavedFrameBuffer>();
   private ExtendedShapeRenderer shapeRenderer = null;
   private final GlyphLayout glyphLayout = new GlyphLayout();
-  private ShaderProgram premultiplyShader, demultiplyShader;
+  private ShaderProgram premultiplyShader, demultiplyShader, premultipliedShader;
+  private boolean premultipliedAlpha = false;
   private ArrayList<GdxVisualEffect> currentVisualEffects = new ArrayList<GdxVisualEffect>(10);
   private ArrayList<GdxShader> currentShaders = new ArrayList<GdxShader>(10);
   private int srcBlendColorFunc, dstBlendColorFunc;
   private int srcBlendAlphaFunc, dstBlendAlphaFunc;
   private Rectangle shaderArea;
   private GdxSpecialCamera specialCamera;
-  private boolean scissorStackEmpty = true;
    
   public GdxPainter2D(float canvasWidth, float canvasHeight) {
     this.canvasWidth = canvasWidth;
     this.canvasHeight = canvasHeight;
-    screenWidth = Gdx.graphics.getWidth();
-    screenHeight = Gdx.graphics.getHeight();
+    screenWidth = nativeScreenWidth = Gdx.graphics.getWidth();
+    screenHeight = nativeScreenHeight = Gdx.graphics.getHeight();
     mainCamera = new OrthographicCamera();
     mainCamera.setToOrtho(true);
     frameCamera = new OrthographicCamera();
@@ -85,15 +118,22 @@ public class GdxPainter2D implements GdxPainter {
     spriteBatch.setBlendFunction(-1, -1); // Prevents SpriteBatch from overriding global OpenGL blending functions
     resetBlendFunction(); // Initializes blending functions
     ShaderProgram.pedantic = false;
+    ShaderFactory.registerShader(GdxShader.VERTEX_PASSTHROUGH, FRAGMENT_PREMULTIPLY);
+    ShaderFactory.registerShader(GdxShader.VERTEX_PASSTHROUGH, FRAGMENT_DEMULTIPLY);
+    ShaderFactory.registerShader(GdxShader.VERTEX_PASSTHROUGH, FRAGMENT_PREMULTIPLIED);
   }
   
   protected void clearScreen() {
-    Gdx.gl.glClearColor(mainClearColor.r, mainClearColor.g, mainClearColor.b, 1);
+    glState.setClearColor(mainClearColor.r, mainClearColor.g, mainClearColor.b, 1);
     Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
   }
   
   @Override
   public void begin() {
+    if (dynamicResolution) measureFrameTime();
+    frameStartRenderCalls = spriteBatch.totalRenderCalls;
+    applyRenderScale();
+    if (renderScale < 1) beginRenderTarget();
     resetBlendFunction();
     clearScreen();
     spriteBatch.begin();
@@ -106,7 +146,12 @@ public class GdxPainter2D implements GdxPainter {
   public void end() {
     endShaders();
     spriteBatch.end();
-    while (!scissorStackEmpty) popClippingArea();
+    while (!isScissorStackEmpty()) popClippingArea();
+    renderAfterCanvas();
+    if (renderTargetActive) endRenderTarget();
+    frameRenderCalls = spriteBatch.totalRenderCalls - frameStartRenderCalls;
+    GdxShaderUniforms.frameFinished();
+    glState.frameFinished();
   }
   
   @Override
@@ -130,6 +175,211 @@ public class GdxPainter2D implements GdxPainter {
     shapeRenderer.end();
   }
   
+  /**
+   * Called at the end of a frame once the canvas has been painted. The render target is still bound,
+   * so anything rendered here is rendered at the {@link #setRenderScale(float) render scale} 
+   * and upscaled along with the canvas.
+   */
+  protected void renderAfterCanvas() { }
+  
+  /**
+   * Renders the canvas at a fixed fraction of the screen resolution and upscales the result 
+   * to the screen. This reduces fill rate requirements at a cost of sharpness. Disables 
+   * dynamic resolution. Subclasses rendering anything in {@link #renderAfterCanvas()}, such as
+   * 3D models, are scaled as well.
+   * @param renderScale Fraction of screen resolution in range (0, 1]
+   */
+  public void setRenderScale(float renderScale) {
+    if (renderScale <= 0 || renderScale > 1)
+      throw new IllegalArgumentException(String.format("Render scale out of range (%.2f)", renderScale));
+    dynamicResolution = false;
+    this.renderScale = renderScale;
+  }
+  
+  /**
+   * @return Fraction of screen resolution the canvas is currently rendered at
+   */
+  public float getRenderScale() {
+    return renderScale;
+  }
+  
+  /**
+   * Enables dynamic resolution. Render scale is adjusted automatically, so that an average
+   * time between frames fits into a given budget. Scale is decreased quickly when frames
+   * take too long and increased slowly while they fit into the budget.
+   * <p>
+   * Only frames rendered in quick succession are measured, so the measurement is not
+   * affected by the interface being idle.
+   * @param minRenderScale Lowest fraction of screen resolution allowed, greater than zero
+   * @param maxRenderScale Highest fraction of screen resolution allowed, at most one
+   * @param targetFrameTime Time budget for a single frame in seconds
+   */
+  public void enableDynamicResolution(float minRenderScale, float maxRenderScale, float targetFrameTime) {
+    if (minRenderScale <= 0 || maxRenderScale > 1 || minRenderScale > maxRenderScale)
+      throw new IllegalArgumentException(String.format("Invalid render scale bounds (%.2f - %.2f)", 
+          minRenderScale, maxRenderScale));
+    this.minRenderScale = minRenderScale;
+    this.maxRenderScale = maxRenderScale;
+    this.targetFrameTime = targetFrameTime;
+    renderScale = Math.max(minRenderScale, Math.min(maxRenderScale, renderScale));
+    frameTimeSum = 0;
+    frameTimeCount = 0;
+    lastBeginTime = 0;
+    dynamicResolution = true;
+  }
+  
+  /**
+   * Disables dynamic resolution and returns to rendering in full screen resolution.
+   */
+  public void disableDynamicResolution() {
+    dynamicResolution = false;
+    renderScale = 1;
+  }
+  
+  public boolean isDynamicResolution() {
+    return dynamicResolution;
+  }
+  
+  private void measureFrameTime() {
+    long time = TimeUtils.nanoTime();
+    if (lastBeginTime != 0) {
+      float frameTime = (time - lastBeginTime) * 0.000000001f;
+      if (frameTime < MAX_MEASURED_FRAME_TIME) {
+        frameTimeSum += frameTime;
+        frameTimeCount++;
+      }
+    }
+    lastBeginTime = time;
+    if (frameTimeCount >= FRAME_TIME_WINDOW) {
+      float averageFrameTime = frameTimeSum / frameTimeCount;
+      frameTimeSum = 0;
+      frameTimeCount = 0;
+      if (averageFrameTime > targetFrameTime * 1.05f) {
+        // Fill rate scales with the area, hence the square root
+        float newScale = renderScale * (float)Math.sqrt(targetFrameTime / averageFrameTime);
+        renderScale = Math.max(minRenderScale, Math.min(renderScale - RENDER_SCALE_STEP, newScale));
+        renderScaleIncreaseDelay = RENDER_SCALE_INCREASE_DELAY;
+      } else if (renderScaleIncreaseDelay > 0) {
+        renderScaleIncreaseDelay--;
+      } else if (averageFrameTime < targetFrameTime * 1.02f) {
+        renderScale = Math.min(maxRenderScale, renderScale + RENDER_SCALE_STEP);
+      }
+    }
+  }
+  
+  /**
+   * Updates the resolution the canvas is rendered at to match the current render scale.
+   * Camera keeps covering the same canvas area, so picking rays are not affected.
+   */
+  private void applyRenderScale() {
+    int renderWidth = Math.max(1, Math.round(nativeScreenWidth * renderScale));
+    int renderHeight = Math.max(1, Math.round(nativeScreenHeight * renderScale));
+    if (screenWidth != renderWidth || screenHeight != renderHeight) {
+      screenWidth = renderWidth;
+      screenHeight = renderHeight;
+      shaderArea.set(0, 0, screenWidth, screenHeight);
+      updateCamera();
+    }
+  }
+  
+  private void beginRenderTarget() {
+    if (renderTarget == null 
+        || renderTarget.getWidth() != nativeScreenWidth || renderTarget.getHeight() != nativeScreenHeight) {
+      if (renderTarget != null) renderTarget.dispose();
+      // Allocated at full resolution, so it doesn't need to be replaced whenever scale changes
+      renderTarget = createRenderTarget(nativeScreenWidth, nativeScreenHeight);
+      renderTarget.getColorBufferTexture().setFilter(TextureFilter.Linear, TextureFilter.Linear);
+      Gdx.app.log(TAG, String.format("Render target created (%d x %d px)", nativeScreenWidth, nativeScreenHeight));
+    }
+    bindRenderTarget();
+    glState.frameBufferSwitched();
+    renderTargetActive = true;
+  }
+  
+  private void bindRenderTarget() {
+    renderTarget.begin();
+    Gdx.gl.glViewport(0, 0, screenWidth, screenHeight);
+  }
+  
+  private void endRenderTarget() {
+    renderTarget.end();
+    glState.frameBufferSwitched();
+    renderTargetActive = false;
+    renderTargetProjection.setToOrtho2D(0, 0, nativeScreenWidth, nativeScreenHeight);
+    spriteBatch.setProjectionMatrix(renderTargetProjection);
+    // Tint left by painting would otherwise be applied to the whole canvas
+    float color = spriteBatch.getPackedColor();
+    spriteBatch.setColor(Color.WHITE);
+    spriteBatch.begin();
+    spriteBatch.disableBlending();
+    spriteBatch.draw(renderTarget.getColorBufferTexture(), 0, 0, nativeScreenWidth, nativeScreenHeight,
+        0, 0, screenWidth, screenHeight, false, true);
+    spriteBatch.end();
+    spriteBatch.enableBlending();
+    spriteBatch.setColor(color);
+    spriteBatch.setProjectionMatrix(currentCamera.combined);
+  }
+  
+  /**
+   * Provides access to the shadowed OpenGL state, e.g. to read per-frame statistics.
+   * If you modify blending functions, scissor test or clear color directly through OpenGL, 
+   * call {@link GdxGLState#invalidate()} afterwards.
+   * @return Shadowed OpenGL state of this painter
+   */
+  public GdxGLState getGLState() {
+    return glState;
+  }
+  
+  /**
+   * @return Number of sprite batch render calls during the last finished frame
+   */
+  public int getRenderCallsPerFrame() {
+    return frameRenderCalls;
+  }
+
+  /**
+   * @return Number of sprite batch render calls since this painter has been created
+   */
+  public int getTotalRenderCalls() {
+    return spriteBatch.totalRenderCalls;
+  }
+
+  /**
+   * Assigns a profiler which is notified about every painted component.
+   * @param profiler Frame profiler or NULL
+   */
+  public void setProfiler(FrameProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  public FrameProfiler getProfiler() {
+    return profiler;
+  }
+
+  /**
+   * Assigns a tracer which records texture renders and shader passes.
+   * @param tracer Frame tracer or NULL
+   */
+  public void setTracer(FrameTracer tracer) {
+    this.tracer = tracer;
+  }
+
+  public FrameTracer getTracer() {
+    return tracer;
+  }
+
+  private void traceBegin(Phase phase) {
+    if (tracer != null) tracer.begin(phase);
+  }
+
+  private void traceEnd(Phase phase) {
+    if (tracer != null) tracer.end(phase);
+  }
+
+  private boolean isScissorStackEmpty() {
+    return glState.getScissorDepth() == 0;
+  }
+  
   public ShapeRenderer getShapeRenderer() {
     if (shapeRenderer == null) shapeRenderer = new ExtendedShapeRenderer();
     return shapeRenderer;
@@ -149,6 +399,48 @@ public class GdxPainter2D implements GdxPainter {
     return demultiplyShader;
   }
   
+  /**
+   * Returns a shader used by sprite batch whenever no shader effect is applied.
+   * @return Shader program or NULL for the sprite batch default
+   */
+  protected ShaderProgram getDefaultShader() {
+    if (!premultipliedAlpha) return null;
+    if (premultipliedShader == null) {
+      premultipliedShader = ShaderFactory.createShaderProgram(GdxShader.VERTEX_PASSTHROUGH, FRAGMENT_PREMULTIPLIED);
+    }
+    return premultipliedShader;
+  }
+  
+  /**
+   * Switches the painter to premultiplied alpha mode. In this mode, all textures are expected
+   * to have their colors premultiplied by alpha (see {@link GdxAssets#setPremultiplyAlpha(boolean)}),
+   * tint colors are premultiplied by the painter and all blending uses premultiplied alpha formulas.
+   * Textures rendered via requestTextureRender are then composited directly, without any additional
+   * pass to convert them.
+   * <p>
+   * Shader effects are still applied as they are, so effects which modify alpha channel
+   * may produce different results in this mode.
+   * <p>
+   * Don't call this method during painting.
+   * @param premultipliedAlpha Whether to use premultiplied alpha
+   */
+  public void setPremultipliedAlpha(boolean premultipliedAlpha) {
+    this.premultipliedAlpha = premultipliedAlpha;
+    glState.setBatchShader(getDefaultShader());
+    resetBlendFunction();
+  }
+  
+  public boolean isPremultipliedAlpha() {
+    return premultipliedAlpha;
+  }
+  
+  /**
+   * @return Whether currently painted colors end up premultiplied by alpha
+   */
+  protected boolean isPremultiplyingAlpha() {
+    return premultipliedAlpha || glState.getBatchShader() == getPremultiplyShader();
+  }
+  
   @Override
   public void setSpecialCamera(GdxSpecialCamera specialCamera) {
     this.specialCamera = specialCamera;
@@ -216,7 +508,7 @@ public class GdxPainter2D implements GdxPainter {
     srcBlendColorFunc = srcBlendAlphaFunc = srcFunc;
     dstBlendColorFunc = dstBlendAlphaFunc = dstFunc;
     // Pass it directly to low level in order to affect ShapeRenderer as well
-    Gdx.gl.glBlendFunc(srcFunc, dstFunc);
+    glState.setBlendFunction(srcFunc, dstFunc, srcFunc, dstFunc);
   }
 
   public void setBlendFunction(int srcColorFunc, int dstColorFunc, int srcAlphaFunc, int dstAlphaFunc) {
@@ -224,23 +516,23 @@ public class GdxPainter2D implements GdxPainter {
     srcBlendAlphaFunc = srcAlphaFunc;
     dstBlendColorFunc = dstColorFunc;
     dstBlendAlphaFunc = dstAlphaFunc;
-    Gdx.gl.glBlendFuncSeparate(srcColorFunc, dstColorFunc, srcAlphaFunc, dstAlphaFunc);
+    glState.setBlendFunction(srcColorFunc, dstColorFunc, srcAlphaFunc, dstAlphaFunc);
   }
 
   public void setBlendColorFunction(int srcColorFunc, int dstColorFunc) {
     srcBlendColorFunc = srcColorFunc;
     dstBlendColorFunc = dstColorFunc;
-    Gdx.gl.glBlendFuncSeparate(srcColorFunc, dstColorFunc, srcBlendAlphaFunc, dstBlendAlphaFunc);
+    glState.setBlendFunction(srcColorFunc, dstColorFunc, srcBlendAlphaFunc, dstBlendAlphaFunc);
   }
 
   public void setBlendAlphaFunction(int srcAlphaFunc, int dstAlphaFunc) {
     srcBlendAlphaFunc = srcAlphaFunc;
     dstBlendAlphaFunc = dstAlphaFunc;
-    Gdx.gl.glBlendFuncSeparate(srcBlendColorFunc, dstBlendColorFunc, srcAlphaFunc, dstAlphaFunc);
+    glState.setBlendFunction(srcBlendColorFunc, dstBlendColorFunc, srcAlphaFunc, dstAlphaFunc);
   }
 
   public void setBlendingType(BlendingType type) {
-    boolean normalAlphaBlending = spriteBatch.getShader() == getPremultiplyShader();
+    boolean normalAlphaBlending = isPremultiplyingAlpha();
     if (type == BlendingType.ADDITIVE) {
       if (normalAlphaBlending) {
         // Part of the correct blending formula, requires alpha premultiplication to work
@@ -291,18 +583,30 @@ public class GdxPainter2D implements GdxPainter {
 
   @Override
   public void setScreenSize(int screenWidth, int screenHeight) {
-    if (this.screenWidth != screenWidth || this.screenHeight != screenHeight) {
-      this.screenWidth = screenWidth;
-      this.screenHeight = screenHeight;
+    if (nativeScreenWidth != screenWidth || nativeScreenHeight != screenHeight) {
+      nativeScreenWidth = screenWidth;
+      nativeScreenHeight = screenHeight;
+      this.screenWidth = Math.max(1, Math.round(screenWidth * renderScale));
+      this.screenHeight = Math.max(1, Math.round(screenHeight * renderScale));
       updateCamera();
     }
   }
 
+  /**
+   * Returns width of the area the canvas is rendered to. Unless a render scale 
+   * is applied, it's the same as the screen width.
+   * @return Width in pixels of the render target
+   */
   @Override
   public int getScreenWidth() {
     return screenWidth;
   }
  
+  /**
+   * Returns height of the area the canvas is rendered to. Unless a render scale 
+   * is applied, it's the same as the screen height.
+   * @return Height in pixels of the render target
+   */
   @Override
   public int getScreenHeight() {
     return screenHeight;
@@ -450,6 +754,10 @@ public class GdxPainter2D implements GdxPainter {
     return new ExtendedFrameBuffer(Format.RGBA8888, width, height, false);
   }
   
+  protected FrameBuffer createRenderTarget(int width, int height) {
+    return new FrameBuffer(Format.RGBA8888, width, height, false);
+  }
+  
   /**
    * Ensures that a framebuffer exists and has suitable dimensions.
    * <p>
@@ -490,6 +798,7 @@ public class GdxPainter2D implements GdxPainter {
     currentFrameBuffer = frameBuffer;
     spriteBatch.setProjectionMatrix(currentCamera.combined);
     currentFrameBuffer.begin();
+    glState.frameBufferSwitched();
     spriteBatch.begin();
   }
   
@@ -499,6 +808,7 @@ public class GdxPainter2D implements GdxPainter {
     if (frameBufferStack.isEmpty()) {
       currentCamera = specialCamera == null ? mainCamera : specialCamera.getCamera();
       currentFrameBuffer = null;
+      if (renderTargetActive) bindRenderTarget();
     } else {
       SavedFrameBuffer savedFrameBuffer = frameBufferStack.removeLast();
       Gdx.app.log(TAG, "Framebuffer taken from stack");
@@ -506,6 +816,7 @@ public class GdxPainter2D implements GdxPainter {
       currentFrameBuffer = savedFrameBuffer.frameBuffer;
       currentFrameBuffer.begin();
     }
+    glState.frameBufferSwitched();
     spriteBatch.begin();
     spriteBatch.setProjectionMatrix(currentCamera.combined);
   }
@@ -525,6 +836,9 @@ public class GdxPainter2D implements GdxPainter {
    * will cause a rendering error.
    * <p>
    * Calling this method will reset blending function to default.
+   * <p>
+   * In premultiplied alpha mode, the texture is always rendered and returned premultiplied,
+   * regardless of the alpha blending parameter.
    * @param component GdxComponent Component responsible for rendering.
    * @param id Numeric identifier of a texture to be rendered.
    *           This might come in handy if a single component needs to perform multiple renderings.
@@ -537,28 +851,35 @@ public class GdxPainter2D implements GdxPainter {
    */
   public TextureRegion requestTextureRender(GdxComponent component, int id, float width, float height, 
       Color clearColor, AlphaBlending alphaBlending) {
-    if (clearColor.a == 1) {
+    traceBegin(Phase.TEXTURE_RENDER);
+    if (clearColor.a == 1 || premultipliedAlpha) {
+      // Premultiplied results are composited directly without the demultiply pass
       alphaBlending = AlphaBlending.ADDITIVE;
     }
     endShaders();
-    ArrayList<Rectangle> savedScissors = null;
-    if (!scissorStackEmpty) {
+    int savedScissorsStart = savedScissors.size();
+    if (!isScissorStackEmpty()) {
       flush();
-      savedScissors = new ArrayList<Rectangle>(10);
-      while (Gdx.gl.glIsEnabled(GL20.GL_SCISSOR_TEST)) {
-        savedScissors.add(ScissorStack.popScissors());
+      while (!isScissorStackEmpty()) {
+        savedScissors.add(glState.popScissors());
       }
     }
-    TextureKey textureKey = new TextureKey(component, id);
-    ExtendedFrameBuffer frameBuffer = textureFrameBuffers.get(textureKey);
-    frameBuffer = prepareFrameBuffer(frameBuffer, width, height);
-    textureFrameBuffers.put(textureKey, frameBuffer);
+    ExtendedFrameBuffer cachedFrameBuffer = textureFrameBuffers.get(textureLookupKey.set(component, id));
+    ExtendedFrameBuffer frameBuffer = prepareFrameBuffer(cachedFrameBuffer, width, height);
+    if (frameBuffer != cachedFrameBuffer) {
+      textureFrameBuffers.put(new TextureKey(component, id), frameBuffer);
+    }
     beginBuffer(frameBuffer);
-    Gdx.gl.glClearColor(clearColor.r, clearColor.g, clearColor.b, clearColor.a);
+    if (premultipliedAlpha) {
+      glState.setClearColor(clearColor.r * clearColor.a, clearColor.g * clearColor.a, 
+          clearColor.b * clearColor.a, clearColor.a);
+    } else {
+      glState.setClearColor(clearColor.r, clearColor.g, clearColor.b, clearColor.a);
+    }
     Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
     if (alphaBlending == AlphaBlending.NORMAL) {
       setBlendFunction(GL20.GL_ONE, GL20.GL_ONE_MINUS_SRC_ALPHA);
-      spriteBatch.setShader(getPremultiplyShader());
+      glState.setBatchShader(getPremultiplyShader());
     }
     component.renderTexture(id, width, height, this);
     endBuffer();
@@ -569,7 +890,7 @@ public class GdxPainter2D implements GdxPainter {
     if (alphaBlending == AlphaBlending.NORMAL) {
       otherFrameBuffer = prepareFrameBuffer(otherFrameBuffer, width, height);
       beginBuffer(otherFrameBuffer);
-      spriteBatch.setShader(getDemultiplyShader());
+      glState.setBatchShader(getDemultiplyShader());
       resetBlendFunction();
       disableBlending();
       frameBuffer.drawTexture(0, 0);
@@ -579,22 +900,22 @@ public class GdxPainter2D implements GdxPainter {
 //          (int)(width * getPpcu()), (int)(height * getPpcu()),
 //          false, false);
       endBuffer();
-      spriteBatch.setShader(null);
+      glState.setBatchShader(getDefaultShader());
       enableBlending();
       renderedTexture = otherFrameBuffer.getTexture();
 //      bufferTexture = otherFrameBuffer.getColorBufferTexture();
     } else {
+      if (premultipliedAlpha) resetBlendFunction();
       renderedTexture = frameBuffer.getTexture();
 //      bufferTexture = textureFrameBuffer.getColorBufferTexture();
     }
-    if (savedScissors != null) {
-      for (int i = savedScissors.size() - 1; i >= 0; i--) {
-        ScissorStack.pushScissors(savedScissors.get(i));
-      }
+    for (int i = savedScissors.size() - 1; i >= savedScissorsStart; i--) {
+      glState.pushScissors(savedScissors.remove(i));
     }
     beginShaders();
 //    TextureRegion renderedTexture = new TextureRegion(bufferTexture, 
 //        0, (int)(bufferTexture.getHeight() - textureHeight), textureWidth, textureHeight);
+    traceEnd(Phase.TEXTURE_RENDER);
     return renderedTexture;
   }
   
@@ -706,26 +1027,35 @@ public class GdxPainter2D implements GdxPainter {
   
   @Override
   public boolean pushClippingArea(float x, float y, float width, float height) {
-    return pushClippingArea(new Rectangle(x, y, width, height));
+    return pushClippingArea(obtainRectangle(clippingAreaPool, clippingAreas.size()).set(x, y, width, height));
   }
   
   @Override
   public boolean pushClippingArea(Rectangle area) {
     flush();
-    Rectangle scissors = new Rectangle();
-    ScissorStack.calculateScissors(currentCamera, spriteBatch.getTransformMatrix(), area, scissors);
-    boolean scissorsPushed = ScissorStack.pushScissors(scissors);
+    Rectangle scissors = obtainRectangle(scissorsPool, clippingAreas.size());
+    calculateScissors(area, scissors);
+    boolean scissorsPushed = glState.pushScissors(scissors);
     if (scissorsPushed) clippingAreas.add(area);
-    scissorStackEmpty = !Gdx.gl.glIsEnabled(GL20.GL_SCISSOR_TEST);
     return scissorsPushed;
   }
   
   @Override
   public Rectangle popClippingArea() {
     flush();
-    ScissorStack.popScissors();
-    scissorStackEmpty = !Gdx.gl.glIsEnabled(GL20.GL_SCISSOR_TEST);
-    return clippingAreas.removeLast();
+    glState.popScissors();
+    return clippingAreas.remove(clippingAreas.size() - 1);
+  }
+
+  private Rectangle obtainRectangle(ArrayList<Rectangle> pool, int index) {
+    while (pool.size() <= index) pool.add(new Rectangle());
+    return pool.get(index);
+  }
+  
+  private void calculateScissors(Rectangle area, Rectangle scissors) {
+    // Screen size may differ from the size of the render target
+    ScissorStack.calculateScissors(currentCamera, 0, 0, screenWidth, screenHeight, 
+        spriteBatch.getTransformMatrix(), area, scissors);
   }
   
   private void moveClippingAreas(float x, float y) {
@@ -738,29 +1068,46 @@ public class GdxPainter2D implements GdxPainter {
   
   private boolean recalculateClippingAreas() {
     for (int i = clippingAreas.size(); i > 0; i--) {
-      ScissorStack.popScissors();
+      glState.popScissors();
     }
-    for (Rectangle area : clippingAreas) {
-      Rectangle scissors = new Rectangle();
-      ScissorStack.calculateScissors(currentCamera, spriteBatch.getTransformMatrix(), area, scissors);
-      if (!ScissorStack.pushScissors(scissors)) {
+    for (int i = 0; i < clippingAreas.size(); i++) {
+      Rectangle scissors = obtainRectangle(scissorsPool, i);
+      calculateScissors(clippingAreas.get(i), scissors);
+      if (!glState.pushScissors(scissors)) {
         return false;
       }
     }
     return true;
   }
   
+  /**
+   * @return Area of canvas currently not clipped away. The rectangle is owned by the painter
+   *         and is only valid until the next call.
+   */
   public Rectangle getVisibleArea() {
-    Rectangle visibleArea = ScissorStack.getViewport();
+    return getVisibleArea(visibleArea);
+  }
+
+  /**
+   * @param out Rectangle to store the area to
+   * @return Area of canvas currently not clipped away
+   */
+  public Rectangle getVisibleArea(Rectangle out) {
+    if (isScissorStackEmpty()) {
+      out.set(0, 0, screenWidth, screenHeight);
+    } else {
+      out.set(ScissorStack.getViewport());
+    }
     float cupp = getCupp();
-    visibleArea.x = visibleArea.x * cupp - (screenWidth * cupp - canvasWidth) * 0.5f;
-    visibleArea.y = visibleArea.y * cupp - (screenHeight * cupp - canvasHeight) * 0.5f;
-    visibleArea.width *= cupp;
-    visibleArea.height *= cupp;
-    return visibleArea;
+    out.x = out.x * cupp - (screenWidth * cupp - canvasWidth) * 0.5f;
+    out.y = out.y * cupp - (screenHeight * cupp - canvasHeight) * 0.5f;
+    out.width *= cupp;
+    out.height *= cupp;
+    return out;
   }
   
   private void beginShaderBuffer(GdxShader shader) {
+    traceBegin(Phase.SHADER_BEGIN);
 //    shaderArea.set(shader.getArea());
     shaderFrameBuffer = prepareFrameBuffer(shaderFrameBuffer, shaderArea.width, shaderArea.height);
     beginBuffer(shaderFrameBuffer);
@@ -768,11 +1115,13 @@ public class GdxPainter2D implements GdxPainter {
     moveClippingAreas(- shaderArea.x, - shaderArea.y);
     recalculateClippingAreas();
 //    Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
-    Gdx.gl.glClearColor(0, 0, 0, 0);
+    glState.setClearColor(0, 0, 0, 0);
     Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+    traceEnd(Phase.SHADER_BEGIN);
   }
   
   private void swapShaderBuffer() {
+    traceBegin(Phase.SHADER_SWAP);
     endBuffer();
     /* Swap shader framebuffer for other framebuffer */
     ExtendedFrameBuffer previousFrameBuffer = shaderFrameBuffer;
@@ -781,8 +1130,9 @@ public class GdxPainter2D implements GdxPainter {
     beginBuffer(shaderFrameBuffer);
     /* Draws content of previous framebuffer into new buffer */
 //    setTransformMatrix(getTransformMatrix().setToTranslation(0, 0, 0));
-    Gdx.gl.glDisable(GL20.GL_SCISSOR_TEST);
+    glState.setScissorTest(false);
     previousFrameBuffer.drawTexture(0, 0);
+    traceEnd(Phase.SHADER_SWAP);
 //    draw(previousFrameBuffer.getColorBufferTexture(), 
 //        0, 0, shaderArea.width, shaderArea.height,
 //        0, 0, (int)(shaderArea.width * getPpcu()), (int)(shaderArea.height * getPpcu()),
@@ -790,12 +1140,14 @@ public class GdxPainter2D implements GdxPainter {
   }
   
   private void flushShaderBuffer() {
+    traceBegin(Phase.SHADER_FLUSH);
     endBuffer();
 //    setTransformMatrix(getTransformMatrix().setToTranslation(0, 0, 0));
-    if (!scissorStackEmpty) Gdx.gl.glEnable(GL20.GL_SCISSOR_TEST);
+    if (!isScissorStackEmpty()) glState.setScissorTest(true);
     moveClippingAreas(shaderArea.x, shaderArea.y);
     recalculateClippingAreas();
     shaderFrameBuffer.drawTexture(shaderArea.x, shaderArea.y);    
+    traceEnd(Phase.SHADER_FLUSH);
 //    draw(shaderFrameBuffer.getColorBufferTexture(), 
 //        shaderArea.x, shaderArea.y, shaderArea.width, shaderArea.height, 
 //        0, 0, (int)(shaderArea.width * getPpcu()), (int)(shaderArea.height * getPpcu()),
@@ -807,7 +1159,7 @@ public class GdxPainter2D implements GdxPainter {
     if (!currentShaders.isEmpty()) {
       GdxShader shader = currentShaders.get(currentShaders.size() - 1);
       if (currentShaders.size() > 1) beginShaderBuffer(shader);
-      spriteBatch.setShader(shader.getProgram());
+      glState.setBatchShader(shader.getProgram());
       if (currentShaders.size() > 1) {
         shader.prepare(this, shaderArea.width, shaderArea.height);
       } else {
@@ -822,18 +1174,18 @@ public class GdxPainter2D implements GdxPainter {
       //System.out.println("shader count = " + shaderCount);
       for (int i = shaderCount - 2; i > 0; i--) {
         GdxShader shader = currentShaders.get(i);
-        spriteBatch.setShader(shader.getProgram());
+        glState.setBatchShader(shader.getProgram());
         shader.prepare(this, shaderArea.width, shaderArea.height);
         //System.out.println("shader area = " + shaderArea);
         swapShaderBuffer();
       }
       GdxShader shader = currentShaders.get(0);
-      spriteBatch.setShader(shader.getProgram());
+      glState.setBatchShader(shader.getProgram());
       shader.prepare(this, canvasWidth, canvasHeight);
       //System.out.println("shader area = " + shaderArea);
       flushShaderBuffer();
     }
-    spriteBatch.setShader(null);
+    glState.setBatchShader(getDefaultShader());
   }
   
   @Override
@@ -860,8 +1212,12 @@ public class GdxPainter2D implements GdxPainter {
   @Override
   public void paintComponent(float x, float y, GdxComponent component) {
     if (component.isVisible()) {
+      boolean profiling = profiler != null && profiler.isProfiling();
+      if (profiling) profiler.paintStarted();
 //      boolean hasShaderEffect = false;
-      for (GdxVisualEffect visualEffect : component.getVisualEffects()) {
+      int visualEffectCount = component.getVisualEffects().size();
+      for (int i = 0; i < visualEffectCount; i++) {
+        GdxVisualEffect visualEffect = component.getVisualEffect(i);
         if (visualEffect instanceof GdxShader) {
           if (currentShaders.size() > 0) {
             shaderArea.set(((GdxShader)visualEffect).getArea());
@@ -878,7 +1234,7 @@ public class GdxPainter2D implements GdxPainter {
       component.paint(x - shaderArea.x, y - shaderArea.y, this);
 //      if (hasShaderEffect) endShaders();
       int index = currentVisualEffects.size() - 1;
-      for (int effectCount = component.getVisualEffects().size(); effectCount > 0; effectCount--) {
+      for (int effectCount = visualEffectCount; effectCount > 0; effectCount--) {
         GdxVisualEffect visualEffect = currentVisualEffects.remove(index--);
         visualEffect.after(x - shaderArea.x, y - shaderArea.y, this);
         if (currentShaders.size() < 2) {
@@ -886,6 +1242,7 @@ public class GdxPainter2D implements GdxPainter {
         }
       }
 //      if (hasShaderEffect) beginShaders();
+      if (profiling) profiler.paintFinished(component);
     }
   }
   
@@ -1057,7 +1414,7 @@ public class GdxPainter2D implements GdxPainter {
   @Override
   public void drawText(BitmapFont font, CharSequence text, float x, float y, float width, float height, 
       float horizontalGravity, float verticalGravity, float scale, Color color) {
-    Color savedColor = new Color(font.getColor());
+    savedFontColor.set(font.getColor());
     float scaleX = font.getScaleX();
     float scaleY = font.getScaleY();
     font.setColor(color);
@@ -1067,13 +1424,13 @@ public class GdxPainter2D implements GdxPainter {
         x + (width - glyphLayout.width) * horizontalGravity, 
         y + (height - glyphLayout.height) * verticalGravity);
     font.getData().setScale(scaleX, scaleY);
-    font.setColor(savedColor);
+    font.setColor(savedFontColor);
   }
   
   @Override
   public void drawText(BitmapFont font, CharSequence text, Rectangle area, float horizontalGravity, float verticalGravity, 
       float scale, Color color) {
-    Color savedColor = new Color(font.getColor());
+    savedFontColor.set(font.getColor());
     float scaleX = font.getScaleX();
     float scaleY = font.getScaleY();
     font.setColor(color);
@@ -1083,7 +1440,7 @@ public class GdxPainter2D implements GdxPainter {
         area.x + (area.width - glyphLayout.width) * horizontalGravity, 
         area.y + (area.height - glyphLayout.height) * verticalGravity);
     font.getData().setScale(scaleX, scaleY);
-    font.setColor(savedColor);
+    font.setColor(savedFontColor);
   }
   
   /**
@@ -1252,24 +1609,37 @@ public class GdxPainter2D implements GdxPainter {
     shaderFrameBuffer = null;
     if (otherFrameBuffer != null) otherFrameBuffer.dispose();
     otherFrameBuffer = null;
+    if (renderTarget != null) renderTarget.dispose();
+    renderTarget = null;
     if (shapeRenderer != null) shapeRenderer.dispose();
     shapeRenderer = null;
     if (premultiplyShader != null) premultiplyShader.dispose();
     premultiplyShader = null;
+    if (premultipliedShader != null) premultipliedShader.dispose();
+    premultipliedShader = null;
     if (demultiplyShader != null) demultiplyShader.dispose();
     demultiplyShader = null;
     spriteBatch.dispose();
   }
   
   private static class TextureKey {
-    public final GdxComponent renderer;
-    public final int id;
-    private final int hashCode;
+    public GdxComponent renderer;
+    public int id;
+    private int hashCode;
     
     public TextureKey(GdxComponent renderer, int id) {
+      set(renderer, id);
+    }
+    
+    /**
+     * Changes the key, so a single instance can be reused for lookups.
+     * Keys stored in a map must never be changed.
+     */
+    public TextureKey set(GdxComponent renderer, int id) {
       this.renderer = renderer;
       this.id = id;
       hashCode = calculateHashCode();
+      return this;
     }
 
     private int calculateHashCode() {
@@ -1368,7 +1738,7 @@ public class GdxPainter2D implements GdxPainter {
     public void begin() {
       spriteBatch.end();
       Gdx.gl.glEnable(GL20.GL_BLEND);
-      setPremultiplyAlpha(spriteBatch.getShader() == getPremultiplyShader());
+      setPremultiplyAlpha(isPremultiplyingAlpha());
       super.begin();
       setProjectionMatrix(currentCamera.combined);
       setTransformMatrix(getTransformMatrix());
@@ -1378,7 +1748,7 @@ public class GdxPainter2D implements GdxPainter {
     public void begin(ShapeType shapeType) {
       spriteBatch.end();
       Gdx.gl.glEnable(GL20.GL_BLEND);
-      setPremultiplyAlpha(spriteBatch.getShader() == getPremultiplyShader());
+      setPremultiplyAlpha(isPremultiplyingAlpha());
       super.begin(shapeType);
       setProjectionMatrix(currentCamera.combined);
       setTransformMatrix(getTransformMatrix());
@@ -1488,6 +1858,17 @@ public class GdxPainter2D implements GdxPainter {
       "  vec4 color = texture2D(u_texture, v_texCoord0) * v_color;\n" +
       "  gl_FragColor = vec4(color.r, color.g, color.b, 1.0) * color.a;\n" +
       "}\n";
+  private static final String FRAGMENT_PREMULTIPLIED =
+      "precision lowp float;\n" +
+
+      "varying vec4 v_color;\n" +
+      "varying vec2 v_texCoord0;\n" +
+
+      "uniform sampler2D u_texture;\n" +
+
+      "void main() {\n" +
+      "  gl_FragColor = texture2D(u_texture, v_texCoord0) * vec4(v_color.rgb * v_color.a, v_color.a);\n" +
+      "}\n";
   private static final String FRAGMENT_DEMULTIPLY =
       "precision lowp float;\n" +
 
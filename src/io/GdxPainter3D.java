@@ -17,20 +17,49 @@ import com.badlogic.gdx.graphics.g3d.Environment;
 import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.ModelBatch;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.RenderableProvider;
 import com.badlogic.gdx.graphics.g3d.attributes.BlendingAttribute;
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.graphics.g3d.utils.MeshPartBuilder;
 import com.badlogic.gdx.graphics.g3d.utils.ModelBuilder;
+import com.badlogic.gdx.graphics.g3d.utils.RenderableSorter;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.math.collision.Ray;
+import com.badlogic.gdx.utils.Array;
 
+import components.bounds.GdxBoundingShape;
+
+/**
+ * Painter which renders 3D components along with 2D ones. Models are queued during painting
+ * and rendered at the end of the frame, sorted by a {@link #setRenderableSorter(RenderableSorter)
+ * configurable sorter}. Models drawn along with their bounds are left out when the bounds lie
+ * outside the view of the current camera. Models are rendered at the same
+ * {@link #setRenderScale(float) render scale} as the canvas.
+ * <p>
+ * Components which need exact picking can be registered to its {@link #getColorPicker() color picker}.
+ *
+ */
 public class GdxPainter3D extends GdxPainter2D {
   public static final String TAG = GdxPainter3D.class.getSimpleName();
   public static final float FOV_ONE_TO_ONE = 67;
   
-  protected final ModelBatch modelBatch = new ModelBatch();
+  private RenderableSorter renderableSorter = new GdxRenderableSorter();
+  private int submitted = 0, culled = 0, drawn = 0;
+  private int lastSubmitted = 0, lastCulled = 0, lastDrawn = 0;
+  private boolean frustumCulling = true;
+  private final Vector3 boundsMin = new Vector3(), boundsMax = new Vector3();
+  protected final ModelBatch modelBatch = new ModelBatch(new RenderableSorter() {
+    @Override
+    public void sort(Camera camera, Array<Renderable> renderables) {
+      drawn += renderables.size;
+      renderableSorter.sort(camera, renderables);
+    }
+  });
   protected final Environment environment = new Environment();
   private final List<RenderableProvider> renderableProviders = new ArrayList<RenderableProvider>();
+  private final GdxColorPicker colorPicker = new GdxColorPicker(this);
   private final PerspectiveCamera mainCamera;
   public Camera currentCamera;
   private GdxSpecialCamera specialCamera;
@@ -57,13 +86,25 @@ public class GdxPainter3D extends GdxPainter2D {
   @Override
   protected void clearScreen() {
     Color clearColor = getClearColor();
-    Gdx.gl.glClearColor(clearColor.r, clearColor.g, clearColor.b, 1);
+    glState.setClearColor(clearColor.r, clearColor.g, clearColor.b, 1);
     Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
   }
 
   @Override
   public void end() {
     super.end();
+    colorPicker.frameFinished();
+    lastSubmitted = submitted;
+    lastCulled = culled;
+    lastDrawn = drawn;
+    submitted = culled = drawn = 0;
+  }
+  
+  /**
+   * Renders queued models into the render target of the canvas, so they follow the render scale.
+   */
+  @Override
+  protected void renderAfterCanvas() {
     if (showAxes && axes != null) {
       for (ModelInstance axis : axes) {
         renderableProviders.add(axis);
@@ -75,6 +116,8 @@ public class GdxPainter3D extends GdxPainter2D {
     modelBatch.begin(currentCamera);
     modelBatch.render(renderableProviders, environment);
     modelBatch.end();
+    // ModelBatch modifies blending functions on its own
+    glState.invalidate();
     renderableProviders.clear();
   }
   
@@ -155,10 +198,98 @@ public class GdxPainter3D extends GdxPainter2D {
     return new ExtendedFrameBuffer(Format.RGBA8888, width, height, true);
   }
   
+  @Override
+  protected FrameBuffer createRenderTarget(int width, int height) {
+    return new FrameBuffer(Format.RGBA8888, width, height, true);
+  }
+  
   public void draw(RenderableProvider renderableProvider) {
+    submitted++;
     renderableProviders.add(renderableProvider);
   }
   
+  /**
+   * Queues models for rendering unless their bounds lie entirely outside the view of the current camera.
+   * @param renderableProviders Models to be rendered
+   * @param bounds Shapes enclosing all the models, in frame coordinates
+   */
+  public void draw(Collection<? extends RenderableProvider> renderableProviders, Collection<GdxBoundingShape> bounds) {
+    submitted += renderableProviders.size();
+    if (frustumCulling && !isVisible(bounds)) {
+      culled += renderableProviders.size();
+      return;
+    }
+    this.renderableProviders.addAll(renderableProviders);
+  }
+  
+  /**
+   * @param bounds Shapes in frame coordinates
+   * @return Whether any of the shapes is at least partially within the view of the current camera
+   */
+  public boolean isVisible(Collection<GdxBoundingShape> bounds) {
+    for (GdxBoundingShape shape : bounds) {
+      shape.getMin(boundsMin);
+      shape.getMax(boundsMax);
+      //Frame coordinates grow downwards, unlike world coordinates
+      if (currentCamera.frustum.boundsInFrustum(
+          (boundsMin.x + boundsMax.x) / 2, - (boundsMin.y + boundsMax.y) / 2, (boundsMin.z + boundsMax.z) / 2, 
+          (boundsMax.x - boundsMin.x) / 2, (boundsMax.y - boundsMin.y) / 2, (boundsMax.z - boundsMin.z) / 2)) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  public boolean isFrustumCulling() {
+    return frustumCulling;
+  }
+  
+  public void setFrustumCulling(boolean frustumCulling) {
+    this.frustumCulling = frustumCulling;
+  }
+  
+  /**
+   * Provides access to picking by rendering components in colors encoding their identifiers.
+   * @return Color picker of this painter
+   */
+  public GdxColorPicker getColorPicker() {
+    return colorPicker;
+  }
+  
+  public RenderableSorter getRenderableSorter() {
+    return renderableSorter;
+  }
+  
+  /**
+   * Sets the order in which queued renderables are rendered.
+   * @param renderableSorter Sorter to be used, {@link GdxRenderableSorter} by default
+   */
+  public void setRenderableSorter(RenderableSorter renderableSorter) {
+    if (renderableSorter == null) throw new NullPointerException("Renderable sorter cannot be null");
+    this.renderableSorter = renderableSorter;
+  }
+  
+  /**
+   * @return Number of models queued for rendering during the last frame, including culled ones
+   */
+  public int getSubmittedCount() {
+    return lastSubmitted;
+  }
+  
+  /**
+   * @return Number of models left out during the last frame, since they were out of view
+   */
+  public int getCulledCount() {
+    return lastCulled;
+  }
+  
+  /**
+   * @return Number of renderables (parts of models) rendered during the last frame
+   */
+  public int getDrawnCount() {
+    return lastDrawn;
+  }
+  
   private void createTestingEntities() {
     ModelBuilder modelBuilder = new ModelBuilder();
     axes = new ModelInstance[3];
@@ -188,6 +319,7 @@ public class GdxPainter3D extends GdxPainter2D {
   @Override
   public void dispose() {
     modelBatch.dispose();
+    colorPicker.dispose();
     for (ModelInstance axis : axes) {
       axis.model.dispose();
     }
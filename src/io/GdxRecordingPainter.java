@@ -0,0 +1,707 @@
+package io;
+
+import java.util.ArrayList;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Affine2;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.collision.Ray;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import components.interfaces.GdxComponent;
+import effects.GdxVisualEffect;
+
+/**
+ * Painter which doesn't need an OpenGL context. Instead of drawing, it records all calls
+ * into a compact command log and counts them per command type, so paint traversal can be
+ * tested and benchmarked on machines without a GPU.
+ * <p>
+ * The log is cleared on every {@link #begin()}. Each entry consists of a {@link Command},
+ * a single reference (texture, region, text, component or shader, depending on the command)
+ * and a few float arguments listed at each command. Logs of two painters can be compared via
+ * {@link #diff(GdxRecordingPainter)}.
+ * <p>
+ * Shaders are recorded, but never prepared, and textures requested via requestTextureRender are
+ * placeholders without an actual texture. Text is measured using the given font, or if there is none,
+ * every character is assumed to be {@link #setGlyphSize(float, float) glyph size} large.
+ *
+ */
+public class GdxRecordingPainter implements GdxPainter {
+  public enum Command {
+    /** No arguments */
+    BEGIN,
+    /** No arguments */
+    END,
+    /** No arguments */
+    FLUSH,
+    /** Reference: component. Arguments: x, y */
+    BEGIN_COMPONENT,
+    /** Reference: component. No arguments */
+    END_COMPONENT,
+    /** Reference: texture or texture region. Arguments: x, y, width, height, rotation */
+    DRAW,
+    /** Reference: texture. Arguments: number of vertex components */
+    DRAW_VERTICES,
+    /** Reference: text. Arguments: x, y, width, height, horizontal gravity, vertical gravity, scale */
+    DRAW_TEXT,
+    /** Arguments: x, y, width, height */
+    PUSH_CLIP,
+    /** No arguments */
+    POP_CLIP,
+    /** Reference: shader. No arguments */
+    PUSH_SHADER,
+    /** Reference: shader. No arguments */
+    POP_SHADER,
+    /** Reference: component. Arguments: id, width, height */
+    BEGIN_TEXTURE_RENDER,
+    /** Reference: component. No arguments */
+    END_TEXTURE_RENDER,
+    /** Arguments: red, green, blue, alpha */
+    SET_COLOR,
+    /** Arguments: 1 if blending is enabled, 0 otherwise */
+    SET_BLENDING
+  }
+
+  private static final Command[] COMMANDS = Command.values();
+
+  private float canvasWidth, canvasHeight;
+  private int screenWidth, screenHeight;
+  private final OrthographicCamera camera = new OrthographicCamera();
+  private GdxSpecialCamera specialCamera;
+  private final Color color = new Color(Color.WHITE);
+  private Color clearColor = Color.BLACK;
+  private boolean blackBorders = true;
+  private boolean recording = true;
+  private float glyphWidth = 0.5f, glyphHeight = 1;
+  private final GlyphLayout glyphLayout = new GlyphLayout();
+  private final ArrayList<Rectangle> clippingAreas = new ArrayList<Rectangle>();
+  private final ArrayList<Rectangle> visibleAreas = new ArrayList<Rectangle>();
+  //Rectangles reused by index, so one at the index of the stack top is free again once it's popped
+  private final ArrayList<Rectangle> clippingAreaPool = new ArrayList<Rectangle>();
+  private final ArrayList<Rectangle> visibleAreaPool = new ArrayList<Rectangle>();
+  private final ArrayList<GdxShader> shaders = new ArrayList<GdxShader>();
+  private final ArrayList<GdxVisualEffect> currentVisualEffects = new ArrayList<GdxVisualEffect>(10);
+  private final TextureRegion renderedTexture = new TextureRegion();
+  private final IntArray commands = new IntArray();
+  private final IntArray argumentStarts = new IntArray();
+  private final FloatArray arguments = new FloatArray();
+  private final ArrayList<Object> references = new ArrayList<Object>();
+  private final int[] counters = new int[COMMANDS.length];
+
+  public GdxRecordingPainter(float canvasWidth, float canvasHeight) {
+    this(canvasWidth, canvasHeight, Math.round(canvasWidth), Math.round(canvasHeight));
+  }
+
+  public GdxRecordingPainter(float canvasWidth, float canvasHeight, int screenWidth, int screenHeight) {
+    this.canvasWidth = canvasWidth;
+    this.canvasHeight = canvasHeight;
+    this.screenWidth = screenWidth;
+    this.screenHeight = screenHeight;
+    camera.setToOrtho(true);
+    updateCamera();
+  }
+
+  protected void updateCamera() {
+    camera.viewportWidth = screenWidth;
+    camera.viewportHeight = screenHeight;
+    camera.zoom = Math.max(canvasWidth / screenWidth, canvasHeight / screenHeight);
+    camera.position.x = canvasWidth / 2;
+    camera.position.y = canvasHeight / 2;
+    camera.update();
+    if (specialCamera != null) {
+      specialCamera.onResize(canvasWidth, canvasHeight, screenWidth, screenHeight, camera.zoom);
+    }
+  }
+
+  /**
+   * Sets whether commands should be logged. If not, only counters are updated,
+   * which keeps memory usage constant, e.g. during benchmarks.
+   * @param recording Whether to log commands
+   */
+  public void setRecording(boolean recording) {
+    this.recording = recording;
+  }
+
+  public boolean isRecording() {
+    return recording;
+  }
+
+  /**
+   * Sets size of a single character used to measure text when the font can't be used.
+   * @param glyphWidth Width of a character in canvas units
+   * @param glyphHeight Height of a character in canvas units
+   */
+  public void setGlyphSize(float glyphWidth, float glyphHeight) {
+    this.glyphWidth = glyphWidth;
+    this.glyphHeight = glyphHeight;
+  }
+
+  private void record(Command command, Object reference) {
+    counters[command.ordinal()]++;
+    if (recording) {
+      commands.add(command.ordinal());
+      argumentStarts.add(arguments.size);
+      references.add(reference);
+    }
+  }
+
+  private void record(Command command, Object reference, float a, float b) {
+    record(command, reference);
+    if (recording) {
+      arguments.add(a);
+      arguments.add(b);
+    }
+  }
+
+  private void record(Command command, Object reference, float a, float b, float c, float d) {
+    record(command, reference, a, b);
+    if (recording) {
+      arguments.add(c);
+      arguments.add(d);
+    }
+  }
+
+  private void recordDraw(Object reference, float x, float y, float width, float height, float rotation) {
+    record(Command.DRAW, reference, x, y, width, height);
+    if (recording) arguments.add(rotation);
+  }
+
+  private void recordText(CharSequence text, float x, float y, float width, float height,
+      float horizontalGravity, float verticalGravity, float scale) {
+    // Text may be a reused mutable sequence, so it needs to be copied
+    record(Command.DRAW_TEXT, recording ? text.toString() : null, x, y, width, height);
+    if (recording) {
+      arguments.add(horizontalGravity);
+      arguments.add(verticalGravity);
+      arguments.add(scale);
+    }
+  }
+
+  /**
+   * Clears the command log and all counters.
+   */
+  public void clear() {
+    commands.clear();
+    argumentStarts.clear();
+    arguments.clear();
+    references.clear();
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = 0;
+    }
+  }
+
+  public int getCommandCount() {
+    return commands.size;
+  }
+
+  public Command getCommand(int index) {
+    return COMMANDS[commands.get(index)];
+  }
+
+  public Object getReference(int index) {
+    return references.get(index);
+  }
+
+  public int getArgumentCount(int index) {
+    int end = index + 1 < argumentStarts.size ? argumentStarts.get(index + 1) : arguments.size;
+    return end - argumentStarts.get(index);
+  }
+
+  public float getArgument(int index, int argument) {
+    if (argument < 0 || argument >= getArgumentCount(index))
+      throw new IndexOutOfBoundsException("Command " + index + " has no argument " + argument);
+    return arguments.get(argumentStarts.get(index) + argument);
+  }
+
+  /**
+   * @param command Type of command
+   * @return Number of commands of the given type issued since the last {@link #begin()}
+   */
+  public int getCount(Command command) {
+    return counters[command.ordinal()];
+  }
+
+  private boolean equalCommands(int index, GdxRecordingPainter other) {
+    if (commands.get(index) != other.commands.get(index))
+      return false;
+    Object reference = references.get(index);
+    Object otherReference = other.references.get(index);
+    if (reference instanceof String ? !reference.equals(otherReference) : reference != otherReference)
+      return false;
+    int argumentCount = getArgumentCount(index);
+    if (argumentCount != other.getArgumentCount(index))
+      return false;
+    int start = argumentStarts.get(index);
+    int otherStart = other.argumentStarts.get(index);
+    for (int i = 0; i < argumentCount; i++) {
+      if (arguments.get(start + i) != other.arguments.get(otherStart + i))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Compares the command log with a log of another painter. References are compared by identity,
+   * except for text, which is compared by content. Arguments are compared exactly.
+   * @param other Painter to compare with
+   * @return Index of the first differing command, or -1 if both logs are equal
+   */
+  public int diff(GdxRecordingPainter other) {
+    int count = Math.min(commands.size, other.commands.size);
+    for (int i = 0; i < count; i++) {
+      if (!equalCommands(i, other)) return i;
+    }
+    return commands.size == other.commands.size ? -1 : count;
+  }
+
+  /**
+   * @param index Index of a command
+   * @return Human readable description of the command
+   */
+  public String describe(int index) {
+    StringBuilder description = new StringBuilder();
+    description.append(index).append(": ").append(getCommand(index));
+    Object reference = references.get(index);
+    if (reference instanceof String) {
+      description.append(" \"").append(reference).append('"');
+    } else if (reference != null) {
+      description.append(' ').append(reference.getClass().getSimpleName());
+    }
+    int argumentCount = getArgumentCount(index);
+    for (int i = 0; i < argumentCount; i++) {
+      description.append(i == 0 ? " (" : ", ").append(getArgument(index, i));
+    }
+    if (argumentCount > 0) description.append(')');
+    return description.toString();
+  }
+
+  /**
+   * @return Area of canvas currently not clipped away, or NULL if no clipping area is pushed.
+   *         The rectangle is owned by the painter and is only valid until the next push.
+   */
+  public Rectangle getVisibleArea() {
+    return visibleAreas.isEmpty() ? null : visibleAreas.get(visibleAreas.size() - 1);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder log = new StringBuilder();
+    for (int i = 0; i < commands.size; i++) {
+      log.append(describe(i)).append('\n');
+    }
+    return log.toString();
+  }
+
+  @Override
+  public void begin() {
+    clear();
+    clippingAreas.clear();
+    visibleAreas.clear();
+    shaders.clear();
+    currentVisualEffects.clear();
+    record(Command.BEGIN, null);
+    if (blackBorders) pushClippingArea(0, 0, canvasWidth, canvasHeight);
+  }
+
+  @Override
+  public void end() {
+    while (!clippingAreas.isEmpty()) popClippingArea();
+    record(Command.END, null);
+  }
+
+  @Override
+  public void flush() {
+    record(Command.FLUSH, null);
+  }
+
+  @Override
+  public void setSpecialCamera(GdxSpecialCamera specialCamera) {
+    this.specialCamera = specialCamera;
+    updateCamera();
+  }
+
+  @Override
+  public GdxSpecialCamera getSpecialCamera() {
+    return specialCamera;
+  }
+
+  @Override
+  public void setSize(float width, float height) {
+    if (canvasWidth != width || canvasHeight != height) {
+      canvasWidth = width;
+      canvasHeight = height;
+      updateCamera();
+    }
+  }
+
+  @Override
+  public float getWidth() {
+    return canvasWidth;
+  }
+
+  @Override
+  public float getHeight() {
+    return canvasHeight;
+  }
+
+  @Override
+  public void setScreenSize(int screenWidth, int screenHeight) {
+    if (this.screenWidth != screenWidth || this.screenHeight != screenHeight) {
+      this.screenWidth = screenWidth;
+      this.screenHeight = screenHeight;
+      updateCamera();
+    }
+  }
+
+  @Override
+  public int getScreenWidth() {
+    return screenWidth;
+  }
+
+  @Override
+  public int getScreenHeight() {
+    return screenHeight;
+  }
+
+  @Override
+  public int getOriginLeft() {
+    return Math.round(screenWidth * 0.5f - camera.position.x / camera.zoom);
+  }
+
+  @Override
+  public int getOriginTop() {
+    return Math.round(screenHeight * 0.5f - camera.position.y / camera.zoom);
+  }
+
+  @Override
+  public Ray getPickingRay(int screenX, int screenY) {
+    // Default overload would read screen size from Gdx.graphics
+    if (specialCamera != null) {
+      return specialCamera.getCamera().getPickRay(screenX, screenY, 0, 0, screenWidth, screenHeight);
+    }
+    return camera.getPickRay(screenX, screenY, 0, 0, screenWidth, screenHeight);
+  }
+
+  /**
+   * @deprecated Use {@link #getCupp()} instead.
+   */
+  @Override
+  @Deprecated
+  public float getScale() {
+    return getCupp();
+  }
+
+  @Override
+  public float getCanvasUnitsPerPixel() {
+    return camera.zoom;
+  }
+
+  @Override
+  public float getCupp() {
+    return camera.zoom;
+  }
+
+  @Override
+  public float getPixelsPerCanvasUnit() {
+    return 1 / camera.zoom;
+  }
+
+  @Override
+  public float getPpcu() {
+    return 1 / camera.zoom;
+  }
+
+  @Override
+  public void enableBlending() {
+    record(Command.SET_BLENDING, null);
+    if (recording) arguments.add(1);
+  }
+
+  @Override
+  public void disableBlending() {
+    record(Command.SET_BLENDING, null);
+    if (recording) arguments.add(0);
+  }
+
+  @Override
+  public void setColor(Color tint) {
+    setColor(tint.r, tint.g, tint.b, tint.a);
+  }
+
+  @Override
+  public void setColor(float color) {
+    Color.abgr8888ToColor(this.color, color);
+    setColor(this.color.r, this.color.g, this.color.b, this.color.a);
+  }
+
+  @Override
+  public void setColor(float r, float g, float b, float a) {
+    color.set(r, g, b, a);
+    record(Command.SET_COLOR, null, r, g, b, a);
+  }
+
+  @Override
+  public Color getColor() {
+    return color;
+  }
+
+  @Override
+  public void setClearColor(Color clearColor) {
+    this.clearColor = clearColor;
+  }
+
+  @Override
+  public Color getClearColor() {
+    return clearColor;
+  }
+
+  @Override
+  public void setBlackBorders(boolean blackBorders) {
+    this.blackBorders = blackBorders;
+  }
+
+  @Override
+  public boolean isBlackBorders() {
+    return blackBorders;
+  }
+
+  @Override
+  public TextureRegion requestTextureRender(GdxComponent component, int id, float width, float height, Color clearColor) {
+    record(Command.BEGIN_TEXTURE_RENDER, component);
+    if (recording) {
+      arguments.add(id);
+      arguments.add(width);
+      arguments.add(height);
+    }
+    component.renderTexture(id, width, height, this);
+    record(Command.END_TEXTURE_RENDER, component);
+    return renderedTexture;
+  }
+
+  @Override
+  public TextureRegion requestTextureRender(GdxComponent component, int id, float width, float height) {
+    return requestTextureRender(component, id, width, height, COLOR_TRANSPARENT);
+  }
+
+  @Override
+  public TextureRegion requestTextureRender(GdxComponent component, int id, Color clearColor) {
+    return requestTextureRender(component, id, component.getWidth(), component.getHeight(), clearColor);
+  }
+
+  @Override
+  public TextureRegion requestTextureRender(GdxComponent component, int id) {
+    return requestTextureRender(component, id, component.getWidth(), component.getHeight(), COLOR_TRANSPARENT);
+  }
+
+  @Override
+  public boolean pushClippingArea(float x, float y, float width, float height) {
+    return pushClippingArea(obtainRectangle(clippingAreaPool, clippingAreas.size()).set(x, y, width, height));
+  }
+
+  @Override
+  public boolean pushClippingArea(Rectangle area) {
+    record(Command.PUSH_CLIP, null, area.x, area.y, area.width, area.height);
+    float left = area.x, top = area.y;
+    float right = area.x + area.width, bottom = area.y + area.height;
+    if (!visibleAreas.isEmpty()) {
+      Rectangle parent = visibleAreas.get(visibleAreas.size() - 1);
+      left = Math.max(left, parent.x);
+      top = Math.max(top, parent.y);
+      right = Math.min(right, parent.x + parent.width);
+      bottom = Math.min(bottom, parent.y + parent.height);
+    }
+    // Mirrors ScissorStack, which refuses areas smaller than a pixel after intersecting with the top
+    if (right - left < getCupp() || bottom - top < getCupp()) return false;
+    clippingAreas.add(area);
+    visibleAreas.add(obtainRectangle(visibleAreaPool, visibleAreas.size()).set(left, top, right - left, bottom - top));
+    return true;
+  }
+
+  @Override
+  public Rectangle popClippingArea() {
+    record(Command.POP_CLIP, null);
+    visibleAreas.remove(visibleAreas.size() - 1);
+    return clippingAreas.remove(clippingAreas.size() - 1);
+  }
+
+  private Rectangle obtainRectangle(ArrayList<Rectangle> pool, int index) {
+    while (pool.size() <= index) pool.add(new Rectangle());
+    return pool.get(index);
+  }
+
+  @Override
+  public void pushShader(GdxShader shader) {
+    record(Command.PUSH_SHADER, shader);
+    shaders.add(shader);
+  }
+
+  @Override
+  public GdxShader popShader() {
+    GdxShader shader = shaders.remove(shaders.size() - 1);
+    record(Command.POP_SHADER, shader);
+    return shader;
+  }
+
+  @Override
+  public void paintComponent(float x, float y, GdxComponent component) {
+    if (component.isVisible()) {
+      record(Command.BEGIN_COMPONENT, component, x, y);
+      int visualEffectCount = component.getVisualEffects().size();
+      for (int i = 0; i < visualEffectCount; i++) {
+        GdxVisualEffect visualEffect = component.getVisualEffect(i);
+        currentVisualEffects.add(visualEffect);
+        visualEffect.before(x, y, this);
+      }
+      component.paint(x, y, this);
+      int index = currentVisualEffects.size() - 1;
+      for (int effectCount = visualEffectCount; effectCount > 0; effectCount--) {
+        currentVisualEffects.remove(index--).after(x, y, this);
+      }
+      record(Command.END_COMPONENT, component);
+    }
+  }
+
+  @Override
+  public void draw(Texture texture, float x, float y) {
+    recordDraw(texture, x, y, texture.getWidth(), texture.getHeight(), 0);
+  }
+
+  @Override
+  public void draw(Texture texture, float x, float y, float width, float height) {
+    recordDraw(texture, x, y, width, height, 0);
+  }
+
+  @Override
+  public void draw(Texture texture, float x, float y, int srcX, int srcY, int srcWidth, int srcHeight) {
+    recordDraw(texture, x, y, srcWidth, srcHeight, 0);
+  }
+
+  @Override
+  public void draw(Texture texture, float x, float y, float width, float height,
+      int srcX, int srcY, int srcWidth, int srcHeight, boolean flipX, boolean flipY) {
+    recordDraw(texture, x, y, width, height, 0);
+  }
+
+  @Override
+  public void draw(Texture texture, float x, float y, float originX, float originY,
+      float width, float height, float scaleX, float scaleY, float rotation,
+      int srcX, int srcY, int srcWidth, int srcHeight, boolean flipX, boolean flipY) {
+    recordDraw(texture, x, y, width * scaleX, height * scaleY, rotation);
+  }
+
+  @Override
+  public void draw(Texture texture, float x, float y, float width, float height,
+      float u, float v, float u2, float v2) {
+    recordDraw(texture, x, y, width, height, 0);
+  }
+
+  @Override
+  public void draw(Texture texture, float[] spriteVertices, int offset, int count) {
+    record(Command.DRAW_VERTICES, texture);
+    if (recording) arguments.add(count);
+  }
+
+  @Override
+  public void draw(TextureRegion region, float x, float y) {
+    recordDraw(region, x, y, region.getRegionWidth(), region.getRegionHeight(), 0);
+  }
+
+  @Override
+  public void draw(TextureRegion region, float x, float y, float width, float height) {
+    recordDraw(region, x, y, width, height, 0);
+  }
+
+  @Override
+  public void draw(TextureRegion region, float x, float y, float originX, float originY,
+      float width, float height, float scaleX, float scaleY, float rotation) {
+    recordDraw(region, x, y, width * scaleX, height * scaleY, rotation);
+  }
+
+  @Override
+  public void draw(TextureRegion region, float x, float y, float originX, float originY,
+      float width, float height, float scaleX, float scaleY, float rotation,
+      boolean clockwise) {
+    recordDraw(region, x, y, width * scaleX, height * scaleY, clockwise ? rotation : -rotation);
+  }
+
+  @Override
+  public void draw(TextureRegion region, float width, float height, Affine2 transform) {
+    recordDraw(region, transform.m02, transform.m12, width, height, 0);
+  }
+
+  @Override
+  public float measureTextWidth(BitmapFont font, String text) {
+    if (font == null) return text.length() * glyphWidth;
+    glyphLayout.setText(font, text);
+    return glyphLayout.width;
+  }
+
+  @Override
+  public float measureTextHeight(BitmapFont font, String text) {
+    if (font == null) return glyphHeight;
+    glyphLayout.setText(font, text);
+    return glyphLayout.height;
+  }
+
+  @Override
+  public void drawText(BitmapFont font, CharSequence text, float x, float y) {
+    recordText(text, x, y, 0, 0, 0, 0, 1);
+  }
+
+  @Override
+  public void drawText(BitmapFont font, CharSequence text, float x, float y, float width, float height,
+      float horizontalGravity, float verticalGravity) {
+    recordText(text, x, y, width, height, horizontalGravity, verticalGravity, 1);
+  }
+
+  @Override
+  public void drawText(BitmapFont font, CharSequence text, Rectangle area, float horizontalGravity, float verticalGravity) {
+    recordText(text, area.x, area.y, area.width, area.height, horizontalGravity, verticalGravity, 1);
+  }
+
+  @Override
+  public void drawText(BitmapFont font, CharSequence text, float x, float y, float width, float height,
+      float horizontalGravity, float verticalGravity, float scale) {
+    recordText(text, x, y, width, height, horizontalGravity, verticalGravity, scale);
+  }
+
+  @Override
+  public void drawText(BitmapFont font, CharSequence text, Rectangle area, float horizontalGravity, float verticalGravity, float scale) {
+    recordText(text, area.x, area.y, area.width, area.height, horizontalGravity, verticalGravity, scale);
+  }
+
+  @Override
+  public void drawText(BitmapFont font, CharSequence text, float x, float y, float width, float height,
+      float horizontalGravity, float verticalGravity, float scale, float alpha) {
+    recordText(text, x, y, width, height, horizontalGravity, verticalGravity, scale);
+  }
+
+  @Override
+  public void drawText(BitmapFont font, CharSequence text, Rectangle area, float horizontalGravity, float verticalGravity,
+      float scale, float alpha) {
+    recordText(text, area.x, area.y, area.width, area.height, horizontalGravity, verticalGravity, scale);
+  }
+
+  @Override
+  public void drawText(BitmapFont font, CharSequence text, float x, float y, float width, float height,
+      float horizontalGravity, float verticalGravity, float scale, Color color) {
+    recordText(text, x, y, width, height, horizontalGravity, verticalGravity, scale);
+  }
+
+  @Override
+  public void drawText(BitmapFont font, CharSequence text, Rectangle area, float horizontalGravity, float verticalGravity,
+      float scale, Color color) {
+    recordText(text, area.x, area.y, area.width, area.height, horizontalGravity, verticalGravity, scale);
+  }
+
+  @Override
+  public void dispose() {
+    clear();
+  }
+}
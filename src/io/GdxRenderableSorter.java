@@ -0,0 +1,66 @@
+package io;
+
+import java.util.Comparator;
+
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.badlogic.gdx.graphics.g3d.utils.RenderableSorter;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Default render queue order of {@link GdxPainter3D}. Opaque renderables go first, grouped
+ * by shader and material, so the model batch switches its state as rarely as possible, and
+ * within a group from front to back, so hidden fragments are rejected by the depth test early.
+ * Transparent renderables follow from back to front, so they blend correctly.
+ *
+ */
+public class GdxRenderableSorter implements RenderableSorter, Comparator<Renderable> {
+  private Camera camera;
+  private final Vector3 position = new Vector3();
+
+  @Override
+  public void sort(Camera camera, Array<Renderable> renderables) {
+    this.camera = camera;
+    renderables.sort(this);
+  }
+
+  @Override
+  public int compare(Renderable renderable1, Renderable renderable2) {
+    boolean transparent1 = isTransparent(renderable1);
+    boolean transparent2 = isTransparent(renderable2);
+    if (transparent1 != transparent2) return transparent1 ? 1 : -1;
+    if (transparent1) return Float.compare(distance(renderable2), distance(renderable1));
+    if (renderable1.shader != renderable2.shader) {
+      int shaderOrder = Integer.compare(System.identityHashCode(renderable1.shader),
+          System.identityHashCode(renderable2.shader));
+      if (shaderOrder != 0) return shaderOrder;
+    }
+    int materialOrder = compareMaterials(renderable1.material, renderable2.material);
+    if (materialOrder != 0) return materialOrder;
+    return Float.compare(distance(renderable1), distance(renderable2));
+  }
+
+  private int compareMaterials(Material material1, Material material2) {
+    if (material1 == material2) return 0;
+    if (material1 == null) return -1;
+    if (material2 == null) return 1;
+    //Materials with equal attributes are treated as one, since they need no state change
+    return material1.compareTo(material2);
+  }
+
+  protected boolean isTransparent(Renderable renderable) {
+    if (renderable.material == null) return false;
+    BlendingAttribute blending = (BlendingAttribute)renderable.material.get(BlendingAttribute.Type);
+    return blending != null && blending.blended;
+  }
+
+  /**
+   * @return Squared distance of the renderable's origin from the camera
+   */
+  protected float distance(Renderable renderable) {
+    return renderable.worldTransform.getTranslation(position).dst2(camera.position);
+  }
+}
@@ -0,0 +1,214 @@
+package io;
+
+import java.util.HashMap;
+
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+
+/**
+ * Typed access to uniforms of a single shader program. Uniform locations are resolved
+ * only once and values are cached, so a uniform is only uploaded when its value changes.
+ * <p>
+ * Since cached values belong to the program rather than to a shader using it, there
+ * should only be a single instance per program. Programs created by
+ * {@link helpers.ShaderFactory ShaderFactory} share one instance available through
+ * {@link helpers.ShaderFactory#getUniforms(ShaderProgram) getUniforms}.
+ *
+ */
+public class GdxShaderUniforms {
+  private static int uploadCount = 0;
+  private static int frameUploadCount = 0;
+
+  private final ShaderProgram program;
+  private final HashMap<String, Uniform> uniforms = new HashMap<String, Uniform>();
+
+  public GdxShaderUniforms(ShaderProgram program) {
+    this.program = program;
+  }
+
+  public ShaderProgram getProgram() {
+    return program;
+  }
+
+  private Uniform findUniform(String name, Class<? extends Uniform> type) {
+    Uniform uniform = uniforms.get(name);
+    if (uniform != null && !type.isInstance(uniform)) {
+      throw new IllegalArgumentException(String.format("Uniform %s is already bound as %s",
+          name, uniform.getClass().getSimpleName()));
+    }
+    return uniform;
+  }
+
+  private <T extends Uniform> T addUniform(T uniform) {
+    uniforms.put(uniform.getName(), uniform);
+    return uniform;
+  }
+
+  public IntUniform getInt(String name) {
+    Uniform uniform = findUniform(name, IntUniform.class);
+    if (uniform == null) return addUniform(new IntUniform(name));
+    return (IntUniform)uniform;
+  }
+
+  public FloatUniform getFloat(String name) {
+    Uniform uniform = findUniform(name, FloatUniform.class);
+    if (uniform == null) return addUniform(new FloatUniform(name));
+    return (FloatUniform)uniform;
+  }
+
+  public Vec2Uniform getVec2(String name) {
+    Uniform uniform = findUniform(name, Vec2Uniform.class);
+    if (uniform == null) return addUniform(new Vec2Uniform(name));
+    return (Vec2Uniform)uniform;
+  }
+
+  public Vec3Uniform getVec3(String name) {
+    Uniform uniform = findUniform(name, Vec3Uniform.class);
+    if (uniform == null) return addUniform(new Vec3Uniform(name));
+    return (Vec3Uniform)uniform;
+  }
+
+  public Vec4Uniform getVec4(String name) {
+    Uniform uniform = findUniform(name, Vec4Uniform.class);
+    if (uniform == null) return addUniform(new Vec4Uniform(name));
+    return (Vec4Uniform)uniform;
+  }
+
+  /**
+   * Forgets cached values and locations of all uniforms. Call this whenever
+   * the program has been recompiled, e.g. after OpenGL context loss.
+   */
+  public void invalidate() {
+    for (Uniform uniform : uniforms.values()) {
+      uniform.invalidate();
+    }
+  }
+
+  /**
+   * Marks an end of a frame for the purpose of counting uploads per frame.
+   */
+  public static void frameFinished() {
+    frameUploadCount = uploadCount;
+    uploadCount = 0;
+  }
+
+  /**
+   * @return Number of uniform uploads performed during the last finished frame
+   */
+  public static int getUploadsPerFrame() {
+    return frameUploadCount;
+  }
+
+  public abstract class Uniform {
+    private final String name;
+    private int location;
+    private boolean resolved = false;
+    protected boolean valid = false;
+
+    protected Uniform(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return Location of the uniform, or a negative value if the program has no such uniform
+     */
+    public int getLocation() {
+      if (!resolved) {
+        location = program.getUniformLocation(name);
+        resolved = true;
+      }
+      return location;
+    }
+
+    protected boolean prepareUpload() {
+      if (getLocation() < 0) return false;
+      valid = true;
+      uploadCount++;
+      return true;
+    }
+
+    protected void invalidate() {
+      resolved = false;
+      valid = false;
+    }
+  }
+
+  public class IntUniform extends Uniform {
+    private int value;
+
+    protected IntUniform(String name) {
+      super(name);
+    }
+
+    public void set(int value) {
+      if (valid && this.value == value) return;
+      this.value = value;
+      if (prepareUpload()) program.setUniformi(getLocation(), value);
+    }
+  }
+
+  public class FloatUniform extends Uniform {
+    private float value;
+
+    protected FloatUniform(String name) {
+      super(name);
+    }
+
+    public void set(float value) {
+      if (valid && this.value == value) return;
+      this.value = value;
+      if (prepareUpload()) program.setUniformf(getLocation(), value);
+    }
+  }
+
+  public class Vec2Uniform extends Uniform {
+    private float x, y;
+
+    protected Vec2Uniform(String name) {
+      super(name);
+    }
+
+    public void set(float x, float y) {
+      if (valid && this.x == x && this.y == y) return;
+      this.x = x;
+      this.y = y;
+      if (prepareUpload()) program.setUniformf(getLocation(), x, y);
+    }
+  }
+
+  public class Vec3Uniform extends Uniform {
+    private float x, y, z;
+
+    protected Vec3Uniform(String name) {
+      super(name);
+    }
+
+    public void set(float x, float y, float z) {
+      if (valid && this.x == x && this.y == y && this.z == z) return;
+      this.x = x;
+      this.y = y;
+      this.z = z;
+      if (prepareUpload()) program.setUniformf(getLocation(), x, y, z);
+    }
+  }
+
+  public class Vec4Uniform extends Uniform {
+    private float x, y, z, w;
+
+    protected Vec4Uniform(String name) {
+      super(name);
+    }
+
+    public void set(float x, float y, float z, float w) {
+      if (valid && this.x == x && this.y == y && this.z == z && this.w == w) return;
+      this.x = x;
+      this.y = y;
+      this.z = z;
+      this.w = w;
+      if (prepareUpload()) program.setUniformf(getLocation(), x, y, z, w);
+    }
+  }
+}